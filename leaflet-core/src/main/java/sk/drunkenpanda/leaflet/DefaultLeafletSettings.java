@@ -21,14 +21,18 @@ import sk.drunkenpanda.leaflet.resources.LeafletStylesheetResourceReference;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.request.resource.UrlResourceReference;
+import sk.drunkenpanda.leaflet.components.map.MapBootstrap;
+import sk.drunkenpanda.leaflet.json.LeafletJacksonModule;
+import sk.drunkenpanda.leaflet.metrics.EventMetrics;
 
 /**
  * Default implementation of Wicket Leaflet settings.
  * 
  * @author Jan Ferko
  * @see sk.drunkenpanda.leaflet.LeafletSettings
+ * @see sk.drunkenpanda.leaflet.ExtendedLeafletSettings
  */
-public class DefaultLeafletSettings implements LeafletSettings {        
+public class DefaultLeafletSettings implements LeafletSettings, ExtendedLeafletSettings {        
     
     /** Default version of leaflet, used when custom version isn't provided. */
     public static final String DEFAULT_VERSION = "0.7.3";
@@ -44,6 +48,11 @@ public class DefaultLeafletSettings implements LeafletSettings {
     private final ResourceReference cssReference;
     private final boolean useCdn;
     private final boolean autoAppend;
+    private final int coordinatePrecision;
+    private final int jsonCacheSize;
+    private final EventMetrics eventMetrics;
+    private final MapBootstrap mapBootstrap;
+    private final boolean lazyMapInitialization;
     
     /**
      * Constructor, that creates default Leaflet settings.
@@ -63,11 +72,27 @@ public class DefaultLeafletSettings implements LeafletSettings {
      */
     public DefaultLeafletSettings(String version, ResourceReference javascriptReference, ResourceReference cssReference, 
             boolean useCdn, boolean autoAppend) {
-        this.version = version;
-        this.javascriptReference = javascriptReference;
-        this.cssReference = cssReference;
-        this.useCdn = useCdn;
-        this.autoAppend = autoAppend;
+        this(new Builder().setVersion(version).setJavascriptReference(javascriptReference)
+                .setCssReference(cssReference).setUseCdn(useCdn).setAutoAppendResources(autoAppend));
+    }
+
+    /**
+     * Constructor, that creates settings from state of builder.
+     * Extended settings can be customized only by {@link Builder}.
+     * 
+     * @param builder the builder of settings
+     */
+    private DefaultLeafletSettings(Builder builder) {
+        this.version = builder.version;
+        this.javascriptReference = builder.jsReference;
+        this.cssReference = builder.cssReference;
+        this.useCdn = builder.useCdn;
+        this.autoAppend = builder.autoAppend;
+        this.coordinatePrecision = builder.coordinatePrecision;
+        this.jsonCacheSize = builder.jsonCacheSize;
+        this.eventMetrics = builder.eventMetrics != null ? builder.eventMetrics : EventMetrics.NONE;
+        this.mapBootstrap = builder.mapBootstrap != null ? builder.mapBootstrap : MapBootstrap.SCRIPT;
+        this.lazyMapInitialization = builder.lazyMapInitialization;
     }        
 
     @Override
@@ -117,6 +142,31 @@ public class DefaultLeafletSettings implements LeafletSettings {
     public boolean autoAppendResources() {
         return this.autoAppend;
     }
+
+    @Override
+    public int getCoordinatePrecision() {
+        return this.coordinatePrecision;
+    }
+
+    @Override
+    public int getJsonCacheSize() {
+        return this.jsonCacheSize;
+    }
+
+    @Override
+    public EventMetrics getEventMetrics() {
+        return this.eventMetrics;
+    }
+
+    @Override
+    public MapBootstrap getMapBootstrap() {
+        return this.mapBootstrap;
+    }
+
+    @Override
+    public boolean isLazyMapInitialization() {
+        return this.lazyMapInitialization;
+    }
     
     /**
      * Holder for on demand initialization of WebJar resources.
@@ -133,6 +183,11 @@ public class DefaultLeafletSettings implements LeafletSettings {
         private String version;
         private boolean useCdn;
         private boolean autoAppend;
+        private int coordinatePrecision;
+        private int jsonCacheSize;
+        private EventMetrics eventMetrics;
+        private MapBootstrap mapBootstrap;
+        private boolean lazyMapInitialization;
         
         private ResourceReference jsReference;
         private ResourceReference cssReference;
@@ -141,6 +196,7 @@ public class DefaultLeafletSettings implements LeafletSettings {
             useCdn = false;
             autoAppend = false;
             version = DEFAULT_VERSION;
+            coordinatePrecision = LeafletJacksonModule.DEFAULT_COORDINATE_PRECISION;
         }
         
         /**
@@ -194,12 +250,62 @@ public class DefaultLeafletSettings implements LeafletSettings {
             return this;
         }
         
+        /**
+         * Sets number of decimal places of coordinates written to JSON.
+         * @param coordinatePrecision number of decimal places between 0 and 15
+         * @return this instance for chaining
+         */
+        public Builder setCoordinatePrecision(int coordinatePrecision) {
+            this.coordinatePrecision = coordinatePrecision;
+            return this;
+        }
+        
+        /**
+         * Sets maximal number of map options and layers, whose JSON is cached.
+         * @param jsonCacheSize size of JSON cache, {@code 0} disables cache
+         * @return this instance for chaining
+         */
+        public Builder setJsonCacheSize(int jsonCacheSize) {
+            this.jsonCacheSize = jsonCacheSize;
+            return this;
+        }
+        
+        /**
+         * Sets receiver of measurements of map events.
+         * @param eventMetrics event metrics, e.g. {@link sk.drunkenpanda.leaflet.metrics.EventStatistics}
+         * @return this instance for chaining
+         */
+        public Builder setEventMetrics(EventMetrics eventMetrics) {
+            this.eventMetrics = eventMetrics;
+            return this;
+        }
+        
+        /**
+         * Sets the way, how maps are created on client.
+         * @param mapBootstrap bootstrap of maps, e.g. {@link MapBootstrap#DECLARATIVE}
+         * @return this instance for chaining
+         */
+        public Builder setMapBootstrap(MapBootstrap mapBootstrap) {
+            this.mapBootstrap = mapBootstrap;
+            return this;
+        }
+        
+        /**
+         * Sets indicator for creation of maps only when they scroll into view.
+         * @param lazyMapInitialization {@code true} if maps should be created lazily
+         * @return this instance for chaining
+         */
+        public Builder setLazyMapInitialization(boolean lazyMapInitialization) {
+            this.lazyMapInitialization = lazyMapInitialization;
+            return this;
+        }
+        
         /**
          * Builds new instance of default leaflet settings based on builder state.                  
          * @return new instance of default leaflet settings
          */
         public DefaultLeafletSettings build() {
-            return new DefaultLeafletSettings(version, jsReference, cssReference, useCdn, autoAppend);
+            return new DefaultLeafletSettings(this);
         }
     }
 }
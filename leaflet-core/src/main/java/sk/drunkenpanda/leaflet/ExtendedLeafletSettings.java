@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet;
+
+import sk.drunkenpanda.leaflet.components.map.MapBootstrap;
+import sk.drunkenpanda.leaflet.metrics.EventMetrics;
+import sk.drunkenpanda.leaflet.metrics.EventStatistics;
+
+/**
+ * Settings of JSON, events and map bootstrap, that can be implemented by {@link LeafletSettings} in addition
+ * to basic settings. Library reads them by {@link Leaflet#getExtendedSettings(org.apache.wicket.Application)},
+ * which returns defaults of {@link DefaultLeafletSettings}, if settings of application don't implement
+ * this interface, so existing implementations of {@link LeafletSettings} don't have to change.
+ *
+ * @author Jan Ferko
+ */
+public interface ExtendedLeafletSettings {
+
+    /**
+     * Number of decimal places of coordinates written to JSON.
+     * Seven decimal places are precise to about one centimeter.
+     * @return the number of decimal places between 0 and 15
+     */
+    int getCoordinatePrecision();
+
+    /**
+     * Maximal number of map options and layers, whose JSON is cached.
+     * Cache is useful when many pages share few map configurations.
+     * @return the size of JSON cache or {@code 0} if JSON isn't cached
+     */
+    int getJsonCacheSize();
+
+    /**
+     * Receiver of measurements of map events handled on server.
+     * If it's {@link EventStatistics}, statistics are also registered in JMX.
+     * @return the event metrics or {@link EventMetrics#NONE} if events aren't measured
+     */
+    EventMetrics getEventMetrics();
+
+    /**
+     * The way, how maps are created on client.
+     * @return the bootstrap of maps, {@link MapBootstrap#SCRIPT} by default
+     */
+    MapBootstrap getMapBootstrap();
+
+    /**
+     * Indicator if maps are created on client only when they scroll into view, so pages with many maps
+     * don't load tiles of maps, that aren't visible. Every map can override it.
+     * @return {@code true} if maps are created lazily, {@code false} by default
+     * @see sk.drunkenpanda.leaflet.components.map.Map#setLazyInitialization(Boolean)
+     */
+    boolean isLazyMapInitialization();
+
+}
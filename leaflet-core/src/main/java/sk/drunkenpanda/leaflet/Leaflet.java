@@ -22,6 +22,13 @@ import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.util.lang.Args;
 
+import sk.drunkenpanda.leaflet.behaviors.EventTypeRegistry;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.metrics.EventMetrics;
+import sk.drunkenpanda.leaflet.metrics.EventStatistics;
+import sk.drunkenpanda.leaflet.resources.EventSinkResource;
+
 /**
  * Bootstrapping class of Wicket Leaflet.
  * It properly adds Leaflet resources to application based on {@link LeafletSettings}.
@@ -34,6 +41,16 @@ import org.apache.wicket.util.lang.Args;
  * Library also appends resources automatically to all pages if {@link LeafletSettings#autoAppendResources() }
  * is {@code true}, otherwise client has to add resources to every component.
  *
+ * JSON written by library is compact in deployment mode and indented in development mode,
+ * see {@link JsonProfile}. Coordinates are rounded to
+ * {@link ExtendedLeafletSettings#getCoordinatePrecision() } decimal places and JSON of map options and layers
+ * can be cached, see {@link ExtendedLeafletSettings#getJsonCacheSize() }.
+ *
+ * Installation also mounts {@link EventSinkResource}, which receives events that are recorded without page,
+ * and creates {@link EventTypeRegistry} with built-in event types. Events of Leaflet plugins can be registered
+ * in the registry after installation. Handled events are measured by
+ * {@link ExtendedLeafletSettings#getEventMetrics() }.
+ *
  * @author Jan Ferko
  */
 public final class Leaflet {
@@ -42,6 +59,12 @@ public final class Leaflet {
     static final MetaDataKey<LeafletSettings> LEAFLET_SETTINGS_KEY =
             new MetaDataKey<LeafletSettings>() {};
 
+    /** Extended settings of applications, whose settings don't implement them. */
+    private static final ExtendedLeafletSettings DEFAULT_EXTENDED_SETTINGS = new DefaultLeafletSettings();
+
+    /** Meta key, that is used to identify event metrics of application. */
+    private static final MetaDataKey<EventMetrics> EVENT_METRICS_KEY = new MetaDataKey<EventMetrics>() {};
+
     private Leaflet() {
         throw new UnsupportedOperationException();
     }
@@ -71,6 +94,20 @@ public final class Leaflet {
         if (application.getMetaData(LEAFLET_SETTINGS_KEY) == null) {
             LeafletSettings settingsOrDefault = settings != null ? settings : new DefaultLeafletSettings();
             application.setMetaData(LEAFLET_SETTINGS_KEY, settingsOrDefault);
+            final ExtendedLeafletSettings extendedSettings = getExtendedSettings(settingsOrDefault);
+            JsonRendererFactory.install(application, JsonProfile.of(application.getConfigurationType()),
+                    extendedSettings.getCoordinatePrecision(), extendedSettings.getJsonCacheSize());
+
+            final EventMetrics metrics = extendedSettings.getEventMetrics();
+            if (metrics != null && metrics != EventMetrics.NONE) {
+                application.setMetaData(EVENT_METRICS_KEY, metrics);
+                if (metrics instanceof EventStatistics) {
+                    ((EventStatistics) metrics).register(application);
+                }
+            }
+
+            EventTypeRegistry.install(application);
+            EventSinkResource.install(application);
 
             if (settingsOrDefault.autoAppendResources()) {
                 application.getComponentInstantiationListeners().add(new LeafletResourceAppender());
@@ -102,6 +139,38 @@ public final class Leaflet {
         return settings;
     }
 
+    /**
+     * Returns extended settings of given application. If settings of application don't implement
+     * {@link ExtendedLeafletSettings}, defaults of {@link DefaultLeafletSettings} are returned.
+     *
+     * @param application application, which setting are retrieved
+     * @return extended leaflet settings of application
+     * @throws IllegalArgumentException if application is {@code null}
+     * @throws IllegalStateException if Leaflet is not installed in application
+     */
+    public static ExtendedLeafletSettings getExtendedSettings(Application application) {
+        return getExtendedSettings(getSettings(application));
+    }
+
+    private static ExtendedLeafletSettings getExtendedSettings(LeafletSettings settings) {
+        return settings instanceof ExtendedLeafletSettings ? (ExtendedLeafletSettings) settings
+                : DEFAULT_EXTENDED_SETTINGS;
+    }
+
+    /**
+     * Returns receiver of measurements of map events of given application.
+     * Unlike settings, it doesn't fail when Leaflet isn't installed, because it's called for every event.
+     *
+     * @param application the application
+     * @return the event metrics or {@link EventMetrics#NONE} if events aren't measured
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static EventMetrics getEventMetrics(Application application) {
+        Args.notNull(application, "application");
+        final EventMetrics metrics = application.getMetaData(EVENT_METRICS_KEY);
+        return metrics != null ? metrics : EventMetrics.NONE;
+    }
+
     /**
      * Returns settings of application, that belongs to current thread.
      *
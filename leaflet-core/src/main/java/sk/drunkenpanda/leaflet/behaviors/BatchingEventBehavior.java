@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.time.Duration;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+
+/**
+ * Event behavior, that buffers events on client and sends them to server in batches.
+ * Batch is sent as JSON array, when it contains maximal number of events or when maximal delay
+ * since the first buffered event elapses. Events that are still buffered, when user leaves page, are lost.
+ * <p>
+ * Behavior can handle several event types, as long as they share the same JSON payload,
+ * e.g. {@code CLICK} and {@code MOUSEMOVE} events are both extracted by
+ * {@code WicketLeaflet.MouseEvent.getMouseEvent}.
+ * Batch doesn't carry context of events, so only {@link EventFilter#within(LatLngBounds) position} filters
+ * of mouse and location events can be {@link #setFilter(EventFilter) set}. They're checked on client
+ * and again on server against position of every event in batch, before events are handled.
+ *
+ * @author Jan Ferko
+ * @param <E> the event type processed by this class.
+ */
+public abstract class BatchingEventBehavior<E extends Event> extends LeafletAjaxEventBehavior<E> {
+
+    private static final long serialVersionUID = 20171018140000L;
+
+    /** The default maximal number of events in one batch. */
+    public static final int DEFAULT_MAX_SIZE = 20;
+
+    /** The default maximal delay between the first buffered event and sending of batch. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.seconds(1);
+
+    /**
+     * The name of request parameter, that contains JSON array of events.
+     */
+    public static final String BATCH_PARAMETER = "leafletBatch";
+
+    /**
+     * The name of request parameter, that identifies behavior which sent batch.
+     */
+    public static final String BATCH_ID_PARAMETER = "leafletBatchId";
+
+    private final EventType[] eventTypes;
+
+    private final ResourceReference javascriptReference;
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    private Duration maxDelay = DEFAULT_MAX_DELAY;
+
+    /**
+     * Constructor creates new batching behavior for given event types.
+     *
+     * @param jsonPayloadClass the class of JSON payload that is sent from client when event is fired
+     * @param extractorFunction the javascript function that is used to retrieve json payload from event
+     * @param javascriptReference the reference to javascript, that contains extractor function
+     * @param eventType the event type that this behavior is binded to
+     * @param otherEventTypes the other event types with the same payload, that this behavior is binded to
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public BatchingEventBehavior(Class<E> jsonPayloadClass, String extractorFunction,
+            ResourceReference javascriptReference, EventType eventType, EventType... otherEventTypes) {
+        super(Args.notNull(eventType, "eventType"), Args.notNull(jsonPayloadClass, "jsonPayloadClass"),
+                Args.notEmpty(extractorFunction, "extractorFunction"));
+        Args.notNull(otherEventTypes, "otherEventTypes");
+
+        this.javascriptReference = Args.notNull(javascriptReference, "javascriptReference");
+        this.eventTypes = new EventType[otherEventTypes.length + 1];
+        this.eventTypes[0] = eventType;
+        System.arraycopy(otherEventTypes, 0, this.eventTypes, 1, otherEventTypes.length);
+        // batches are never superseded by newer batches, each carries different events
+        this.setChannelPolicy(EventChannelPolicy.QUEUE);
+    }
+
+    /**
+     * @return the event types handled by this behavior
+     */
+    public final List<EventType> getEventTypes() {
+        return Collections.unmodifiableList(Arrays.asList(this.eventTypes));
+    }
+
+    /**
+     * @return the maximal number of events in one batch
+     */
+    public final int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Sets maximal number of events in one batch.
+     *
+     * @param maxSize the maximal number of events
+     * @return this behavior
+     * @throws IllegalArgumentException if size is not positive
+     */
+    public final BatchingEventBehavior<E> setMaxSize(int maxSize) {
+        this.maxSize = Args.withinRange(1, Integer.MAX_VALUE, maxSize, "maxSize");
+        return this;
+    }
+
+    /**
+     * @return the maximal delay between the first buffered event and sending of batch
+     */
+    public final Duration getMaxDelay() {
+        return this.maxDelay;
+    }
+
+    /**
+     * Sets maximal delay between the first buffered event and sending of batch.
+     *
+     * @param maxDelay the maximal delay
+     * @return this behavior
+     * @throws IllegalArgumentException if delay is {@code null} or is not positive
+     */
+    public final BatchingEventBehavior<E> setMaxDelay(Duration maxDelay) {
+        Args.notNull(maxDelay, "maxDelay");
+        if (maxDelay.getMilliseconds() <= 0) {
+            throw new IllegalArgumentException("Delay must be positive, but was [" + maxDelay + "].");
+        }
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    @Override
+    void checkFilter(EventFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        final Class<E> payloadClass = this.getJsonPayloadClass();
+        if (!filter.isPositional() || !MouseEvent.class.isAssignableFrom(payloadClass)
+                && !LocationEvent.class.isAssignableFrom(payloadClass)) {
+            throw new IllegalArgumentException("Filter [" + filter + "] can't be checked for batch of events ["
+                    + payloadClass.getName() + "], only position of mouse and location events can be filtered.");
+        }
+    }
+
+    @Override
+    protected final ResourceReference getJavascriptReference() {
+        return this.javascriptReference;
+    }
+
+    @Override
+    protected void contributeHandlers(MapEventHub.Table table) {
+        final CharSequence ajaxAttributes = this.renderAjaxAttributes(this.getComponent());
+        final String batch = "{\"id\":" + this.getComponent().getBehaviorId(this)
+                + ",\"type\":\"" + this.getEventType().getJavascriptName()
+                + "\",\"size\":" + this.maxSize + ",\"delay\":" + this.maxDelay.getMilliseconds() + "}";
+
+        for (EventType type : this.eventTypes) {
+            table.add(type, this.getExtractorFunction(), ajaxAttributes, this.getRateLimit(), batch, this.getFilter());
+        }
+    }
+
+    @Override
+    protected void respond(AjaxRequestTarget target) {
+        final StringValue batchId = this.getVariableValue(BATCH_ID_PARAMETER);
+        if (batchId.isEmpty() || batchId.toInt(-1) != this.getComponent().getBehaviorId(this)) {
+            return;
+        }
+
+        final StringValue batchJs = this.getVariableValue(BATCH_PARAMETER);
+        if (!batchJs.isEmpty()) {
+            final String json = batchJs.toString();
+            final EventMeter meter = EventMeter.start(this.getComponent(), this.getEventType(), json);
+            final List<E> events = this.acceptFilter(this.getDecoder().decodeList(json));
+            meter.decoded();
+            if (!events.isEmpty()) {
+                this.onEvents(events, target);
+            }
+            meter.handled(target);
+        }
+    }
+
+    /**
+     * Returns events of batch, that meet filter of this behavior.
+     * Filter is checked again against position in payload, because batch was filtered by client.
+     *
+     * @param events the decoded events
+     * @return the events, that meet filter
+     */
+    private List<E> acceptFilter(List<E> events) {
+        final EventFilter filter = this.getFilter();
+        if (filter == null) {
+            return events;
+        }
+        final List<E> accepted = new ArrayList<>(events.size());
+        for (E event : events) {
+            final LatLng latLng = getLatLng(event);
+            if (latLng != null && filter.test(EventFilter.Context.at(latLng))) {
+                accepted.add(event);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Delivers single event as batch of one event.
+     *
+     * @param event event sent from client to server
+     * @param target AJAX request target that was sent when event was fired.
+     */
+    @Override
+    protected final void onEvent(E event, AjaxRequestTarget target) {
+        this.onEvents(Collections.singletonList(event), target);
+    }
+
+    /**
+     * Method that handles batch of events sent from client to server via AJAX.
+     * Events are in the same order in which they were fired on client.
+     *
+     * @param events the events sent from client to server
+     * @param target AJAX request target that was sent when batch was sent
+     */
+    protected abstract void onEvents(List<E> events, AjaxRequestTarget target);
+}
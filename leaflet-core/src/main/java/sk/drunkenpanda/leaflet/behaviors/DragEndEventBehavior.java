@@ -25,7 +25,7 @@ import sk.drunkenpanda.leaflet.events.DragEndEvent;
 public abstract class DragEndEventBehavior extends LeafletAjaxEventBehavior<DragEndEvent> {
 
     public DragEndEventBehavior() {
-        super(MapEventType.DRAG_END, DragEndEvent.class, "WicketLeaflet.DragEndEvent.getDragEndEvent(event)");
+        super(MapEventType.DRAG_END, DragEndEvent.class, "WicketLeaflet.DragEndEvent.getDragEndEvent");
     }
 
     @Override
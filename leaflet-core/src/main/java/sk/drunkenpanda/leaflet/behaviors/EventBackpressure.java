@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+/**
+ * Load of event handling in application, that is used to slow down clients, when server can't keep up.
+ * Load is measured by {@link MapEventHub} as number of events handled at the same time and moving average
+ * of time spent by event handlers. When either of them exceeds its threshold, the hub adds backoff hint
+ * to AJAX response and client multiplies delays of {@link EventRateLimit rate limits} of map by hinted factor
+ * for {@link #getHintDuration() some time}. High-frequency events like {@code mousemove} or {@code move}
+ * are then sent less often and each of them carries coarser data, while events without rate limit
+ * are sent as before.
+ * <pre>
+ * EventBackpressure.get(this)
+ *         .setLatencyThreshold(Duration.milliseconds(50))
+ *         .setMaxFactor(4);
+ * </pre>
+ *
+ * @author Jan Ferko
+ */
+public final class EventBackpressure {
+
+    /** The default average time of handling of event, above which clients are slowed down. */
+    public static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.milliseconds(100);
+
+    /** The default number of events handled at the same time, above which clients are slowed down. */
+    public static final int DEFAULT_CONCURRENCY_THRESHOLD = 4 * Runtime.getRuntime().availableProcessors();
+
+    /** The default maximal factor of rate limits. */
+    public static final int DEFAULT_MAX_FACTOR = 8;
+
+    /** The default time for which client keeps hinted factor. */
+    public static final Duration DEFAULT_HINT_DURATION = Duration.seconds(5);
+
+    /** Meta key, that is used to identify backpressure of application. */
+    private static final MetaDataKey<EventBackpressure> BACKPRESSURE_KEY = new MetaDataKey<EventBackpressure>() {};
+
+    /** Moving average weights the latest handling by 1/2^3. */
+    private static final int AVERAGE_SHIFT = 3;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong averageNanos = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    private volatile long latencyThresholdNanos = DEFAULT_LATENCY_THRESHOLD.getMilliseconds() * 1000000L;
+
+    private volatile int concurrencyThreshold = DEFAULT_CONCURRENCY_THRESHOLD;
+
+    private volatile int maxFactor = DEFAULT_MAX_FACTOR;
+
+    private volatile Duration hintDuration = DEFAULT_HINT_DURATION;
+
+    EventBackpressure() {
+    }
+
+    /**
+     * Returns backpressure of given application. It's created when it's requested for the first time.
+     *
+     * @param application the application
+     * @return the backpressure of application
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static EventBackpressure get(Application application) {
+        Args.notNull(application, "application");
+
+        EventBackpressure backpressure = application.getMetaData(BACKPRESSURE_KEY);
+        if (backpressure == null) {
+            synchronized (BACKPRESSURE_KEY) {
+                backpressure = application.getMetaData(BACKPRESSURE_KEY);
+                if (backpressure == null) {
+                    backpressure = new EventBackpressure();
+                    application.setMetaData(BACKPRESSURE_KEY, backpressure);
+                }
+            }
+        }
+        return backpressure;
+    }
+
+    /**
+     * @return {@code true} if clients are slowed down under load
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables hints sent to clients. Load is measured in both cases.
+     *
+     * @param enabled {@code true} if clients should be slowed down under load
+     * @return this backpressure
+     */
+    public EventBackpressure setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * @return the average time of handling of event, above which clients are slowed down
+     */
+    public Duration getLatencyThreshold() {
+        return Duration.milliseconds(latencyThresholdNanos / 1000000L);
+    }
+
+    /**
+     * Sets average time of handling of event, above which clients are slowed down.
+     * Factor grows with ratio of average time to threshold.
+     *
+     * @param threshold the latency threshold
+     * @return this backpressure
+     * @throws IllegalArgumentException if threshold is {@code null} or is not positive
+     */
+    public EventBackpressure setLatencyThreshold(Duration threshold) {
+        Args.notNull(threshold, "threshold");
+        if (threshold.getMilliseconds() <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive, but was [" + threshold + "].");
+        }
+        this.latencyThresholdNanos = threshold.getMilliseconds() * 1000000L;
+        return this;
+    }
+
+    /**
+     * @return the number of events handled at the same time, above which clients are slowed down
+     */
+    public int getConcurrencyThreshold() {
+        return concurrencyThreshold;
+    }
+
+    /**
+     * Sets number of events handled at the same time, above which clients are slowed down.
+     * Factor grows with ratio of handled events to threshold.
+     *
+     * @param threshold the concurrency threshold
+     * @return this backpressure
+     * @throws IllegalArgumentException if threshold isn't positive
+     */
+    public EventBackpressure setConcurrencyThreshold(int threshold) {
+        this.concurrencyThreshold = Args.withinRange(1, Integer.MAX_VALUE, threshold, "threshold");
+        return this;
+    }
+
+    /**
+     * @return the maximal factor of rate limits
+     */
+    public int getMaxFactor() {
+        return maxFactor;
+    }
+
+    /**
+     * Sets maximal factor, that delays of rate limits are multiplied by.
+     *
+     * @param maxFactor the maximal factor
+     * @return this backpressure
+     * @throws IllegalArgumentException if factor is less than {@code 2}
+     */
+    public EventBackpressure setMaxFactor(int maxFactor) {
+        this.maxFactor = Args.withinRange(2, Integer.MAX_VALUE, maxFactor, "maxFactor");
+        return this;
+    }
+
+    /**
+     * @return the time for which client keeps hinted factor
+     */
+    public Duration getHintDuration() {
+        return hintDuration;
+    }
+
+    /**
+     * Sets time for which client keeps hinted factor, unless it gets another hint.
+     * After that, client sends events at rate of its limits again.
+     *
+     * @param hintDuration the duration of hint
+     * @return this backpressure
+     * @throws IllegalArgumentException if duration is {@code null} or is not positive
+     */
+    public EventBackpressure setHintDuration(Duration hintDuration) {
+        Args.notNull(hintDuration, "hintDuration");
+        if (hintDuration.getMilliseconds() <= 0) {
+            throw new IllegalArgumentException("Duration must be positive, but was [" + hintDuration + "].");
+        }
+        this.hintDuration = hintDuration;
+        return this;
+    }
+
+    /**
+     * @return the number of events, that are handled right now
+     */
+    public int getPendingEvents() {
+        return pending.get();
+    }
+
+    /**
+     * @return the moving average of time of handling of event
+     */
+    public Duration getAverageLatency() {
+        return Duration.milliseconds(averageNanos.get() / 1000000L);
+    }
+
+    /**
+     * Returns factor, that rate limits of clients should be multiplied by under current load.
+     *
+     * @return the factor, {@code 1} if server keeps up with events
+     */
+    public int getFactor() {
+        return factor(pending.get());
+    }
+
+    /**
+     * Marks start of handling of event.
+     *
+     * @return the start time, that is passed to {@link #exit(long)}
+     */
+    long enter() {
+        pending.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks end of handling of event, that started at given time, and returns factor for its response.
+     *
+     * @param start the time returned by {@link #enter()}
+     * @return the factor of rate limits, {@code 1} if clients don't have to slow down
+     */
+    int exit(long start) {
+        record(System.nanoTime() - start);
+        // event itself is counted, so it sees the same queue as events handled at the same time
+        final int factor = factor(pending.get());
+        pending.decrementAndGet();
+        return factor;
+    }
+
+    void record(long nanos) {
+        long average;
+        do {
+            average = averageNanos.get();
+        } while (!averageNanos.compareAndSet(average, average + ((nanos - average) >> AVERAGE_SHIFT)));
+    }
+
+    private int factor(int events) {
+        final double ratio = Math.max((double) averageNanos.get() / latencyThresholdNanos,
+                (double) events / concurrencyThreshold);
+        if (ratio <= 1.0) {
+            return 1;
+        }
+        return (int) Math.min(maxFactor, Math.ceil(ratio));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.ajax.AjaxChannel;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+
+/**
+ * Policy, that decides what happens with event fired on client, while previous AJAX request is still running.
+ * Except for {@link #DEFAULT}, every event type of map gets its own AJAX channel, so events of one type
+ * never wait for events of another type.
+ * <p>
+ * Every event sent by map carries sequence number and {@link MapEventHub} ignores event, whose sequence
+ * is not newer than sequence of the last handled event of the same type, so stale event never overrides
+ * newer state.
+ * Default policies of event types are returned by {@link #forEventType(EventType)}.
+ *
+ * @author Jan Ferko
+ */
+public enum EventChannelPolicy {
+
+    /** Event waits in Wicket's default channel, that is shared with other AJAX requests of page. */
+    DEFAULT(null),
+
+    /** Every event waits in channel of event type until previous events are handled. */
+    QUEUE(AjaxChannel.Type.QUEUE),
+
+    /**
+     * Only the latest event waits in channel of event type, so waiting event is replaced by newer one.
+     * It suits view events like {@code moveend}, because only the latest view of map matters.
+     */
+    LATEST(AjaxChannel.Type.DROP),
+
+    /** Event is dropped, while channel of event type handles previous event. */
+    ACTIVE(AjaxChannel.Type.ACTIVE);
+
+    private final AjaxChannel.Type channelType;
+
+    EventChannelPolicy(AjaxChannel.Type channelType) {
+        this.channelType = channelType;
+    }
+
+    /**
+     * Returns default policy of given event type.
+     * Events describing view or pointer position of map, i.e. {@code MOUSEMOVE}, {@code MOVE}, {@code MOVE_END},
+     * {@code DRAG}, {@code ZOOM_END}, {@code ZOOM_LEVELS_CHANGE}, {@code VIEW_RESET} and {@code RESIZE},
+     * use {@link #LATEST}. Other types, including {@link sk.drunkenpanda.leaflet.components.map.CustomEventType
+     * custom types}, use {@link #DEFAULT}.
+     *
+     * @param eventType the event type
+     * @return the default policy of event type
+     * @throws IllegalArgumentException if event type is {@code null}
+     */
+    public static EventChannelPolicy forEventType(EventType eventType) {
+        Args.notNull(eventType, "eventType");
+        if (!(eventType instanceof MapEventType)) {
+            return DEFAULT;
+        }
+
+        switch ((MapEventType) eventType) {
+            case MOUSEMOVE:
+            case MOVE:
+            case MOVE_END:
+            case DRAG:
+            case ZOOM_END:
+            case ZOOM_LEVELS_CHANGE:
+            case VIEW_RESET:
+            case RESIZE:
+                return LATEST;
+            default:
+                return DEFAULT;
+        }
+    }
+
+    /**
+     * Returns AJAX channel of given name with this policy.
+     *
+     * @param name the name of channel
+     * @return the channel or {@code null} if event uses default channel
+     */
+    AjaxChannel toChannel(String name) {
+        return channelType != null ? new AjaxChannel(name, channelType) : null;
+    }
+}
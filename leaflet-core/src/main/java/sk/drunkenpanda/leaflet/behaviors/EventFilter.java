@@ -0,0 +1,464 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.Point;
+
+/**
+ * Declarative condition, that event must meet to be sent to server.
+ * Filter is compiled to javascript and checked on client, so events, that server would ignore,
+ * never leave browser. The same filter is checked again on server against {@link Context context}
+ * sent with event. Position in context is replaced by position from payload of mouse and location events,
+ * but zoom, pixel coordinates and modifier keys are only reported by client, so server check of
+ * {@link #zoomAtLeast(double) zoom}, {@link #movedMoreThan(double) distance} and
+ * {@link #keyPressed(Key) keys} is advisory and handler shouldn't rely on it for access control.
+ * <pre>
+ * behavior.setFilter(EventFilter.zoomAtLeast(12)
+ *         .and(EventFilter.within(bounds))
+ *         .and(EventFilter.movedMoreThan(10).or(EventFilter.keyPressed(EventFilter.Key.SHIFT))));
+ * </pre>
+ * Position of event is its {@code latlng} or center of map for events without position, e.g. {@code moveend}.
+ *
+ * @author Jan Ferko
+ */
+public abstract class EventFilter implements Serializable {
+
+    private static final long serialVersionUID = 20171018190000L;
+
+    /**
+     * The name of request parameter, that contains context of filtered event.
+     */
+    public static final String CONTEXT_PARAMETER = "leafletContext";
+
+    /**
+     * Modifier key held when event was fired.
+     */
+    public enum Key {
+        SHIFT, CTRL, ALT, META;
+
+        private String getJavascriptName() {
+            return name().toLowerCase();
+        }
+    }
+
+    EventFilter() {
+    }
+
+    /**
+     * Returns filter, that passes events fired at given zoom or higher.
+     *
+     * @param zoom the minimal zoom
+     * @return the filter
+     */
+    public static EventFilter zoomAtLeast(final double zoom) {
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190001L;
+
+            @Override
+            public boolean test(Context context) {
+                return context.getZoom() >= zoom;
+            }
+
+            @Override
+            String toJavaScript() {
+                return "c.zoom>=" + zoom;
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events fired at given zoom or lower.
+     *
+     * @param zoom the maximal zoom
+     * @return the filter
+     */
+    public static EventFilter zoomAtMost(final double zoom) {
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190002L;
+
+            @Override
+            public boolean test(Context context) {
+                return context.getZoom() <= zoom;
+            }
+
+            @Override
+            String toJavaScript() {
+                return "c.zoom<=" + zoom;
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events positioned within given bounds.
+     *
+     * @param bounds the bounds
+     * @return the filter
+     * @throws IllegalArgumentException if bounds are {@code null}
+     */
+    public static EventFilter within(final LatLngBounds bounds) {
+        Args.notNull(bounds, "bounds");
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190003L;
+
+            @Override
+            public boolean test(Context context) {
+                final LatLng latLng = context.getLatLng();
+                return latLng.getLatitude() >= bounds.getSouth() && latLng.getLatitude() <= bounds.getNorth()
+                        && latLng.getLongitude() >= bounds.getWest() && latLng.getLongitude() <= bounds.getEast();
+            }
+
+            @Override
+            boolean isPositional() {
+                return true;
+            }
+
+            @Override
+            String toJavaScript() {
+                return "c.lat>=" + bounds.getSouth() + "&&c.lat<=" + bounds.getNorth()
+                        + "&&c.lng>=" + bounds.getWest() + "&&c.lng<=" + bounds.getEast();
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events fired while given modifier key is held.
+     *
+     * @param key the modifier key
+     * @return the filter
+     * @throws IllegalArgumentException if key is {@code null}
+     */
+    public static EventFilter keyPressed(final Key key) {
+        Args.notNull(key, "key");
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190004L;
+
+            @Override
+            public boolean test(Context context) {
+                return context.getKeys().contains(key);
+            }
+
+            @Override
+            String toJavaScript() {
+                return "c." + key.getJavascriptName();
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events positioned more than given number of pixels from the last event,
+     * that was sent to server. The first event always passes.
+     *
+     * @param pixels the minimal distance in pixels at zoom of event
+     * @return the filter
+     * @throws IllegalArgumentException if distance is negative
+     */
+    public static EventFilter movedMoreThan(double pixels) {
+        if (pixels < 0) {
+            throw new IllegalArgumentException("Distance must not be negative, but was [" + pixels + "].");
+        }
+        final double squared = pixels * pixels;
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190005L;
+
+            @Override
+            public boolean test(Context context) {
+                final Point previous = context.getPreviousPixel();
+                if (previous == null) {
+                    return true;
+                }
+                final double dx = context.getPixel().getX() - previous.getX();
+                final double dy = context.getPixel().getY() - previous.getY();
+                return dx * dx + dy * dy > squared;
+            }
+
+            @Override
+            String toJavaScript() {
+                return "(s.x===undefined||(c.x-s.x)*(c.x-s.x)+(c.y-s.y)*(c.y-s.y)>" + squared + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events passed by this and given filter.
+     *
+     * @param other the other filter
+     * @return the filter
+     * @throws IllegalArgumentException if other filter is {@code null}
+     */
+    public final EventFilter and(final EventFilter other) {
+        Args.notNull(other, "other");
+        final EventFilter self = this;
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190006L;
+
+            @Override
+            public boolean test(Context context) {
+                return self.test(context) && other.test(context);
+            }
+
+            @Override
+            boolean isPositional() {
+                return self.isPositional() && other.isPositional();
+            }
+
+            @Override
+            String toJavaScript() {
+                return "(" + self.toJavaScript() + ")&&(" + other.toJavaScript() + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events passed by this or given filter.
+     *
+     * @param other the other filter
+     * @return the filter
+     * @throws IllegalArgumentException if other filter is {@code null}
+     */
+    public final EventFilter or(final EventFilter other) {
+        Args.notNull(other, "other");
+        final EventFilter self = this;
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190007L;
+
+            @Override
+            public boolean test(Context context) {
+                return self.test(context) || other.test(context);
+            }
+
+            @Override
+            boolean isPositional() {
+                return self.isPositional() && other.isPositional();
+            }
+
+            @Override
+            String toJavaScript() {
+                return "(" + self.toJavaScript() + ")||(" + other.toJavaScript() + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns filter, that passes events rejected by this filter.
+     *
+     * @return the filter
+     */
+    public final EventFilter negate() {
+        final EventFilter self = this;
+        return new EventFilter() {
+
+            private static final long serialVersionUID = 20171018190008L;
+
+            @Override
+            public boolean test(Context context) {
+                return !self.test(context);
+            }
+
+            @Override
+            boolean isPositional() {
+                return self.isPositional();
+            }
+
+            @Override
+            String toJavaScript() {
+                return "!(" + self.toJavaScript() + ")";
+            }
+        };
+    }
+
+    /**
+     * Checks whether event with given context meets this filter.
+     *
+     * @param context the context of event
+     * @return {@code true} if event should be handled, {@code false} otherwise
+     */
+    public abstract boolean test(Context context);
+
+    /**
+     * Indicates whether this filter tests only position of event, so server can check it against position
+     * from payload without any other context reported by client.
+     *
+     * @return {@code true} if filter tests only position of event
+     */
+    boolean isPositional() {
+        return false;
+    }
+
+    /**
+     * Returns javascript expression, that evaluates this filter against context {@code c}
+     * and state {@code s} of handler.
+     *
+     * @return the javascript expression
+     */
+    abstract String toJavaScript();
+
+    /**
+     * Returns javascript function, that is called by client with context of event and state of handler.
+     *
+     * @return the javascript function
+     */
+    final String toFunction() {
+        return "function(c,s){return " + toJavaScript() + ";}";
+    }
+
+    @Override
+    public String toString() {
+        return "EventFilter{" + toJavaScript() + "}";
+    }
+
+    /**
+     * State of map, when event was fired, which is sent with filtered event as
+     * {@code zoom,lat,lng,x,y,keys}, where {@code x} and {@code y} are pixel coordinates of position
+     * at zoom of event and {@code keys} are space separated names of held modifier keys.
+     */
+    public static final class Context implements Serializable {
+
+        private static final long serialVersionUID = 20171018190009L;
+
+        private final double zoom;
+
+        private final LatLng latLng;
+
+        private final Point pixel;
+
+        private final Set<Key> keys;
+
+        private final Point previousPixel;
+
+        /**
+         * Constructor creates new context of event.
+         *
+         * @param zoom the zoom of map
+         * @param latLng the position of event
+         * @param pixel the pixel coordinates of position
+         * @param keys the held modifier keys
+         * @param previousPixel the pixel coordinates of the last sent event or {@code null}
+         * @throws IllegalArgumentException if position, pixel or keys are {@code null}
+         */
+        public Context(double zoom, LatLng latLng, Point pixel, Set<Key> keys, Point previousPixel) {
+            this.zoom = zoom;
+            this.latLng = Args.notNull(latLng, "latLng");
+            this.pixel = Args.notNull(pixel, "pixel");
+            this.keys = Collections.unmodifiableSet(Args.notNull(keys, "keys"));
+            this.previousPixel = previousPixel;
+        }
+
+        /**
+         * Reads context sent by client.
+         *
+         * @param value the value of {@link EventFilter#CONTEXT_PARAMETER}
+         * @param previousPixel the pixel coordinates of the last sent event or {@code null}
+         * @return the context or {@code null} if value is missing or malformed
+         */
+        static Context parse(String value, Point previousPixel) {
+            if (value == null) {
+                return null;
+            }
+            final String[] parts = value.split(",", -1);
+            if (parts.length != 6) {
+                return null;
+            }
+
+            try {
+                final Set<Key> keys = EnumSet.noneOf(Key.class);
+                for (Key key : Key.values()) {
+                    if ((" " + parts[5] + " ").contains(" " + key.getJavascriptName() + " ")) {
+                        keys.add(key);
+                    }
+                }
+                return new Context(Double.parseDouble(parts[0]),
+                        LatLng.of(Double.parseDouble(parts[1]), Double.parseDouble(parts[2])),
+                        Point.of(Double.parseDouble(parts[3]), Double.parseDouble(parts[4])), keys, previousPixel);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        /**
+         * Returns context, that contains only position of event. It's used to check
+         * {@link EventFilter#isPositional() positional} filters, when client doesn't send context.
+         *
+         * @param latLng the position of event
+         * @return the context with given position
+         */
+        static Context at(LatLng latLng) {
+            return new Context(0, latLng, Point.of(0, 0), EnumSet.noneOf(Key.class), null);
+        }
+
+        /**
+         * Returns copy of this context with given position of event.
+         *
+         * @param latLng the position of event
+         * @return the context with given position
+         */
+        Context withLatLng(LatLng latLng) {
+            return new Context(zoom, latLng, pixel, keys, previousPixel);
+        }
+
+        /**
+         * @return the zoom of map
+         */
+        public double getZoom() {
+            return zoom;
+        }
+
+        /**
+         * @return the position of event
+         */
+        public LatLng getLatLng() {
+            return latLng;
+        }
+
+        /**
+         * @return the pixel coordinates of position at zoom of event
+         */
+        public Point getPixel() {
+            return pixel;
+        }
+
+        /**
+         * @return the held modifier keys
+         */
+        public Set<Key> getKeys() {
+            return keys;
+        }
+
+        /**
+         * @return the pixel coordinates of the last event sent to server or {@code null}
+         */
+        public Point getPreviousPixel() {
+            return previousPixel;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+
+import sk.drunkenpanda.leaflet.Leaflet;
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.metrics.EventMetrics;
+
+/**
+ * Measures phases of handling of single event and passes them to {@link EventMetrics} of application.
+ * Meter is started before payload is decoded, then {@link #decoded()} is called after decoding and
+ * {@link #handled(AjaxRequestTarget)} after event handler. Rendering is measured until response is written.
+ *
+ * @author Jan Ferko
+ */
+final class EventMeter {
+
+    /** Meter used when application doesn't measure events, so no time is read. */
+    private static final EventMeter DISABLED = new EventMeter(EventMetrics.NONE, null, null, 0);
+
+    private final EventMetrics metrics;
+
+    private final String map;
+
+    private final EventType type;
+
+    private final int payloadLength;
+
+    private long mark;
+
+    private long decodeNanos;
+
+    private EventMeter(EventMetrics metrics, String map, EventType type, int payloadLength) {
+        this.metrics = metrics;
+        this.map = map;
+        this.type = type;
+        this.payloadLength = payloadLength;
+    }
+
+    /**
+     * Starts measurement of event, whose payload is going to be decoded.
+     *
+     * @param component the component, that handles event
+     * @param type the type of event
+     * @param payload the JSON payload of event
+     * @return the started meter
+     */
+    static EventMeter start(Component component, EventType type, String payload) {
+        final EventMetrics metrics = Leaflet.getEventMetrics(Application.get());
+        if (metrics == EventMetrics.NONE) {
+            return DISABLED;
+        }
+
+        final EventMeter meter = new EventMeter(metrics,
+                component.getPage().getClass().getName() + ":" + component.getPageRelativePath(),
+                type, payload.length());
+        meter.mark = System.nanoTime();
+        return meter;
+    }
+
+    void decoded() {
+        if (this != DISABLED) {
+            final long now = System.nanoTime();
+            this.decodeNanos = now - this.mark;
+            this.mark = now;
+        }
+    }
+
+    void handled(AjaxRequestTarget target) {
+        if (this != DISABLED) {
+            final long now = System.nanoTime();
+            final long handleNanos = now - this.mark;
+            if (target != null) {
+                target.addListener(new RenderListener(this, handleNanos, now));
+            } else {
+                this.metrics.onEvent(this.map, this.type, this.payloadLength, this.decodeNanos, handleNanos, 0L);
+            }
+        }
+    }
+
+    /**
+     * Listener that records event once response is written.
+     */
+    private static final class RenderListener extends AjaxRequestTarget.AbstractListener {
+
+        private final EventMeter meter;
+
+        private final long handleNanos;
+
+        private final long handledAt;
+
+        RenderListener(EventMeter meter, long handleNanos, long handledAt) {
+            this.meter = meter;
+            this.handleNanos = handleNanos;
+            this.handledAt = handledAt;
+        }
+
+        @Override
+        public void onAfterRespond(java.util.Map<String, Component> map, AjaxRequestTarget.IJavaScriptResponse response) {
+            meter.metrics.onEvent(meter.map, meter.type, meter.payloadLength, meter.decodeNanos, handleNanos,
+                    System.nanoTime() - handledAt);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.io.Serializable;
+
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+
+/**
+ * Policy that limits how often event fired on client is sent to server.
+ * Limit is applied on client, so events that are dropped never reach server.
+ * When several events are fired within the limit, only the latest one is sent.
+ * <ul>
+ * <li>Throttle sends at most one event per interval. By default the first event is sent immediately
+ * (leading edge) and the latest event fired during interval is sent when interval ends (trailing edge).</li>
+ * <li>Debounce waits until events stop firing for given delay and then sends the latest one.
+ * By default only trailing edge is sent.</li>
+ * </ul>
+ * Default limits of event types are returned by {@link #forEventType(EventType)}.
+ *
+ * @author Jan Ferko
+ */
+public final class EventRateLimit implements Serializable {
+
+    private static final long serialVersionUID = 20171018130000L;
+
+    /** Interval of default throttle of high-frequency mouse and move events. */
+    public static final Duration DEFAULT_THROTTLE_INTERVAL = Duration.milliseconds(100);
+
+    /** Delay of default debounce of resize event. */
+    public static final Duration DEFAULT_DEBOUNCE_DELAY = Duration.milliseconds(200);
+
+    private static final EventRateLimit NONE = new EventRateLimit(Mode.NONE, 0L, true, false);
+
+    /**
+     * The way how events are limited.
+     */
+    private enum Mode {
+        NONE, THROTTLE, DEBOUNCE
+    }
+
+    private final Mode mode;
+
+    private final long delay;
+
+    private final boolean leading;
+
+    private final boolean trailing;
+
+    private EventRateLimit(Mode mode, long delay, boolean leading, boolean trailing) {
+        this.mode = mode;
+        this.delay = delay;
+        this.leading = leading;
+        this.trailing = trailing;
+    }
+
+    /**
+     * Returns limit, that sends every event to server.
+     *
+     * @return the limit without any restriction
+     */
+    public static EventRateLimit none() {
+        return NONE;
+    }
+
+    /**
+     * Returns limit, that sends at most one event per given interval on both leading and trailing edge.
+     *
+     * @param interval the minimal interval between two sent events
+     * @return the throttle limit
+     * @throws IllegalArgumentException if interval is {@code null} or is not positive
+     */
+    public static EventRateLimit throttle(Duration interval) {
+        return new EventRateLimit(Mode.THROTTLE, checkDelay(interval), true, true);
+    }
+
+    /**
+     * Returns limit, that sends the latest event on trailing edge, after events were not fired for given delay.
+     *
+     * @param delay the quiet period after which event is sent
+     * @return the debounce limit
+     * @throws IllegalArgumentException if delay is {@code null} or is not positive
+     */
+    public static EventRateLimit debounce(Duration delay) {
+        return new EventRateLimit(Mode.DEBOUNCE, checkDelay(delay), false, true);
+    }
+
+    /**
+     * Returns default limit of given event type.
+     * <table summary="Default limits">
+     * <tr><th>Event type</th><th>Limit</th></tr>
+     * <tr><td>{@code MOUSEMOVE}, {@code MOVE}, {@code DRAG}</td><td>throttle 100 ms</td></tr>
+     * <tr><td>{@code RESIZE}</td><td>debounce 200 ms</td></tr>
+     * <tr><td>other types, including {@link sk.drunkenpanda.leaflet.components.map.CustomEventType custom types}</td>
+     * <td>none</td></tr>
+     * </table>
+     *
+     * @param eventType the event type
+     * @return the default limit of event type
+     * @throws IllegalArgumentException if event type is {@code null}
+     */
+    public static EventRateLimit forEventType(EventType eventType) {
+        Args.notNull(eventType, "eventType");
+        if (!(eventType instanceof MapEventType)) {
+            return NONE;
+        }
+
+        switch ((MapEventType) eventType) {
+            case MOUSEMOVE:
+            case MOVE:
+            case DRAG:
+                return throttle(DEFAULT_THROTTLE_INTERVAL);
+            case RESIZE:
+                return debounce(DEFAULT_DEBOUNCE_DELAY);
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Returns copy of this limit with given leading edge option.
+     *
+     * @param leading {@code true} if the first event should be sent immediately
+     * @return the copy of this limit
+     * @throws IllegalArgumentException if neither leading nor trailing edge would be sent
+     */
+    public EventRateLimit withLeading(boolean leading) {
+        return mode == Mode.NONE ? this : create(mode, delay, leading, trailing);
+    }
+
+    /**
+     * Returns copy of this limit with given trailing edge option.
+     *
+     * @param trailing {@code true} if the latest event should be sent, when interval or delay ends
+     * @return the copy of this limit
+     * @throws IllegalArgumentException if neither leading nor trailing edge would be sent
+     */
+    public EventRateLimit withTrailing(boolean trailing) {
+        return mode == Mode.NONE ? this : create(mode, delay, leading, trailing);
+    }
+
+    private static EventRateLimit create(Mode mode, long delay, boolean leading, boolean trailing) {
+        if (!leading && !trailing) {
+            throw new IllegalArgumentException("Either leading or trailing edge must be sent.");
+        }
+        return new EventRateLimit(mode, delay, leading, trailing);
+    }
+
+    /**
+     * @return {@code true} if events are not limited
+     */
+    public boolean isNone() {
+        return mode == Mode.NONE;
+    }
+
+    /**
+     * @return {@code true} if events are throttled
+     */
+    public boolean isThrottle() {
+        return mode == Mode.THROTTLE;
+    }
+
+    /**
+     * @return {@code true} if events are debounced
+     */
+    public boolean isDebounce() {
+        return mode == Mode.DEBOUNCE;
+    }
+
+    /**
+     * @return the interval of throttle or delay of debounce
+     */
+    public Duration getDelay() {
+        return Duration.milliseconds(delay);
+    }
+
+    /**
+     * @return {@code true} if event is sent on leading edge
+     */
+    public boolean isLeading() {
+        return leading;
+    }
+
+    /**
+     * @return {@code true} if the latest event is sent on trailing edge
+     */
+    public boolean isTrailing() {
+        return trailing;
+    }
+
+    /**
+     * Returns javascript object, that describes this limit for client.
+     *
+     * @return the javascript object or {@code null} if events are not limited
+     */
+    String toJavaScript() {
+        if (mode == Mode.NONE) {
+            return null;
+        }
+        return "{\"mode\":\"" + (mode == Mode.THROTTLE ? "throttle" : "debounce") + "\",\"delay\":" + delay
+                + ",\"leading\":" + leading + ",\"trailing\":" + trailing + "}";
+    }
+
+    private static long checkDelay(Duration delay) {
+        Args.notNull(delay, "delay");
+        if (delay.getMilliseconds() <= 0) {
+            throw new IllegalArgumentException("Delay must be positive, but was [" + delay + "].");
+        }
+        return delay.getMilliseconds();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof EventRateLimit)) {
+            return false;
+        }
+        final EventRateLimit other = (EventRateLimit) obj;
+        return mode == other.mode && delay == other.delay && leading == other.leading && trailing == other.trailing;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = mode.hashCode();
+        hash = 31 * hash + (int) (delay ^ (delay >>> 32));
+        hash = 31 * hash + (leading ? 1 : 0);
+        return 31 * hash + (trailing ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "EventRateLimit{mode=" + mode + ", delay=" + delay + ", leading=" + leading
+                + ", trailing=" + trailing + "}";
+    }
+}
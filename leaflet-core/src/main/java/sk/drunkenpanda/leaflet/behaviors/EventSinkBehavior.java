@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnLoadHeaderItem;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapBehavior;
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.resources.EventSinkResource;
+
+/**
+ * Behavior that sends map events to stateless {@link EventSinkResource} instead of AJAX listener of page.
+ * Events are handled by {@link EventSinkHandler} registered in resource with name and event types
+ * of this behavior, so handling doesn't load nor lock page. Events are sent in fire-and-forget manner
+ * and response is ignored on client.
+ * <pre>
+ * EventSinkResource.get(application).register("clicks", MouseEvent.class, clickHandler, MapEventType.CLICK);
+ * map.add(new EventSinkBehavior("clicks", "WicketLeaflet.MouseEvent.getMouseEvent",
+ *         new JavaScriptResourceReference(MouseEventBehavior.class, "MouseEvent.js"), MapEventType.CLICK));
+ * </pre>
+ *
+ * @author Jan Ferko
+ */
+public class EventSinkBehavior extends Behavior {
+
+    private static final long serialVersionUID = 20171018150002L;
+
+    private final String handlerName;
+
+    private final String extractorFunction;
+
+    private final ResourceReference javascriptReference;
+
+    private final EventType[] eventTypes;
+
+    private EventRateLimit rateLimit;
+
+    /**
+     * Constructor creates new behavior, that sends events of given types to handler with given name.
+     *
+     * @param handlerName the name of handler registered in {@link EventSinkResource}
+     * @param extractorFunction the javascript function that is used to retrieve json payload from event
+     * @param javascriptReference the reference to javascript, that contains extractor function
+     * @param eventType the event type that this behavior is binded to
+     * @param otherEventTypes the other event types with the same payload, that this behavior is binded to
+     * @throws IllegalArgumentException if any argument is {@code null} or handler name is empty
+     */
+    public EventSinkBehavior(String handlerName, String extractorFunction, ResourceReference javascriptReference,
+            EventType eventType, EventType... otherEventTypes) {
+        this.handlerName = Args.notEmpty(handlerName, "handlerName");
+        this.extractorFunction = Args.notEmpty(extractorFunction, "extractorFunction");
+        this.javascriptReference = Args.notNull(javascriptReference, "javascriptReference");
+        Args.notNull(eventType, "eventType");
+        Args.notNull(otherEventTypes, "otherEventTypes");
+
+        this.eventTypes = new EventType[otherEventTypes.length + 1];
+        this.eventTypes[0] = eventType;
+        System.arraycopy(otherEventTypes, 0, this.eventTypes, 1, otherEventTypes.length);
+        this.rateLimit = EventRateLimit.forEventType(eventType);
+    }
+
+    /**
+     * @return the name of handler, that receives events
+     */
+    public final String getHandlerName() {
+        return this.handlerName;
+    }
+
+    /**
+     * Returns limit of how often event is sent from client to server.
+     * By default it's {@link EventRateLimit#forEventType(EventType)} of the first event type.
+     *
+     * @return the rate limit of this behavior
+     */
+    public final EventRateLimit getRateLimit() {
+        return this.rateLimit;
+    }
+
+    /**
+     * Sets limit of how often event is sent from client to server.
+     *
+     * @param rateLimit the rate limit, use {@link EventRateLimit#none()} to send every event
+     * @return this behavior
+     * @throws IllegalArgumentException if rate limit is {@code null}
+     */
+    public final EventSinkBehavior setRateLimit(EventRateLimit rateLimit) {
+        this.rateLimit = Args.notNull(rateLimit, "rateLimit");
+        return this;
+    }
+
+    @Override
+    public void renderHead(Component component, IHeaderResponse response) {
+        super.renderHead(component, response);
+        response.render(JavaScriptHeaderItem.forReference(
+                new PackageResourceReference(MapBehavior.class, "MapBehavior.js")));
+        response.render(JavaScriptHeaderItem.forReference(this.javascriptReference));
+        final Map map = (Map) component;
+        response.render(OnLoadHeaderItem.forScript(map.whenCreated(this.getInitializationScript(map))));
+    }
+
+    /**
+     * Returns script that registers handlers of this behavior on client.
+     *
+     * @param map the map
+     * @return the registration script
+     */
+    String getInitializationScript(Map map) {
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+        final CharSequence url = RequestCycle.get().urlFor(EventSinkResource.REFERENCE, null);
+        final String limit = this.rateLimit.toJavaScript();
+
+        final StringBuilder script = new StringBuilder("WicketLeaflet.Map.sink(")
+                .append(map.getMapVarName()).append(", ")
+                .append(renderer.toJson(url.toString())).append(", ")
+                .append(renderer.toJson(this.handlerName)).append(", [");
+        for (int i = 0; i < this.eventTypes.length; i++) {
+            if (i > 0) {
+                script.append(',');
+            }
+            script.append('[').append(renderer.toJson(this.eventTypes[i].getJavascriptName())).append(',')
+                    .append(this.extractorFunction).append(',').append(limit).append(']');
+        }
+        return script.append("]);").toString();
+    }
+
+    @Override
+    public void bind(Component component) {
+        if (!(component instanceof Map)) {
+            throw new IllegalArgumentException("EventSinkBehavior accepts only Map component.");
+        }
+        super.bind(component);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import sk.drunkenpanda.leaflet.events.Event;
+
+/**
+ * Handler of events sent to {@link sk.drunkenpanda.leaflet.resources.EventSinkResource}.
+ * Handler is shared by whole application and it's called without page, so it can't update components.
+ * It's meant for recording of events, e.g. for analytics. Handler can be called from several threads at once.
+ *
+ * @author Jan Ferko
+ * @param <E> the type of handled events
+ * @see EventSinkBehavior
+ */
+public interface EventSinkHandler<E extends Event> {
+
+    /**
+     * Handles event sent from client.
+     *
+     * @param event the event sent from client
+     */
+    void onEvent(E event);
+}
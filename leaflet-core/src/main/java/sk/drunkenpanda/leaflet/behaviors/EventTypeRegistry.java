@@ -0,0 +1,300 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.DragEndEvent;
+import sk.drunkenpanda.leaflet.events.ErrorEvent;
+import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.events.ResizeEvent;
+import sk.drunkenpanda.leaflet.json.JsonDecoder;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Registry of event types, that can be handled on server. Every type is registered with class of its JSON payload,
+ * javascript function that extracts payload from event and javascript resource that contains the function.
+ * Types are looked up by their javascript name in constant time.
+ * <p>
+ * Built-in map events with payload are registered when registry is installed by
+ * {@link sk.drunkenpanda.leaflet.Leaflet#install(org.apache.wicket.protocol.http.WebApplication)}.
+ * Events of Leaflet plugins are registered by application, usually right after Leaflet is installed,
+ * and then they're handled by {@link RegisteredEventBehavior} the same way as built-in events:
+ * <pre>
+ * Leaflet.install(this);
+ * EventTypeRegistry.get(this).register(CustomEventType.of("draw:created"), DrawEvent.class,
+ *         new DrawEventDecoder(), "WicketLeaflet.Draw.getDrawEvent", DRAW_JS);
+ * </pre>
+ *
+ * @author Jan Ferko
+ */
+public final class EventTypeRegistry {
+
+    /** Meta key, that is used to identify registry of application. */
+    private static final MetaDataKey<EventTypeRegistry> REGISTRY_KEY = new MetaDataKey<EventTypeRegistry>() {};
+
+    private final JsonRenderer renderer;
+
+    private final ConcurrentMap<String, Registration<?>> registrations = new ConcurrentHashMap<>();
+
+    private EventTypeRegistry(JsonRenderer renderer) {
+        this.renderer = renderer;
+        registerBuiltIns();
+    }
+
+    private void registerBuiltIns() {
+        final ResourceReference mouseJs = new JavaScriptResourceReference(MouseEventBehavior.class, "MouseEvent.js");
+        for (MapEventType type : MouseEventBehavior.SUPPORTED_EVENTS) {
+            register(type, MouseEvent.class, "WicketLeaflet.MouseEvent.getMouseEvent", mouseJs);
+        }
+
+        final ResourceReference plainJs = new JavaScriptResourceReference(PlainEventBehavior.class, "Event.js");
+        for (MapEventType type : PlainEventBehavior.SUPPORTED_TYPES) {
+            register(type, PlainEvent.class, "WicketLeaflet.Event.getEvent", plainJs);
+        }
+
+        final ResourceReference locationJs =
+                new JavaScriptResourceReference(LocationEventBehavior.class, "LocationEvent.js");
+        register(MapEventType.LOCATION_FOUND, LocationEvent.class, "WicketLeaflet.LocationEvent.getLocationEvent",
+                locationJs);
+        register(MapEventType.LOCATION_ERROR, ErrorEvent.class, "WicketLeaflet.LocationEvent.getLocationError",
+                locationJs);
+        register(MapEventType.RESIZE, ResizeEvent.class, "WicketLeaflet.ResizeEvent.getResizeEvent",
+                new JavaScriptResourceReference(ResizeEventBehavior.class, "ResizeEvent.js"));
+        register(MapEventType.DRAG_END, DragEndEvent.class, "WicketLeaflet.DragEndEvent.getDragEndEvent",
+                new JavaScriptResourceReference(DragEndEventBehavior.class, "DragEndEvent.js"));
+    }
+
+    /**
+     * Creates registry of given application with built-in event types. If application already has registry,
+     * it does nothing.
+     *
+     * @param application the application
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static void install(Application application) {
+        Args.notNull(application, "application");
+
+        if (application.getMetaData(REGISTRY_KEY) == null) {
+            application.setMetaData(REGISTRY_KEY,
+                    new EventTypeRegistry(JsonRendererFactory.getJsonRenderer(application)));
+        }
+    }
+
+    /**
+     * Returns registry of given application.
+     *
+     * @param application the application
+     * @return the registry of application
+     * @throws IllegalArgumentException if application is {@code null}
+     * @throws IllegalStateException if registry is not installed in application
+     */
+    public static EventTypeRegistry get(Application application) {
+        Args.notNull(application, "application");
+
+        final EventTypeRegistry registry = application.getMetaData(REGISTRY_KEY);
+        if (registry == null) {
+            throw new IllegalStateException("Event type registry isn't installed in application ["
+                    + application.getName() + "].");
+        }
+        return registry;
+    }
+
+    /**
+     * Registers event type, whose payload is read by data-binding.
+     *
+     * @param <E> the type of payload
+     * @param type the event type
+     * @param payloadClass the class of JSON payload sent from client
+     * @param extractorFunction the javascript function that extracts JSON payload from event
+     * @param javascriptReference the reference to javascript, that contains extractor function
+     * @return this registry
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws IllegalStateException if type with the same name is already registered
+     */
+    public <E extends Event> EventTypeRegistry register(EventType type, Class<E> payloadClass,
+            String extractorFunction, ResourceReference javascriptReference) {
+        return register(type, payloadClass, null, extractorFunction, javascriptReference, false);
+    }
+
+    /**
+     * Registers event type, whose payload is read by given streaming decoder.
+     * Decoder is kept by registration of type in this registry, so it's used only for this type in this application.
+     *
+     * @param <E> the type of payload
+     * @param type the event type
+     * @param payloadClass the class of JSON payload sent from client
+     * @param decoder the decoder of JSON payload
+     * @param extractorFunction the javascript function that extracts JSON payload from event
+     * @param javascriptReference the reference to javascript, that contains extractor function
+     * @return this registry
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws IllegalStateException if type with the same name is already registered
+     */
+    public <E extends Event> EventTypeRegistry register(EventType type, Class<E> payloadClass,
+            StreamingDecoder<E> decoder, String extractorFunction, ResourceReference javascriptReference) {
+        return register(type, payloadClass, decoder, extractorFunction, javascriptReference, true);
+    }
+
+    private <E extends Event> EventTypeRegistry register(EventType type, Class<E> payloadClass,
+            StreamingDecoder<E> decoder, String extractorFunction, ResourceReference javascriptReference,
+            boolean decoderRequired) {
+        Args.notNull(type, "type");
+        if (decoderRequired) {
+            Args.notNull(decoder, "decoder");
+        }
+        final Registration<E> registration = new Registration<>(type, Args.notNull(payloadClass, "payloadClass"),
+                Args.notEmpty(extractorFunction, "extractorFunction"),
+                Args.notNull(javascriptReference, "javascriptReference"), renderer, decoder);
+
+        if (registrations.putIfAbsent(type.getJavascriptName(), registration) != null) {
+            throw new IllegalStateException("Event type [" + type.getJavascriptName() + "] is already registered.");
+        }
+        return this;
+    }
+
+    /**
+     * Returns registered event type with given javascript name.
+     *
+     * @param javascriptName the name of event in javascript
+     * @return the event type or {@code null} if there isn't such type
+     */
+    public EventType find(String javascriptName) {
+        final Registration<?> registration = get(javascriptName);
+        return registration != null ? registration.getType() : null;
+    }
+
+    /**
+     * Returns registration of event type with given javascript name.
+     *
+     * @param javascriptName the name of event in javascript
+     * @return the registration or {@code null} if there isn't such type
+     */
+    public Registration<?> get(String javascriptName) {
+        return javascriptName != null ? registrations.get(javascriptName) : null;
+    }
+
+    /**
+     * Returns registration of event type with given javascript name and payload.
+     *
+     * @param <E> the type of payload
+     * @param javascriptName the name of event in javascript
+     * @param payloadClass the expected class of payload
+     * @return the registration
+     * @throws IllegalArgumentException if type isn't registered or it's registered with another payload
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Event> Registration<E> get(String javascriptName, Class<E> payloadClass) {
+        final Registration<?> registration = get(javascriptName);
+        if (registration == null) {
+            throw new IllegalArgumentException("Event type [" + javascriptName + "] isn't registered.");
+        }
+        if (!registration.getPayloadClass().equals(payloadClass)) {
+            throw new IllegalArgumentException("Event type [" + javascriptName + "] has payload ["
+                    + registration.getPayloadClass().getName() + "].");
+        }
+        return (Registration<E>) registration;
+    }
+
+    /**
+     * Registered event type.
+     *
+     * @param <E> the type of payload
+     */
+    public static final class Registration<E extends Event> {
+
+        private final EventType type;
+
+        private final Class<E> payloadClass;
+
+        private final String extractorFunction;
+
+        private final ResourceReference javascriptReference;
+
+        private final JsonRenderer renderer;
+
+        private final StreamingDecoder<E> streamingDecoder;
+
+        private volatile JsonDecoder<E> decoder;
+
+        Registration(EventType type, Class<E> payloadClass, String extractorFunction,
+                ResourceReference javascriptReference, JsonRenderer renderer, StreamingDecoder<E> streamingDecoder) {
+            this.type = type;
+            this.payloadClass = payloadClass;
+            this.extractorFunction = extractorFunction;
+            this.javascriptReference = javascriptReference;
+            this.renderer = renderer;
+            this.streamingDecoder = streamingDecoder;
+        }
+
+        /**
+         * @return the event type
+         */
+        public EventType getType() {
+            return type;
+        }
+
+        /**
+         * @return the class of JSON payload
+         */
+        public Class<E> getPayloadClass() {
+            return payloadClass;
+        }
+
+        /**
+         * @return the decoder of JSON payload
+         */
+        public JsonDecoder<E> getDecoder() {
+            JsonDecoder<E> result = decoder;
+            if (result == null) {
+                // renderer may be shared by applications, so decoder of plugin is never registered with it
+                result = streamingDecoder != null
+                        ? renderer.createDecoder(payloadClass, streamingDecoder) : renderer.getDecoder(payloadClass);
+                decoder = result;
+            }
+            return result;
+        }
+
+        /**
+         * @return the javascript function that extracts JSON payload from event
+         */
+        public String getExtractorFunction() {
+            return extractorFunction;
+        }
+
+        /**
+         * @return the reference to javascript, that contains extractor function
+         */
+        public ResourceReference getJavascriptReference() {
+            return javascriptReference;
+        }
+    }
+}
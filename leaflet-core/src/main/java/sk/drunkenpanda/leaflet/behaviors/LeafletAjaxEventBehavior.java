@@ -17,18 +17,24 @@
 package sk.drunkenpanda.leaflet.behaviors;
 
 import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AjaxChannel;
 import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.attributes.AjaxRequestAttributes;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
-import org.apache.wicket.markup.head.OnLoadHeaderItem;
 import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.StringValue;
 
 import sk.drunkenpanda.leaflet.components.map.Map;
-import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.components.map.EventType;
 import sk.drunkenpanda.leaflet.events.Event;
-import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.json.JsonDecoder;
 import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.Point;
 
 /**
  * Abstract base class for processing Leaflet events on server using AJAX.
@@ -41,24 +47,63 @@ public abstract class LeafletAjaxEventBehavior<E extends Event> extends LeafletA
     /**
      * The event type that this behavior is binded to.
      */
-    private final MapEventType eventType;
+    private final EventType eventType;
 
     /**
      * The class of JSON payload that is sent from client when event is fired.
      */
     private final Class<E> jsonPayloadClass;
 
+    /**
+     * The javascript function that extracts json payload from event.
+     */
+    private final String extractorFunction;
+
+    /**
+     * The limit of how often event is sent to server.
+     */
+    private EventRateLimit rateLimit;
+
+    /**
+     * The policy of events fired while previous request is running.
+     */
+    private EventChannelPolicy channelPolicy;
+
+    /**
+     * The condition, that event must meet to be sent to server, or {@code null} if every event is sent.
+     */
+    private EventFilter filter;
+
+    /**
+     * The pixel coordinates of the last event, that passed filter.
+     */
+    private Point lastPixel;
+
+    /**
+     * The indicator whether handling of event leaves page unchanged.
+     */
+    private boolean readOnly;
+
+    /**
+     * The decoder that reads JSON payload. It is not serialized with page, so it's resolved again
+     * after page is deserialized.
+     */
+    private transient JsonDecoder<E> decoder;
+
     /**
      * Constructor creates new instance of even behavior for given event type and json payload.
      *
      * @param eventType the event type that this behavior is binded to.
      * @param jsonPayloadClass The class of JSON payload that is sent from client when event is fired.
-     * @param javascriptExpression the javascript expression that is used to retrieve json payload from event.
+     * @param extractorFunction the javascript function that is used to retrieve json payload from event.
      */
-    LeafletAjaxEventBehavior(MapEventType eventType, Class<E> jsonPayloadClass, String javascriptExpression) {
+    LeafletAjaxEventBehavior(EventType eventType, Class<E> jsonPayloadClass, String extractorFunction) {
         this.eventType = eventType;
         this.jsonPayloadClass = jsonPayloadClass;
-        this.addJavascriptValue(eventType.getJavascriptName(), javascriptExpression);
+        this.extractorFunction = extractorFunction;
+        this.rateLimit = EventRateLimit.forEventType(eventType);
+        this.channelPolicy = EventChannelPolicy.forEventType(eventType);
+        this.decoder = this.resolveDecoder();
     }
 
     @Override
@@ -66,22 +111,190 @@ public abstract class LeafletAjaxEventBehavior<E extends Event> extends LeafletA
         super.renderHead(component, response);
         final ResourceReference javascriptReference = this.getJavascriptReference();
         response.render(JavaScriptHeaderItem.forReference(javascriptReference));
+        // client starts with empty state of filter
+        this.lastPixel = null;
+    }
+
+    @Override
+    protected void onBind() {
+        super.onBind();
+        MapEventHub.of((Map) this.getComponent());
+    }
+
+    /**
+     * Returns callback URL of map's {@link MapEventHub}, which routes requests to this behavior,
+     * so all event behaviors of map share single AJAX endpoint.
+     *
+     * @return the callback URL of map's event hub
+     */
+    @Override
+    public CharSequence getCallbackUrl() {
+        final Component component = this.getComponent();
+        if (!(component instanceof Map)) {
+            return super.getCallbackUrl();
+        }
+        return MapEventHub.of((Map) component).getCallbackUrl();
+    }
+
+    /**
+     * Checks whether this behavior is still bound to given map.
+     *
+     * @param map the map
+     * @return {@code true} if behavior is bound to map, {@code false} otherwise
+     */
+    final boolean isBoundTo(Map map) {
+        return this.getComponent() == map;
+    }
+
+    /**
+     * Adds client handlers of this behavior to dispatch table of map's {@link MapEventHub}.
+     *
+     * @param table the dispatch table of map
+     */
+    protected void contributeHandlers(MapEventHub.Table table) {
+        table.add(this.eventType, this.extractorFunction, this.renderAjaxAttributes(this.getComponent()),
+                this.rateLimit, null, this.filter);
+    }
+
+    /**
+     * Returns limit of how often event is sent from client to server.
+     * By default it's {@link EventRateLimit#forEventType(EventType)} of handled event type.
+     *
+     * @return the rate limit of this behavior
+     */
+    public final EventRateLimit getRateLimit() {
+        return this.rateLimit;
+    }
+
+    /**
+     * Sets limit of how often event is sent from client to server.
+     *
+     * @param rateLimit the rate limit, use {@link EventRateLimit#none()} to send every event
+     * @return this behavior
+     * @throws IllegalArgumentException if rate limit is {@code null}
+     */
+    public final LeafletAjaxEventBehavior<E> setRateLimit(EventRateLimit rateLimit) {
+        this.rateLimit = Args.notNull(rateLimit, "rateLimit");
+        return this;
+    }
+
+    /**
+     * Returns policy of events fired on client, while previous request of this behavior is running.
+     * By default it's {@link EventChannelPolicy#forEventType(EventType)} of handled event type.
+     *
+     * @return the channel policy of this behavior
+     */
+    public final EventChannelPolicy getChannelPolicy() {
+        return this.channelPolicy;
+    }
+
+    /**
+     * Sets policy of events fired on client, while previous request of this behavior is running.
+     *
+     * @param channelPolicy the channel policy
+     * @return this behavior
+     * @throws IllegalArgumentException if policy is {@code null}
+     */
+    public final LeafletAjaxEventBehavior<E> setChannelPolicy(EventChannelPolicy channelPolicy) {
+        this.channelPolicy = Args.notNull(channelPolicy, "channelPolicy");
+        return this;
+    }
+
+    /**
+     * Returns condition, that event must meet to be sent to server.
+     *
+     * @return the filter of this behavior or {@code null} if every event is sent
+     */
+    public final EventFilter getFilter() {
+        return this.filter;
+    }
 
-        final String script = this.getInitializationScript();
-        response.render(OnLoadHeaderItem.forScript(script));
+    /**
+     * Sets condition, that event must meet to be sent to server. Filter is checked by client
+     * before event is sent and again by this behavior before event is handled.
+     *
+     * @param filter the filter or {@code null} if every event should be sent
+     * @return this behavior
+     * @throws IllegalArgumentException if behavior can't check filter on server
+     */
+    public final LeafletAjaxEventBehavior<E> setFilter(EventFilter filter) {
+        this.checkFilter(filter);
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * Checks whether filter can be checked by this behavior on server, before it's set.
+     *
+     * @param filter the new filter or {@code null}
+     * @throws IllegalArgumentException if filter can't be checked on server
+     */
+    void checkFilter(EventFilter filter) {
+        // context is sent with every event, so every filter can be checked
     }
 
     /**
-     * Returns script that initializes event handler on client.
+     * Checks event sent in current request against filter of this behavior.
+     * Position of event is taken from its payload, if payload has it, because context sent by client
+     * can't be trusted. Other values of context are still reported by client.
      *
-     * @return the script that initializes event handler on client
+     * @param event the decoded event
+     * @return {@code true} if behavior doesn't have filter or event meets it, {@code false} otherwise
      */
-    protected String getInitializationScript() {
-        final String callbackScript = this.getCallbackScript().toString();
-        final Map map = (Map) this.getComponent();
+    final boolean acceptFilter(E event) {
+        if (this.filter == null) {
+            return true;
+        }
 
-        return String.format("%1$s.on('%2$s', function(event) { %3$s });\n",
-                map.getMapVarName(), this.eventType.getJavascriptName(), callbackScript);
+        EventFilter.Context context = EventFilter.Context.parse(
+                this.getVariableValue(EventFilter.CONTEXT_PARAMETER).toString(), this.lastPixel);
+        if (context == null) {
+            return false;
+        }
+        final LatLng latLng = getLatLng(event);
+        if (latLng != null) {
+            context = context.withLatLng(latLng);
+        }
+        if (!this.filter.test(context)) {
+            return false;
+        }
+        this.lastPixel = context.getPixel();
+        return true;
+    }
+
+    static LatLng getLatLng(Event event) {
+        if (event instanceof MouseEvent) {
+            return ((MouseEvent) event).getLatLng();
+        }
+        if (event instanceof LocationEvent) {
+            return ((LocationEvent) event).getLatLng();
+        }
+        return null;
+    }
+
+    /**
+     * Indicates whether this behavior handles events in read-only mode.
+     *
+     * @return {@code true} if handling of event doesn't change page
+     * @see #setReadOnly(boolean)
+     */
+    public final boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    /**
+     * Sets read-only mode of this behavior.
+     * In read-only mode, handling of event doesn't make page dirty, so page keeps its version and
+     * it isn't written to page store after request. Handler can still add components and javascript
+     * to AJAX request target, but any change of component state or models is not stored and it's lost
+     * once page is loaded from page store again.
+     *
+     * @param readOnly {@code true} if handling of event doesn't change page
+     * @return this behavior
+     */
+    public final LeafletAjaxEventBehavior<E> setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
     }
 
     /**
@@ -89,19 +302,73 @@ public abstract class LeafletAjaxEventBehavior<E extends Event> extends LeafletA
      *
      * @return the event type that this behavior is binded to on client.
      */
-    protected final MapEventType getEventType() {
+    protected final EventType getEventType() {
         return this.eventType;
     }
 
+    /**
+     * Returns class of JSON payload sent from client.
+     *
+     * @return the class of JSON payload of this event
+     */
+    final Class<E> getJsonPayloadClass() {
+        return this.jsonPayloadClass;
+    }
+
+    /**
+     * Returns javascript function that extracts json payload from event.
+     *
+     * @return the javascript function that extracts json payload from event
+     */
+    protected final String getExtractorFunction() {
+        return this.extractorFunction;
+    }
+
+    @Override
+    protected void updateAjaxAttributes(AjaxRequestAttributes attributes) {
+        super.updateAjaxAttributes(attributes);
+        final AjaxChannel channel = this.channelPolicy.toChannel(
+                "leaflet:" + this.getComponent().getMarkupId() + ":" + this.eventType.getJavascriptName());
+        if (channel != null) {
+            attributes.setChannel(channel);
+        }
+    }
+
     @Override
     protected void respond(AjaxRequestTarget target) {
         final StringValue eventJs = this.getVariableValue(this.eventType.getJavascriptName());
 
         if (!eventJs.isEmpty()) {
-            final JsonRenderer jsonRenderer = JsonRendererFactory.getJsonRenderer();
-            final E event = jsonRenderer.fromJson(eventJs.toString(), jsonPayloadClass);
-            this.onEvent(event, target);
+            final String json = eventJs.toString();
+            final EventMeter meter = EventMeter.start(this.getComponent(), this.eventType, json);
+            final E event = this.getDecoder().decode(json);
+            meter.decoded();
+            if (this.acceptFilter(event)) {
+                this.onEvent(event, target);
+                meter.handled(target);
+            }
+        }
+    }
+
+    /**
+     * Returns decoder for JSON payload sent from client.
+     *
+     * @return the decoder for JSON payload of this event
+     */
+    protected final JsonDecoder<E> getDecoder() {
+        if (this.decoder == null) {
+            this.decoder = this.resolveDecoder();
         }
+        return this.decoder;
+    }
+
+    /**
+     * Resolves decoder for JSON payload in current application.
+     *
+     * @return the decoder for JSON payload of this event
+     */
+    JsonDecoder<E> resolveDecoder() {
+        return JsonRendererFactory.getJsonRenderer().getDecoder(jsonPayloadClass);
     }
 
     /**
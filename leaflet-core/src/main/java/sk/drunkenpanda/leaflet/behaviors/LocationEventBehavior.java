@@ -21,11 +21,10 @@ import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.string.StringValue;
 
-import sk.drunkenpanda.leaflet.components.map.Map;
 import sk.drunkenpanda.leaflet.components.map.MapEventType;
 import sk.drunkenpanda.leaflet.events.ErrorEvent;
 import sk.drunkenpanda.leaflet.events.LocationEvent;
-import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonDecoder;
 import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
 
 /**
@@ -35,9 +34,14 @@ import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
  */
 public abstract class LocationEventBehavior extends LeafletAjaxEventBehavior<LocationEvent> {
 
+    /**
+     * The decoder of location error payload.
+     */
+    private transient JsonDecoder<ErrorEvent> errorDecoder;
+
     public LocationEventBehavior() {
-        super(MapEventType.LOCATION_FOUND, LocationEvent.class, "WicketLeaflet.LocationEvent.getLocationEvent(event)");
-        this.addJavascriptValue(MapEventType.LOCATION_ERROR.getJavascriptName(), "WicketLeaflet.LocationEvent.getLocationError(event)");
+        super(MapEventType.LOCATION_FOUND, LocationEvent.class, "WicketLeaflet.LocationEvent.getLocationEvent");
+        this.errorDecoder = JsonRendererFactory.getJsonRenderer().getDecoder(ErrorEvent.class);
     }
 
     @Override
@@ -46,15 +50,12 @@ public abstract class LocationEventBehavior extends LeafletAjaxEventBehavior<Loc
     }
 
     @Override
-    protected String getInitializationScript() {
-        final String script = super.getInitializationScript();
-
-        final Map map = (Map) this.getComponent();
-        final String callbackScript = this.getCallbackScript().toString();
-        final String errorHandler = String.format("%1$s.on('%2$s', function() { %3$s });\n", map.getMapVarName(),
-                MapEventType.LOCATION_ERROR.getJavascriptName(), callbackScript);
-
-        return script + errorHandler;
+    protected void contributeHandlers(MapEventHub.Table table) {
+        final CharSequence ajaxAttributes = this.renderAjaxAttributes(this.getComponent());
+        table.add(this.getEventType(), this.getExtractorFunction(), ajaxAttributes, this.getRateLimit(), null,
+                this.getFilter());
+        table.add(MapEventType.LOCATION_ERROR, "WicketLeaflet.LocationEvent.getLocationError", ajaxAttributes,
+                this.getRateLimit());
     }
 
     @Override
@@ -64,9 +65,15 @@ public abstract class LocationEventBehavior extends LeafletAjaxEventBehavior<Loc
         if (!locationEventJs.isEmpty()) {
             super.respond(target);
         } else if (!errorEventJs.isEmpty()) {
-            final JsonRenderer jsonRenderer = JsonRendererFactory.getJsonRenderer();
-            final ErrorEvent errorEvent = jsonRenderer.fromJson(errorEventJs.toString(), ErrorEvent.class);
+            if (this.errorDecoder == null) {
+                this.errorDecoder = JsonRendererFactory.getJsonRenderer().getDecoder(ErrorEvent.class);
+            }
+            final String json = errorEventJs.toString();
+            final EventMeter meter = EventMeter.start(this.getComponent(), MapEventType.LOCATION_ERROR, json);
+            final ErrorEvent errorEvent = this.errorDecoder.decode(json);
+            meter.decoded();
             this.onError(errorEvent, target);
+            meter.handled(target);
         }
     }
 
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.Page;
+import org.apache.wicket.Session;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnLoadHeaderItem;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapBehavior;
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+
+/**
+ * Behavior that registers client handlers of all {@link LeafletAjaxEventBehavior}s bound to map.
+ * Instead of separate script for every behavior, it renders single script with dispatch table,
+ * which contains event type, function that extracts JSON payload from event and AJAX attributes
+ * for every handler. Attributes shared by all handlers are rendered only once and every handler
+ * references its distinct remaining attributes, e.g. channel, by index.
+ * Hub is added to map automatically, when first event behavior is bound to it.
+ * <p>
+ * Hub is also the only AJAX endpoint of map. Event behaviors use its callback URL, client sends
+ * type of fired event in {@link #EVENT_TYPE_PARAMETER} and hub routes request to behaviors,
+ * that registered handler of that type. Event, that is older than the latest handled event of its type
+ * according to {@link #EPOCH_PARAMETER} and {@link #SEQUENCE_PARAMETER}, is ignored.
+ * <p>
+ * Load of handling is measured by {@link EventBackpressure} of application and when server can't keep up,
+ * hub adds backoff hint to response, so client sends rate limited events of map less often.
+ *
+ * @author Jan Ferko
+ */
+public final class MapEventHub extends LeafletAjaxBehavior {
+
+    private static final long serialVersionUID = 20171018120000L;
+
+    /**
+     * The name of request parameter, that contains javascript name of fired event type.
+     */
+    public static final String EVENT_TYPE_PARAMETER = "leafletEvent";
+
+    /**
+     * The name of request parameter, that contains sequence number of fired event within map.
+     */
+    public static final String SEQUENCE_PARAMETER = "leafletSeq";
+
+    /**
+     * The name of request parameter, that contains render of map, whose handler sent event.
+     */
+    public static final String EPOCH_PARAMETER = "leafletEpoch";
+
+    /**
+     * Event behaviors of map by event types they handle. It's filled when registration script is rendered.
+     */
+    private HashMap<String, List<LeafletAjaxEventBehavior<?>>> routes;
+
+    /**
+     * The number of renders of map. Client sends it with every event, because it starts to count
+     * sequence numbers again when map is rendered.
+     */
+    private long epoch;
+
+    /**
+     * Epochs and sequence numbers of the latest handled events by event types.
+     */
+    private final HashMap<String, long[]> sequences = new HashMap<>();
+
+    MapEventHub() {
+    }
+
+    /**
+     * Returns event hub of given map. If map doesn't have hub yet, new one is added.
+     *
+     * @param map the map
+     * @return the event hub of map
+     * @throws IllegalArgumentException if map is {@code null}
+     */
+    public static MapEventHub of(Map map) {
+        Args.notNull(map, "map");
+
+        final List<MapEventHub> hubs = map.getBehaviors(MapEventHub.class);
+        if (!hubs.isEmpty()) {
+            return hubs.get(0);
+        }
+
+        final MapEventHub hub = new MapEventHub();
+        map.add(hub);
+        return hub;
+    }
+
+    @Override
+    public void renderHead(Component component, IHeaderResponse response) {
+        super.renderHead(component, response);
+
+        // event of previous render, that is still sent, must not hold back events of new render
+        this.epoch++;
+        final String script = getRegistrationScript((Map) component);
+        if (script != null) {
+            response.render(JavaScriptHeaderItem.forReference(
+                    new PackageResourceReference(MapBehavior.class, "MapBehavior.js")));
+            // handlers of lazily created map are registered, when map is created
+            response.render(OnLoadHeaderItem.forScript(((Map) component).whenCreated(script)));
+        }
+    }
+
+    /**
+     * Returns script that registers handlers of all enabled event behaviors of given map.
+     *
+     * @param map the map
+     * @return the registration script or {@code null} if map doesn't have any enabled event behavior
+     */
+    String getRegistrationScript(Map map) {
+        final Table table = new Table();
+        for (LeafletAjaxEventBehavior<?> behavior : map.getBehaviors(LeafletAjaxEventBehavior.class)) {
+            if (behavior.isEnabled(map)) {
+                table.owner = behavior;
+                behavior.contributeHandlers(table);
+            }
+        }
+        this.routes = table.routes;
+
+        if (table.isEmpty()) {
+            return null;
+        }
+        return "WicketLeaflet.Map.on(" + map.getMapVarName() + ", " + table.toJavaScript() + ", " + this.epoch + ");";
+    }
+
+    @Override
+    protected void respond(AjaxRequestTarget target) {
+        final String eventTypeName = this.getVariableValue(EVENT_TYPE_PARAMETER).toString();
+        if (eventTypeName == null) {
+            return;
+        }
+
+        final long sequence = this.getVariableValue(SEQUENCE_PARAMETER).toLong(0L);
+        if (sequence > 0L && !this.advance(eventTypeName, this.getVariableValue(EPOCH_PARAMETER).toLong(0L),
+                sequence)) {
+            // newer event of the same type was already handled
+            return;
+        }
+
+        final Map map = (Map) this.getComponent();
+        if (this.routes == null) {
+            this.getRegistrationScript(map);
+        }
+
+        final List<LeafletAjaxEventBehavior<?>> handlers = new ArrayList<>();
+        boolean readOnly = true;
+        final List<LeafletAjaxEventBehavior<?>> routed = this.routes.get(eventTypeName);
+        if (routed != null) {
+            for (LeafletAjaxEventBehavior<?> handler : routed) {
+                if (handler.isBoundTo(map) && handler.isEnabled(map)) {
+                    handlers.add(handler);
+                    readOnly &= handler.isReadOnly();
+                }
+            }
+        }
+        if (handlers.isEmpty()) {
+            return;
+        }
+
+        final EventBackpressure backpressure = EventBackpressure.get(Application.get());
+        final long start = backpressure.enter();
+        int factor = 1;
+        try {
+            this.dispatch(map, handlers, readOnly, target);
+        } finally {
+            factor = backpressure.exit(start);
+        }
+
+        if (factor > 1 && backpressure.isEnabled()) {
+            target.appendJavaScript("WicketLeaflet.Map.backoff(" + map.getMapVarName() + "," + factor + ","
+                    + backpressure.getHintDuration().getMilliseconds() + ");");
+        }
+    }
+
+    private boolean advance(String eventTypeName, long epoch, long sequence) {
+        final long[] latest = this.sequences.get(eventTypeName);
+        if (latest != null && (latest[0] > epoch || latest[0] == epoch && latest[1] >= sequence)) {
+            return false;
+        }
+        this.sequences.put(eventTypeName, new long[] {epoch, sequence});
+        return true;
+    }
+
+    /**
+     * @return the number of renders of map
+     */
+    long getEpoch() {
+        return this.epoch;
+    }
+
+    private void dispatch(Map map, List<LeafletAjaxEventBehavior<?>> handlers, boolean readOnly,
+            AjaxRequestTarget target) {
+        if (!readOnly) {
+            for (LeafletAjaxEventBehavior<?> handler : handlers) {
+                handler.respond(target);
+            }
+            return;
+        }
+
+        // page can't be made dirty until response is written, so it keeps its version
+        final Page page = map.getPage();
+        final boolean frozen = page.setFreezePageId(true);
+        try {
+            for (LeafletAjaxEventBehavior<?> handler : handlers) {
+                handler.respond(target);
+            }
+        } catch (RuntimeException ex) {
+            page.setFreezePageId(frozen);
+            throw ex;
+        }
+        target.addListener(new ReadOnlyListener(page, frozen));
+    }
+
+    /**
+     * Listener that releases page after response of read-only request is written.
+     * Page is removed from pages touched by request, so it isn't written to page store.
+     */
+    private static final class ReadOnlyListener extends AjaxRequestTarget.AbstractListener {
+
+        private final Page page;
+
+        private final boolean frozen;
+
+        ReadOnlyListener(Page page, boolean frozen) {
+            this.page = page;
+            this.frozen = frozen;
+        }
+
+        @Override
+        public void onAfterRespond(java.util.Map<String, Component> map, AjaxRequestTarget.IJavaScriptResponse response) {
+            page.setFreezePageId(frozen);
+            Session.get().getPageManager().untouchPage(page);
+        }
+    }
+
+    /**
+     * Dispatch table of client handlers.
+     */
+    public static final class Table {
+
+        private static final ObjectMapper ATTRIBUTES_MAPPER = new ObjectMapper();
+
+        private final List<Row> rows = new ArrayList<>();
+
+        private final HashMap<String, List<LeafletAjaxEventBehavior<?>>> routes = new HashMap<>();
+
+        /**
+         * The behavior, whose handlers are added to table.
+         */
+        private LeafletAjaxEventBehavior<?> owner;
+
+        Table() {
+        }
+
+        /**
+         * Adds handler of given event type, that sends every event to server.
+         *
+         * @param eventType the type of handled event
+         * @param extractorFunction the javascript function, that extracts JSON payload from event
+         * @param ajaxAttributes the rendered AJAX attributes of request sent to server
+         */
+        public void add(EventType eventType, String extractorFunction, CharSequence ajaxAttributes) {
+            add(eventType, extractorFunction, ajaxAttributes, EventRateLimit.none());
+        }
+
+        /**
+         * Adds handler of given event type.
+         * When event is fired on client, payload extracted from event is sent via AJAX
+         * as parameter named by event type and request is routed to behavior, that added handler.
+         * How often the event is sent is limited on client by given rate limit.
+         *
+         * @param eventType the type of handled event
+         * @param extractorFunction the javascript function, that extracts JSON payload from event
+         * @param ajaxAttributes the rendered AJAX attributes of request sent to server
+         * @param rateLimit the limit of how often event is sent
+         */
+        public void add(EventType eventType, String extractorFunction, CharSequence ajaxAttributes,
+                EventRateLimit rateLimit) {
+            add(eventType, extractorFunction, ajaxAttributes, rateLimit, null, null);
+        }
+
+        /**
+         * Adds handler of given event type, whose events can be filtered on client or buffered and sent in batches.
+         *
+         * @param eventType the type of handled event
+         * @param extractorFunction the javascript function, that extracts JSON payload from event
+         * @param ajaxAttributes the rendered AJAX attributes of request sent to server
+         * @param rateLimit the limit of how often event is added to batch
+         * @param batch the javascript object, that describes batch or {@code null} if events are sent one by one
+         * @param filter the condition, that event must meet to be sent, or {@code null} if every event is sent
+         */
+        void add(EventType eventType, String extractorFunction, CharSequence ajaxAttributes,
+                EventRateLimit rateLimit, String batch, EventFilter filter) {
+            Args.notNull(eventType, "eventType");
+            Args.notEmpty(extractorFunction, "extractorFunction");
+            Args.notNull(ajaxAttributes, "ajaxAttributes");
+            Args.notNull(rateLimit, "rateLimit");
+
+            final String name = eventType.getJavascriptName();
+            final StringBuilder options = new StringBuilder();
+            if (!rateLimit.isNone() || batch != null || filter != null) {
+                options.append(',').append(rateLimit.toJavaScript());
+            }
+            if (batch != null || filter != null) {
+                options.append(',').append(batch);
+            }
+            if (filter != null) {
+                options.append(',').append(filter.toFunction());
+            }
+            rows.add(new Row(name, extractorFunction, readAttributes(ajaxAttributes), options.toString()));
+
+            if (owner != null) {
+                List<LeafletAjaxEventBehavior<?>> handlers = routes.get(name);
+                if (handlers == null) {
+                    handlers = new ArrayList<>(1);
+                    routes.put(name, handlers);
+                }
+                if (!handlers.contains(owner)) {
+                    handlers.add(owner);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        /**
+         * Returns arguments of {@code WicketLeaflet.Map.on}: attributes shared by all handlers,
+         * distinct remaining attributes of handlers and handlers, that reference them by index.
+         *
+         * @return the javascript with shared attributes, distinct attributes and handlers
+         */
+        String toJavaScript() {
+            final ObjectNode shared = rows.get(0).attributes.deepCopy();
+            for (Row row : rows) {
+                final Iterator<java.util.Map.Entry<String, JsonNode>> fields = shared.fields();
+                while (fields.hasNext()) {
+                    final java.util.Map.Entry<String, JsonNode> field = fields.next();
+                    if (!field.getValue().equals(row.attributes.get(field.getKey()))) {
+                        fields.remove();
+                    }
+                }
+            }
+
+            final LinkedHashMap<String, Integer> distinct = new LinkedHashMap<>();
+            final StringBuilder handlers = new StringBuilder();
+            for (Row row : rows) {
+                final ObjectNode own = row.attributes.deepCopy();
+                own.remove(ImmutableList.copyOf(shared.fieldNames()));
+                final String ownJson = writeAttributes(own);
+                Integer index = distinct.get(ownJson);
+                if (index == null) {
+                    index = distinct.size();
+                    distinct.put(ownJson, index);
+                }
+
+                if (handlers.length() > 0) {
+                    handlers.append(',');
+                }
+                handlers.append('[').append(JsonRendererFactory.getJsonRenderer().toJson(row.name)).append(',')
+                        .append(row.extractorFunction).append(',')
+                        .append(index)
+                        .append(row.options)
+                        .append(']');
+            }
+            return writeAttributes(shared) + ", [" + Joiner.on(',').join(distinct.keySet()) + "], ["
+                    + handlers + "]";
+        }
+
+        private static ObjectNode readAttributes(CharSequence ajaxAttributes) {
+            try {
+                return (ObjectNode) ATTRIBUTES_MAPPER.readTree(ajaxAttributes.toString());
+            } catch (IOException | ClassCastException ex) {
+                throw new IllegalArgumentException("AJAX attributes [" + ajaxAttributes + "] aren't JSON object.",
+                        ex);
+            }
+        }
+
+        private static String writeAttributes(ObjectNode attributes) {
+            try {
+                return ATTRIBUTES_MAPPER.writeValueAsString(attributes);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalStateException("AJAX attributes can't be written.", ex);
+            }
+        }
+
+        /**
+         * Handler of event type with its AJAX attributes.
+         */
+        private static final class Row {
+
+            private final String name;
+
+            private final String extractorFunction;
+
+            private final ObjectNode attributes;
+
+            /** The rendered rate limit, batch and filter of handler, each prefixed by comma. */
+            private final String options;
+
+            Row(String name, String extractorFunction, ObjectNode attributes, String options) {
+                this.name = name;
+                this.extractorFunction = extractorFunction;
+                this.attributes = attributes;
+                this.options = options;
+            }
+        }
+    }
+}
@@ -16,6 +16,10 @@
 
 package sk.drunkenpanda.leaflet.behaviors;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.lang.Args;
@@ -32,11 +36,10 @@ public abstract class MouseEventBehavior extends LeafletAjaxEventBehavior<MouseE
     /**
      * All event types supported by this behavior.
      */
-    static final MapEventType[] SUPPORTED_EVENTS = new MapEventType[] {
+    static final Set<MapEventType> SUPPORTED_EVENTS = Collections.unmodifiableSet(EnumSet.of(
         MapEventType.CLICK, MapEventType.DOUBLE_CLICK, MapEventType.MOUSEDOWN,
         MapEventType.MOUSEMOVE, MapEventType.MOUSEOUT, MapEventType.MOUSEOVER,
-        MapEventType.MOUSEUP, MapEventType.CONTEXT_MOVE, MapEventType.PRECLICK,
-    };
+        MapEventType.MOUSEUP, MapEventType.CONTEXT_MOVE, MapEventType.PRECLICK));
 
     /**
      * Constructs new behavior instance for given event type.
@@ -46,7 +49,7 @@ public abstract class MouseEventBehavior extends LeafletAjaxEventBehavior<MouseE
      * @throws IllegalArgumentException if event type is not supported or is {@code null}.
      */
     public MouseEventBehavior(MapEventType eventType) {
-        super(isSupported(eventType), MouseEvent.class, "WicketLeaflet.MouseEvent.getMouseEvent(event)");
+        super(isSupported(eventType), MouseEvent.class, "WicketLeaflet.MouseEvent.getMouseEvent");
     }
 
     @Override
@@ -65,13 +68,10 @@ public abstract class MouseEventBehavior extends LeafletAjaxEventBehavior<MouseE
     private static MapEventType isSupported(MapEventType eventType) {
         Args.notNull(eventType, "eventType");
 
-        for (MapEventType e : SUPPORTED_EVENTS) {
-            if (e.equals(eventType)) {
-                return e;
-            }
+        if (!SUPPORTED_EVENTS.contains(eventType)) {
+            throw new IllegalArgumentException("Event type is not supported.");
         }
-
-        throw new IllegalArgumentException("Event type is not supported.");
+        return eventType;
     }
 
 }
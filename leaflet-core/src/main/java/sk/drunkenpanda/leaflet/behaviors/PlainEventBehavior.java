@@ -16,6 +16,10 @@
 
 package sk.drunkenpanda.leaflet.behaviors;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 
@@ -24,15 +28,14 @@ import sk.drunkenpanda.leaflet.events.PlainEvent;
 
 public abstract class PlainEventBehavior extends LeafletAjaxEventBehavior<PlainEvent> {
 
-    private static final MapEventType[] SUPPORTED_TYPES = new MapEventType[] {
+    static final Set<MapEventType> SUPPORTED_TYPES = Collections.unmodifiableSet(EnumSet.of(
         MapEventType.FOCUS, MapEventType.BLUR, MapEventType.LOAD, MapEventType.UNLOAD,
         MapEventType.VIEW_RESET, MapEventType.MOVE_START, MapEventType.MOVE, MapEventType.MOVE_END,
         MapEventType.DRAG_START, MapEventType.DRAG, MapEventType.ZOOM_START, MapEventType.ZOOM_END,
-        MapEventType.ZOOM_LEVELS_CHANGE,  MapEventType.AUTOPAN_START
-    };
+        MapEventType.ZOOM_LEVELS_CHANGE,  MapEventType.AUTOPAN_START));
 
     public PlainEventBehavior(MapEventType eventType) {
-        super(isSupported(eventType), PlainEvent.class, "WicketLeaflet.Event.getEvent(event)");
+        super(isSupported(eventType), PlainEvent.class, "WicketLeaflet.Event.getEvent");
     }
 
     @Override
@@ -41,13 +44,10 @@ public abstract class PlainEventBehavior extends LeafletAjaxEventBehavior<PlainE
     }
 
     private static MapEventType isSupported(MapEventType eventType) {
-        for (MapEventType e : SUPPORTED_TYPES) {
-            if (e.equals(eventType)) {
-                return e;
-            }
+        if (eventType == null || !SUPPORTED_TYPES.contains(eventType)) {
+            throw new IllegalArgumentException("Event type is not supported");
         }
-
-        throw new IllegalArgumentException("Event type is not supported");
+        return eventType;
     }
 
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.request.resource.ResourceReference;
+
+import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.json.JsonDecoder;
+
+/**
+ * Behavior that handles event type registered in {@link EventTypeRegistry} using AJAX.
+ * Payload class, extractor function and javascript are taken from registration, so the behavior
+ * can handle events of Leaflet plugins as well as built-in events.
+ * <pre>
+ * map.add(new RegisteredEventBehavior&lt;DrawEvent&gt;("draw:created", DrawEvent.class) {
+ *     protected void onEvent(DrawEvent event, AjaxRequestTarget target) {
+ *         ...
+ *     }
+ * });
+ * </pre>
+ *
+ * @author Jan Ferko
+ * @param <E> the type of event payload
+ */
+public abstract class RegisteredEventBehavior<E extends Event> extends LeafletAjaxEventBehavior<E> {
+
+    private static final long serialVersionUID = 20171018180001L;
+
+    private final ResourceReference javascriptReference;
+
+    /**
+     * Constructor creates new behavior for event type registered in registry of current application.
+     *
+     * @param javascriptName the name of registered event type in javascript
+     * @param payloadClass the class of payload, that type is registered with
+     * @throws IllegalArgumentException if type isn't registered with given payload class
+     */
+    public RegisteredEventBehavior(String javascriptName, Class<E> payloadClass) {
+        this(EventTypeRegistry.get(Application.get()).get(javascriptName, payloadClass));
+    }
+
+    private RegisteredEventBehavior(EventTypeRegistry.Registration<E> registration) {
+        super(registration.getType(), registration.getPayloadClass(), registration.getExtractorFunction());
+        this.javascriptReference = registration.getJavascriptReference();
+    }
+
+    @Override
+    JsonDecoder<E> resolveDecoder() {
+        // decoder of plugin is kept by registration in registry of current application
+        return EventTypeRegistry.get(Application.get())
+                .get(this.getEventType().getJavascriptName(), this.getJsonPayloadClass()).getDecoder();
+    }
+
+    @Override
+    protected final ResourceReference getJavascriptReference() {
+        return this.javascriptReference;
+    }
+}
@@ -25,7 +25,7 @@ import sk.drunkenpanda.leaflet.events.ResizeEvent;
 public abstract class ResizeEventBehavior extends LeafletAjaxEventBehavior<ResizeEvent> {
 
     public ResizeEventBehavior() {
-        super(MapEventType.RESIZE, ResizeEvent.class, "WicketLeaflet.ResizeEvent.getResizeEvent(event)");
+        super(MapEventType.RESIZE, ResizeEvent.class, "WicketLeaflet.ResizeEvent.getResizeEvent");
     }
 
     @Override
@@ -202,6 +202,7 @@ public abstract class AbstractMapOptions implements Serializable {
     /**
      * @return whether the zoom control is added to the map
      */
+    @Value.Default
     public boolean isZoomControl() {
         return true;
     }
@@ -209,6 +210,7 @@ public abstract class AbstractMapOptions implements Serializable {
     /**
      * @return whether the attribution control is added to the map
      */
+    @Value.Default
     public boolean isAttributionControl() {
         return true;
     }
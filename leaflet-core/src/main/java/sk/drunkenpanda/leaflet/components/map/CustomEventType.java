@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.apache.wicket.util.lang.Args;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Type of event, that isn't fired by Leaflet.js itself, e.g. event of draw or cluster plugin.
+ * Custom event type has to be registered in {@link sk.drunkenpanda.leaflet.behaviors.EventTypeRegistry}
+ * before it's handled.
+ *
+ * @author Jan Ferko
+ */
+public final class CustomEventType implements EventType {
+
+    private static final long serialVersionUID = 20171018180000L;
+
+    private final String javascriptName;
+
+    private CustomEventType(String javascriptName) {
+        this.javascriptName = javascriptName;
+    }
+
+    /**
+     * Returns event type with given name.
+     *
+     * @param javascriptName the name of event in javascript, e.g. {@code draw:created}
+     * @return the event type
+     * @throws IllegalArgumentException if name is empty or it's name of {@link MapEventType}
+     */
+    @JsonCreator
+    public static CustomEventType of(String javascriptName) {
+        Args.notEmpty(javascriptName, "javascriptName");
+        if (MapEventType.find(javascriptName) != null) {
+            throw new IllegalArgumentException("Event type [" + javascriptName + "] is built-in map event type.");
+        }
+        return new CustomEventType(javascriptName);
+    }
+
+    @JsonValue
+    @Override
+    public String getJavascriptName() {
+        return this.javascriptName;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CustomEventType && this.javascriptName.equals(((CustomEventType) obj).javascriptName);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.javascriptName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.javascriptName;
+    }
+}
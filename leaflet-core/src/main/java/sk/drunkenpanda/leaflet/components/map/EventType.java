@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.io.Serializable;
+
+/**
+ * Type of event fired by map. Built-in Leaflet events are listed in {@link MapEventType},
+ * events of Leaflet plugins are described by {@link CustomEventType}.
+ *
+ * @author Jan Ferko
+ * @see sk.drunkenpanda.leaflet.behaviors.EventTypeRegistry
+ */
+public interface EventType extends Serializable {
+
+    /**
+     * @return the name of event in Leaflet.js, e.g. {@code click} or {@code draw:created}
+     */
+    String getJavascriptName();
+}
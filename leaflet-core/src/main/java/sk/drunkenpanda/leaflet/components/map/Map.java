@@ -16,10 +16,16 @@
 
 package sk.drunkenpanda.leaflet.components.map;
 
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
 import org.apache.wicket.markup.html.panel.GenericPanel;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.util.lang.Args;
+import sk.drunkenpanda.leaflet.Leaflet;
+import sk.drunkenpanda.leaflet.ExtendedLeafletSettings;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
 import sk.drunkenpanda.leaflet.models.LatLng;
 import sk.drunkenpanda.leaflet.resources.LeafletResourcesBehavior;
 
@@ -27,6 +33,12 @@ public class Map extends GenericPanel<LatLng> {
 
     private MapOptions options;
 
+    private final MapLayers layers = new MapLayers(this);
+
+    private final MapCommands commands = new MapCommands(this);
+
+    private Boolean lazyInitialization;
+
     public Map(String id) {
         this(id, new Model<LatLng>(), MapOptions.builder().build());
     }
@@ -57,7 +69,100 @@ public class Map extends GenericPanel<LatLng> {
         return this;
     }
 
+    /**
+     * Returns layers of map, that can be changed after map is rendered.
+     *
+     * @return the layer registry of map
+     */
+    public MapLayers getLayers() {
+        return this.layers;
+    }
+
+    /**
+     * Returns commands, that change view or features of map on client.
+     * Commands issued during AJAX request are sent to client together in response.
+     *
+     * @return the commands of map
+     */
+    public MapCommands getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * Sets new options and applies only changed options to map on client, so map keeps its tiles and state.
+     * Unlike {@link #setOptions(MapOptions)} followed by adding map to target, map isn't created again.
+     *
+     * @param options the new options
+     * @param target the target of current AJAX request
+     * @return this map
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public Map updateOptions(MapOptions options, IPartialPageRequestHandler target) {
+        Args.notNull(options, "options");
+        Args.notNull(target, "target");
+
+        final String script = MapOptionsDiff.toJavaScript(getMapVarName(), this.options, options,
+                JsonRendererFactory.getJsonRenderer());
+        this.options = options;
+        if (script != null) {
+            target.appendJavaScript(whenCreated(script));
+        }
+        return this;
+    }
+
     public String getMapVarName() {
         return getMarkupId() + "Map";
     }
+
+    /**
+     * Sets whether map is created on client only when it scrolls into view.
+     *
+     * @param lazyInitialization {@code true} if map is created lazily, {@code false} if it's created on load
+     *      or {@code null} if it's set by {@link ExtendedLeafletSettings#isLazyMapInitialization() settings}
+     * @return this map
+     */
+    public Map setLazyInitialization(Boolean lazyInitialization) {
+        this.lazyInitialization = lazyInitialization;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if map is created on client only when it scrolls into view, {@code false} otherwise
+     */
+    public boolean isLazyInitialization() {
+        return lazyInitialization != null ? lazyInitialization
+                : Leaflet.getExtendedSettings(getApplication()).isLazyMapInitialization();
+    }
+
+    /**
+     * Returns script, that runs given script, once map exists on client. Scripts, that use map,
+     * e.g. register its event handlers, have to wait for lazily created map.
+     *
+     * @param script the script, that uses map
+     * @return the script, that waits for map, or given script, if map is created on load
+     */
+    public String whenCreated(CharSequence script) {
+        if (!isLazyInitialization()) {
+            return script.toString();
+        }
+        return "WicketLeaflet.Map.ready(" + JsonRendererFactory.getJsonRenderer().toJson(getMapVarName())
+                + ",function(){" + script + "});";
+    }
+
+    /**
+     * Returns whether map is rendered together with given components by AJAX response,
+     * i.e. whether it's one of them or it's inside one of them.
+     *
+     * @param components the components, that are rendered by AJAX response
+     * @return {@code true} if map is rendered again
+     */
+    boolean isRenderedWith(Iterable<Component> components) {
+        for (Component component : components) {
+            if (component == this || component instanceof MarkupContainer
+                    && ((MarkupContainer) component).contains(this, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,13 +1,20 @@
 package sk.drunkenpanda.leaflet.components.map;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.wicket.Application;
 import org.apache.wicket.Component;
 import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.ComponentTag;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
-import org.apache.wicket.markup.head.OnLoadHeaderItem;
 import org.apache.wicket.request.resource.PackageResourceReference;
-import sk.drunkenpanda.leaflet.json.JsonRenderer;
+
+import sk.drunkenpanda.leaflet.Leaflet;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
 import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.ILayer;
 
 public final class MapBehavior extends Behavior {
 
@@ -20,12 +27,21 @@ public final class MapBehavior extends Behavior {
     @Override
     public void renderHead(Component component, IHeaderResponse response) {
         super.renderHead(component, response);
+        // static initializer of MapBehavior.js boots declarative maps on Wicket events
+        response.render(JavaScriptHeaderItem.forReference(
+                Application.get().getJavaScriptLibrarySettings().getWicketEventReference()));
         response.render(JavaScriptHeaderItem.forReference(new PackageResourceReference(getClass(), "MapBehavior.js")));
+        if (!isDeclarative()) {
+            response.render(MapBootstrapHeaderItem.forMap(map));
+        }
+    }
 
-        String optionsScript = getMapOptionsScript();
-        String mapScript = String.format("window.%1$s = L.map('%2$s', %3$s);", map.getMapVarName(),
-                map.getMarkupId(), getMapOptionsVarName());
-        response.render(OnLoadHeaderItem.forScript(optionsScript + mapScript));
+    @Override
+    public void onComponentTag(Component component, ComponentTag tag) {
+        super.onComponentTag(component, tag);
+        if (isDeclarative()) {
+            tag.put(MapBootstrap.DATA_ATTRIBUTE, getBootstrapData());
+        }
     }
 
     @Override
@@ -36,17 +52,37 @@ public final class MapBehavior extends Behavior {
         super.bind(component);
     }
 
-    private String getMapOptionsVarName() {
-        return map.getMapVarName() + "Options";
-    }
+    /**
+     * Returns proper JSON with everything, that initializer on client needs to create map:
+     * <pre>
+     * {"name":"map1Map","options":{...},"center":[lat,lng],"lazy":true,"layers":{"id":{...}},"commands":[...]}
+     * </pre>
+     *
+     * @return the JSON, that is written to {@link MapBootstrap#DATA_ATTRIBUTE}
+     */
+    String getBootstrapData() {
+        final java.util.Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", map.getMapVarName());
+        data.put("options", map.getOptions());
+        data.put("center", map.getModelObject());
+        if (map.isLazyInitialization()) {
+            data.put("lazy", Boolean.TRUE);
+        }
 
-    private String getMapOptionsScript() {
-        JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
-        String optionsVarName = getMapOptionsVarName();
-        String options = renderer.toJson(map.getOptions());
-        String center = renderer.toJson(map.getModelObject());
+        final java.util.Map<String, ILayer> layers = map.getLayers().getRenderLayers();
+        if (!layers.isEmpty()) {
+            data.put("layers", layers);
+        }
+        final List<List<Object>> commands = map.getCommands().drain();
+        if (!commands.isEmpty()) {
+            data.put("commands", commands);
+        }
+        // markup of page is always compact, no matter how JSON of scripts is rendered
+        return JsonRendererFactory.getJsonRenderer(JsonProfile.DEPLOYMENT,
+                Leaflet.getExtendedSettings(Application.get()).getCoordinatePrecision()).toDataJson(data);
+    }
 
-        return String.format("var %1$s = WicketLeaflet.Map.prepareOptions(%2$s, %3$s);\n",
-                optionsVarName, options, center);
+    private boolean isDeclarative() {
+        return Leaflet.getExtendedSettings(Application.get()).getMapBootstrap() == MapBootstrap.DECLARATIVE;
     }
 }
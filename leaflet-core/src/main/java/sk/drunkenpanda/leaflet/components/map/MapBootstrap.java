@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+/**
+ * The way, how maps are created on client.
+ *
+ * @author Jan Ferko
+ */
+public enum MapBootstrap {
+
+    /**
+     * Every page contains inline script, that creates its maps. Script is written directly to response,
+     * see {@link MapBootstrapHeaderItem}.
+     */
+    SCRIPT,
+
+    /**
+     * Options of map are written as JSON to {@code data-leaflet-map} attribute of map element and maps are created
+     * by static initializer in cacheable {@code MapBehavior.js}. Pages don't contain inline script, that creates
+     * maps, so they're smaller. Only creation of maps is declarative: event behaviors, event sinks and pushed
+     * layers still register their handlers with on-load scripts and AJAX responses still contain evaluated
+     * javascript, so pages with such maps still need Content Security Policy, that allows inline scripts.
+     * Layers are written as descriptions of calls of Leaflet factory functions, that are resolved on client.
+     */
+    DECLARATIVE;
+
+    /** The name of attribute, that contains JSON with options of map in declarative mode. */
+    public static final String DATA_ATTRIBUTE = "data-leaflet-map";
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
+import org.apache.wicket.core.util.string.JavaScriptUtils;
+import org.apache.wicket.markup.head.HeaderItem;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnLoadHeaderItem;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.ResponseWriter;
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+/**
+ * Header item that writes script, which creates Leaflet map on client, directly to Wicket response.
+ * Map options are streamed as JSON into response, so large options are not copied
+ * into intermediate strings. Layers of {@link MapLayers registry} are added right after map is created
+ * and then {@link MapCommands commands}, that weren't sent yet, are run. Map with
+ * {@link Map#isLazyInitialization() lazy initialization} is created only when it scrolls into view.
+ *
+ * @author Jan Ferko
+ */
+public final class MapBootstrapHeaderItem extends HeaderItem {
+
+    private final String mapVarName;
+
+    private final String markupId;
+
+    private final MapOptions options;
+
+    private final LatLng center;
+
+    private final String layersScript;
+
+    private final String commandsScript;
+
+    private final boolean lazy;
+
+    /**
+     * Creates header item for given map.
+     *
+     * @param map the map that is created by script
+     * @throws IllegalArgumentException if map is {@code null}
+     */
+    public MapBootstrapHeaderItem(Map map) {
+        Args.notNull(map, "map");
+        this.mapVarName = map.getMapVarName();
+        this.markupId = map.getMarkupId();
+        this.options = map.getOptions();
+        this.center = map.getModelObject();
+        this.layersScript = map.getLayers().getRenderScript(this.mapVarName, JsonRendererFactory.getJsonRenderer());
+        this.commandsScript = map.getCommands().flush(this.mapVarName);
+        this.lazy = map.isLazyInitialization();
+    }
+
+    /**
+     * Returns header item that creates given map on client.
+     * Streaming header item is used when whole page is rendered. During AJAX requests script is
+     * evaluated by Wicket only if it's part of {@link OnLoadHeaderItem}, so script is rendered
+     * as on-load script instead.
+     *
+     * @param map the map that is created by script
+     * @return header item that creates map on client
+     * @throws IllegalArgumentException if map is {@code null}
+     */
+    public static HeaderItem forMap(Map map) {
+        final MapBootstrapHeaderItem item = new MapBootstrapHeaderItem(map);
+        if (RequestCycle.get().find(IPartialPageRequestHandler.class) != null) {
+            return OnLoadHeaderItem.forScript(item.getJavaScript());
+        }
+        return item;
+    }
+
+    /**
+     * Returns the script that creates map as string.
+     *
+     * @return the script that creates map
+     */
+    public CharSequence getJavaScript() {
+        final StringResponse response = new StringResponse();
+        writeJavaScript(response);
+        return response.getBuffer();
+    }
+
+    @Override
+    public void render(Response response) {
+        JavaScriptUtils.writeOpenTag(response);
+        response.write("Wicket.Event.add(window, \"load\", function(event) { ");
+        writeJavaScript(response);
+        response.write(";});");
+        JavaScriptUtils.writeCloseTag(response);
+    }
+
+    /**
+     * Writes script that creates map to given response.
+     *
+     * @param response the response that receives script
+     */
+    private void writeJavaScript(Response response) {
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+        final ResponseWriter writer = new ResponseWriter(response, true);
+        final String optionsVarName = mapVarName + "Options";
+
+        if (lazy) {
+            response.write("WicketLeaflet.Map.lazy(document.getElementById('");
+            response.write(markupId);
+            response.write("'), '");
+            response.write(mapVarName);
+            response.write("', function() {\n");
+        }
+        response.write("var ");
+        response.write(optionsVarName);
+        response.write(" = WicketLeaflet.Map.prepareOptions(");
+        renderer.writeJson(options, writer);
+        response.write(", ");
+        renderer.writeJson(center, writer);
+        response.write(");\n");
+
+        response.write("window.");
+        response.write(mapVarName);
+        response.write(" = L.map('");
+        response.write(markupId);
+        response.write("', ");
+        response.write(optionsVarName);
+        response.write(");");
+
+        // layers and commands are written by application, so their strings may contain closing tags
+        if (layersScript != null) {
+            response.write("\n");
+            writer.write(layersScript, 0, layersScript.length());
+        }
+        if (commandsScript != null) {
+            response.write("\n");
+            writer.write(commandsScript, 0, commandsScript.length());
+        }
+        if (lazy) {
+            response.write("\n});");
+        }
+    }
+
+    @Override
+    public Iterable<?> getRenderTokens() {
+        return Collections.singletonList("leaflet-map-" + markupId);
+    }
+
+    @Override
+    public List<HeaderItem> getDependencies() {
+        final List<HeaderItem> dependencies = super.getDependencies();
+        dependencies.add(JavaScriptHeaderItem.forReference(
+                Application.get().getJavaScriptLibrarySettings().getWicketEventReference()));
+        dependencies.add(JavaScriptHeaderItem.forReference(
+                new PackageResourceReference(MapBehavior.class, "MapBehavior.js")));
+        return dependencies;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final MapBootstrapHeaderItem other = (MapBootstrapHeaderItem) obj;
+        return markupId.equals(other.markupId);
+    }
+
+    @Override
+    public int hashCode() {
+        return markupId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MapBootstrapHeaderItem('" + markupId + "')";
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.Leaflet;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+
+/**
+ * Commands, that change map on client, e.g. its view or features shown on it.
+ * Commands issued during AJAX request are collected and sent as single compact JSON array,
+ * which is applied by {@code WicketLeaflet.Map.run} on client, so handlers don't write javascript:
+ * <pre>
+ * map.getCommands()
+ *         .panTo(event.getLatLng())
+ *         .addFeature("selected", event.getLatLng(), Collections.singletonMap("title", "Selected"));
+ * </pre>
+ * Commands issued outside of AJAX request or before map is rendered again in the same request
+ * are applied right after map is created on client.
+ * <p>
+ * Every command is written as JSON array, whose first item is its code:
+ * <ul>
+ * <li>{@code ["v", [lat, lng], zoom]} sets view,</li>
+ * <li>{@code ["p", [lat, lng]]} pans map,</li>
+ * <li>{@code ["z", zoom]} sets zoom,</li>
+ * <li>{@code ["b", [lat, lng], [lat, lng]]} fits bounds given by north-east and south-west corner,</li>
+ * <li>{@code ["a", id, [lat, lng], options]} adds marker feature or replaces feature with the same id,
+ * options are written only if they aren't empty,</li>
+ * <li>{@code ["r", id...]} removes features,</li>
+ * <li>{@code ["c"]} removes all features,</li>
+ * <li>{@code ["s", id, style]} sets style of feature or of layer with id in {@link MapLayers},</li>
+ * <li>{@code ["i"]} updates size of map after its container was resized.</li>
+ * </ul>
+ *
+ * @author Jan Ferko
+ */
+public final class MapCommands implements Serializable {
+
+    private static final long serialVersionUID = 20171018210000L;
+
+    private final Map map;
+
+    private final ArrayList<List<Object>> pending = new ArrayList<>();
+
+    /** The target, that sends pending commands of current request. */
+    private transient AjaxRequestTarget target;
+
+    MapCommands(Map map) {
+        this.map = map;
+    }
+
+    /**
+     * Sets center and zoom of map.
+     *
+     * @param center the new center
+     * @param zoom the new zoom
+     * @return these commands
+     * @throws IllegalArgumentException if center is {@code null}
+     */
+    public MapCommands setView(LatLng center, int zoom) {
+        return command("v", Args.notNull(center, "center"), zoom);
+    }
+
+    /**
+     * Pans map to given center.
+     *
+     * @param center the new center
+     * @return these commands
+     * @throws IllegalArgumentException if center is {@code null}
+     */
+    public MapCommands panTo(LatLng center) {
+        return command("p", Args.notNull(center, "center"));
+    }
+
+    /**
+     * Sets zoom of map.
+     *
+     * @param zoom the new zoom
+     * @return these commands
+     */
+    public MapCommands setZoom(int zoom) {
+        return command("z", zoom);
+    }
+
+    /**
+     * Sets view of map, that contains given bounds with the highest possible zoom.
+     *
+     * @param bounds the bounds
+     * @return these commands
+     * @throws IllegalArgumentException if bounds are {@code null}
+     */
+    public MapCommands fitBounds(LatLngBounds bounds) {
+        Args.notNull(bounds, "bounds");
+        return command("b", bounds.getNorthEast(), bounds.getSouthWest());
+    }
+
+    /**
+     * Adds marker feature with given id or replaces feature with the same id.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @return these commands
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public MapCommands addFeature(String id, LatLng latLng) {
+        return addFeature(id, latLng, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Adds marker feature with given id and options or replaces feature with the same id.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @param options the options of Leaflet marker, e.g. {@code title} or {@code opacity}
+     * @return these commands
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public MapCommands addFeature(String id, LatLng latLng, java.util.Map<String, ?> options) {
+        Args.notNull(id, "id");
+        Args.notNull(latLng, "latLng");
+        Args.notNull(options, "options");
+        return options.isEmpty() ? command("a", id, latLng)
+                : command("a", id, latLng, new LinkedHashMap<String, Object>(options));
+    }
+
+    /**
+     * Removes features with given ids. Features, that don't exist, are ignored.
+     *
+     * @param ids the ids of features
+     * @return these commands
+     * @throws IllegalArgumentException if ids are {@code null}
+     */
+    public MapCommands removeFeatures(String... ids) {
+        Args.notNull(ids, "ids");
+        final Object[] arguments = new Object[ids.length + 1];
+        arguments[0] = "r";
+        System.arraycopy(ids, 0, arguments, 1, ids.length);
+        return ids.length == 0 ? this : command(arguments);
+    }
+
+    /**
+     * Removes all features added by commands.
+     *
+     * @return these commands
+     */
+    public MapCommands clearFeatures() {
+        return command("c");
+    }
+
+    /**
+     * Sets style of feature or layer with given id. Path layers get style by {@code setStyle},
+     * markers support {@code opacity} and {@code zIndexOffset}.
+     *
+     * @param id the id of feature or of layer in {@link Map#getLayers() layers} of map
+     * @param style the style, e.g. {@code color} or {@code opacity}
+     * @return these commands
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public MapCommands setStyle(String id, java.util.Map<String, ?> style) {
+        Args.notNull(style, "style");
+        return command("s", Args.notNull(id, "id"), new LinkedHashMap<String, Object>(style));
+    }
+
+    /**
+     * Updates size of map, e.g. after its container was shown or resized.
+     *
+     * @return these commands
+     */
+    public MapCommands invalidateSize() {
+        return command("i");
+    }
+
+    /**
+     * Returns script, that runs commands, which weren't sent yet, and forgets them.
+     *
+     * @param mapVarName the name of variable with Leaflet map
+     * @return the script or {@code null} if there aren't any commands
+     */
+    String flush(String mapVarName) {
+        final List<List<Object>> commands = drain();
+        if (commands.isEmpty()) {
+            return null;
+        }
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer(JsonProfile.DEPLOYMENT,
+                Leaflet.getExtendedSettings(Application.get()).getCoordinatePrecision());
+        return "WicketLeaflet.Map.run(" + mapVarName + "," + renderer.toJson(commands) + ");";
+    }
+
+    /**
+     * Returns commands, which weren't sent yet, and forgets them.
+     *
+     * @return the commands written as JSON arrays
+     */
+    List<List<Object>> drain() {
+        final List<List<Object>> commands = new ArrayList<>(pending);
+        pending.clear();
+        return commands;
+    }
+
+    private MapCommands command(Object... arguments) {
+        pending.add(new ArrayList<>(Arrays.asList(arguments)));
+
+        final RequestCycle requestCycle = RequestCycle.get();
+        final AjaxRequestTarget current = requestCycle != null ? requestCycle.find(AjaxRequestTarget.class) : null;
+        if (current != null && current != target) {
+            target = current;
+            current.addListener(new FlushListener(this));
+        }
+        return this;
+    }
+
+    /**
+     * Listener, that sends commands issued during request, unless map is rendered again.
+     */
+    private static final class FlushListener extends AjaxRequestTarget.AbstractListener {
+
+        private final MapCommands commands;
+
+        FlushListener(MapCommands commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public void onBeforeRespond(java.util.Map<String, Component> components, AjaxRequestTarget target) {
+            commands.target = null;
+            if (commands.map.isRenderedWith(components.values())) {
+                // commands are sent by bootstrap script of rendered map
+                return;
+            }
+            final String script = commands.flush(commands.map.getMapVarName());
+            if (script != null) {
+                target.appendJavaScript(commands.map.whenCreated(script));
+            }
+        }
+    }
+}
@@ -16,10 +16,14 @@
 
 package sk.drunkenpanda.leaflet.components.map;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
-public enum MapEventType {
+public enum MapEventType implements EventType {
 
     CLICK("click"),
 
@@ -89,6 +93,11 @@ public enum MapEventType {
 
     POPUP_CLOSE("popupclose");
 
+    /**
+     * Event types by their javascript names.
+     */
+    private static final Map<String, MapEventType> BY_NAME = createIndex();
+
     private final String javascriptName;
 
     private MapEventType(String javascriptName) {
@@ -96,19 +105,22 @@ public enum MapEventType {
     }
 
     @JsonValue
+    @Override
     public String getJavascriptName() {
         return this.javascriptName;
     }
 
     @JsonCreator
     public static MapEventType find(String javascriptName) {
+        return javascriptName != null ? BY_NAME.get(javascriptName) : null;
+    }
+
+    private static Map<String, MapEventType> createIndex() {
+        final Map<String, MapEventType> index = new HashMap<>();
         for (MapEventType eventType : values()) {
-            if (eventType.getJavascriptName().equals(javascriptName)) {
-                return eventType;
-            }
+            index.put(eventType.getJavascriptName(), eventType);
         }
-
-        return null;
+        return Collections.unmodifiableMap(index);
     }
 
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.ILayer;
+
+/**
+ * Layers of map, that can be added, updated and removed after map is rendered.
+ * Every layer has stable id, that identifies it on client. Changes made during AJAX request are collected
+ * and sent to client as single patch, when response is written, so toggling several overlays costs
+ * one client call and map keeps its tiles. If map itself is rendered again in the same request,
+ * patch isn't sent, because rendered map contains all layers.
+ * <pre>
+ * map.getLayers().put("traffic", trafficLayer);
+ * map.getLayers().remove("weather");
+ * </pre>
+ * Unlike {@link MapOptions#getLayers() layers of options}, which are read only when map is created,
+ * layers of registry can change during whole life of map.
+ *
+ * @author Jan Ferko
+ */
+public final class MapLayers implements Serializable {
+
+    private static final long serialVersionUID = 20171018200000L;
+
+    /**
+     * Changes of current request by layer id for every changed registry, {@code null} value removes layer.
+     * Changes are kept by request cycle, so they're dropped with request, even if it fails before response.
+     */
+    private static final MetaDataKey<IdentityHashMap<MapLayers, LinkedHashMap<String, ILayer>>> PENDING_KEY =
+            new MetaDataKey<IdentityHashMap<MapLayers, LinkedHashMap<String, ILayer>>>() {};
+
+    private final Map map;
+
+    private final LinkedHashMap<String, ILayer> layers = new LinkedHashMap<>();
+
+    private int lastId;
+
+    MapLayers(Map map) {
+        this.map = map;
+    }
+
+    /**
+     * Adds layer with generated id.
+     *
+     * @param layer the layer
+     * @return the id of added layer
+     * @throws IllegalArgumentException if layer is {@code null}
+     */
+    public String add(ILayer layer) {
+        String id;
+        do {
+            id = "layer" + (++lastId);
+        } while (layers.containsKey(id));
+        add(id, layer);
+        return id;
+    }
+
+    /**
+     * Adds layer with given id.
+     *
+     * @param id the id of layer
+     * @param layer the layer
+     * @return this registry
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws IllegalStateException if registry already contains layer with the same id
+     */
+    public MapLayers add(String id, ILayer layer) {
+        Args.notNull(id, "id");
+        Args.notNull(layer, "layer");
+        if (layers.containsKey(id)) {
+            throw new IllegalStateException("Layer [" + id + "] is already added to map.");
+        }
+        return put(id, layer);
+    }
+
+    /**
+     * Replaces layer with given id. Layer is added, if registry doesn't contain it yet.
+     *
+     * @param id the id of layer
+     * @param layer the new layer
+     * @return this registry
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public MapLayers put(String id, ILayer layer) {
+        Args.notNull(id, "id");
+        Args.notNull(layer, "layer");
+        if (!layer.equals(layers.put(id, layer))) {
+            change(id, layer);
+        }
+        return this;
+    }
+
+    /**
+     * Replaces existing layer with given id.
+     *
+     * @param id the id of layer
+     * @param layer the new layer
+     * @return this registry
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws IllegalStateException if registry doesn't contain layer with given id
+     */
+    public MapLayers update(String id, ILayer layer) {
+        Args.notNull(id, "id");
+        if (!layers.containsKey(id)) {
+            throw new IllegalStateException("Layer [" + id + "] isn't added to map.");
+        }
+        return put(id, layer);
+    }
+
+    /**
+     * Removes layer with given id. It does nothing, if registry doesn't contain layer.
+     *
+     * @param id the id of layer
+     * @return the removed layer or {@code null} if there wasn't such layer
+     */
+    public ILayer remove(String id) {
+        final ILayer removed = id != null ? layers.remove(id) : null;
+        if (removed != null) {
+            change(id, null);
+        }
+        return removed;
+    }
+
+    /**
+     * @param id the id of layer
+     * @return the layer with given id or {@code null} if there isn't such layer
+     */
+    public ILayer get(String id) {
+        return layers.get(id);
+    }
+
+    /**
+     * Returns layers by ids in order, in which they were added. Returned map can't be modified.
+     *
+     * @return the layers by ids
+     */
+    public java.util.Map<String, ILayer> asMap() {
+        return Collections.unmodifiableMap(layers);
+    }
+
+    /**
+     * @return the number of layers
+     */
+    public int size() {
+        return layers.size();
+    }
+
+    /**
+     * Returns script, that adds all layers to map on client.
+     *
+     * @param mapVarName the name of variable with Leaflet map
+     * @param renderer the renderer of layers
+     * @return the script or {@code null} if registry is empty
+     */
+    String getRenderScript(String mapVarName, JsonRenderer renderer) {
+        // rendered map contains all layers, so changes made before rendering are already on client
+        return layers.isEmpty() ? null : toPatch(mapVarName, getRenderLayers(), renderer);
+    }
+
+    /**
+     * Returns all layers, that are added to map, when it's created on client.
+     *
+     * @return the layers by id
+     */
+    java.util.Map<String, ILayer> getRenderLayers() {
+        takePending();
+        return Collections.unmodifiableMap(layers);
+    }
+
+    private void change(String id, ILayer layer) {
+        final RequestCycle requestCycle = RequestCycle.get();
+        final AjaxRequestTarget target = requestCycle != null ? requestCycle.find(AjaxRequestTarget.class) : null;
+        if (target == null) {
+            // map is rendered with all layers, when page is rendered
+            return;
+        }
+        IdentityHashMap<MapLayers, LinkedHashMap<String, ILayer>> pending = requestCycle.getMetaData(PENDING_KEY);
+        if (pending == null) {
+            pending = new IdentityHashMap<>();
+            requestCycle.setMetaData(PENDING_KEY, pending);
+        }
+        LinkedHashMap<String, ILayer> changes = pending.get(this);
+        if (changes == null) {
+            changes = new LinkedHashMap<>();
+            pending.put(this, changes);
+            target.addListener(new PatchListener(this));
+        }
+        changes.remove(id);
+        changes.put(id, layer);
+    }
+
+    /**
+     * Returns changes made during current request and forgets them.
+     *
+     * @return the changes by layer id or {@code null} if layers weren't changed
+     */
+    private java.util.Map<String, ILayer> takePending() {
+        final RequestCycle requestCycle = RequestCycle.get();
+        final IdentityHashMap<MapLayers, LinkedHashMap<String, ILayer>> pending = requestCycle != null
+                ? requestCycle.getMetaData(PENDING_KEY) : null;
+        return pending != null ? pending.remove(this) : null;
+    }
+
+    static String toPatch(String mapVarName, java.util.Map<String, ILayer> changes, JsonRenderer renderer) {
+        final StringBuilder patch = new StringBuilder("WicketLeaflet.Map.patch(").append(mapVarName).append(",[");
+        boolean first = true;
+        for (java.util.Map.Entry<String, ILayer> change : changes.entrySet()) {
+            if (!first) {
+                patch.append(',');
+            }
+            first = false;
+            final String id = renderer.toJson(change.getKey());
+            if (change.getValue() != null) {
+                patch.append("[\"a\",").append(id).append(',').append(renderer.toJson(change.getValue())).append(']');
+            } else {
+                patch.append("[\"r\",").append(id).append(']');
+            }
+        }
+        return patch.append("]);").toString();
+    }
+
+    /**
+     * Listener, that sends changes of layers made during request as single patch.
+     */
+    private static final class PatchListener extends AjaxRequestTarget.AbstractListener {
+
+        private final MapLayers layers;
+
+        PatchListener(MapLayers layers) {
+            this.layers = layers;
+        }
+
+        @Override
+        public void onBeforeRespond(java.util.Map<String, Component> components, AjaxRequestTarget target) {
+            final java.util.Map<String, ILayer> changes = layers.takePending();
+            if (changes == null || changes.isEmpty() || layers.map.isRenderedWith(components.values())) {
+                return;
+            }
+            final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+            target.appendJavaScript(layers.map.whenCreated(toPatch(layers.map.getMapVarName(), changes, renderer)));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import sk.drunkenpanda.leaflet.json.JsonException;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.models.ILayer;
+
+/**
+ * Difference between two map options, that is applied to existing Leaflet map on client
+ * by {@code WicketLeaflet.Map.update}, so map doesn't have to be created again.
+ * Changes are written as javascript object with changed options only:
+ * <ul>
+ * <li>{@code zoom}, {@code minZoom} and {@code maxZoom} change zoom of map,</li>
+ * <li>{@code maxBounds} is set by {@code map.setMaxBounds},</li>
+ * <li>interaction handlers like {@code dragging} or {@code scrollWheelZoom} are enabled or disabled,</li>
+ * <li>{@code zoomControl} and {@code attributionControl} add or remove their control,</li>
+ * <li>{@code layers} is array, whose items are either indexes of layers kept from previous options
+ *      or new layers, so only added layers load their tiles,</li>
+ * <li>other options are copied to options of map, so they're used next time Leaflet reads them.</li>
+ * </ul>
+ * Options are compared as JSON written by renderer, so every option, that is rendered with map, is diffed.
+ *
+ * @author Jan Ferko
+ */
+final class MapOptionsDiff {
+
+    /** Reads floats as exact decimals, so changed options are written with same digits as renderer wrote them. */
+    private static final ObjectMapper TREE_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    private MapOptionsDiff() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns script, that updates map from previous to current options.
+     *
+     * @param mapVarName the name of variable with Leaflet map
+     * @param previous the options, that map was rendered or last updated with
+     * @param current the new options
+     * @param renderer the renderer of option values
+     * @return the script or {@code null} if options don't differ
+     */
+    static String toJavaScript(String mapVarName, MapOptions previous, MapOptions current, JsonRenderer renderer) {
+        final JsonNode before = toTree(previous, renderer);
+        final JsonNode after = toTree(current, renderer);
+
+        final StringBuilder changes = new StringBuilder();
+        for (Iterator<java.util.Map.Entry<String, JsonNode>> it = after.fields(); it.hasNext();) {
+            final java.util.Map.Entry<String, JsonNode> property = it.next();
+            if (!"layers".equals(property.getKey()) && !property.getValue().equals(before.get(property.getKey()))) {
+                appendChange(changes, property.getKey(), property.getValue().toString());
+            }
+        }
+        for (Iterator<String> it = before.fieldNames(); it.hasNext();) {
+            final String name = it.next();
+            if (!"layers".equals(name) && !after.has(name)) {
+                appendChange(changes, name, "null");
+            }
+        }
+
+        if (!previous.getLayers().equals(current.getLayers())) {
+            final List<Object> layers = diffLayers(previous.getLayers(), current.getLayers());
+            appendChange(changes, "layers", renderer.toJson(layers));
+        }
+
+        if (changes.length() == 0) {
+            return null;
+        }
+        return "WicketLeaflet.Map.update(" + mapVarName + "," + changes.append('}') + ");";
+    }
+
+    /**
+     * Returns new layers, where layers, that are in previous layers too, are replaced by their index
+     * in previous layers.
+     *
+     * @param previous the previous layers
+     * @param current the new layers
+     * @return the new layers and indexes of kept layers
+     */
+    static List<Object> diffLayers(List<ILayer> previous, List<ILayer> current) {
+        final boolean[] kept = new boolean[previous.size()];
+        final List<Object> layers = new ArrayList<>(current.size());
+        for (ILayer layer : current) {
+            Object item = layer;
+            for (int i = 0; i < kept.length; i++) {
+                if (!kept[i] && previous.get(i).equals(layer)) {
+                    kept[i] = true;
+                    item = i;
+                    break;
+                }
+            }
+            layers.add(item);
+        }
+        return layers;
+    }
+
+    private static JsonNode toTree(MapOptions options, JsonRenderer renderer) {
+        try {
+            return TREE_MAPPER.readTree(renderer.toDataJson(options));
+        } catch (IOException ex) {
+            throw new JsonException("Error while reading JSON of map options", ex);
+        }
+    }
+
+    private static void appendChange(StringBuilder changes, String name, String json) {
+        changes.append(changes.length() == 0 ? '{' : ',').append('"').append(name).append("\":").append(json);
+    }
+}
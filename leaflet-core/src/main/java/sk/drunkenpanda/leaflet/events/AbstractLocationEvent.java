@@ -29,6 +29,8 @@ import sk.drunkenpanda.leaflet.models.LatLngBounds;
  */
 @EventStyle
 @Value.Immutable
+// builder can't copy covariant type of Event#getType() from supertype, which is fine
+@SuppressWarnings("immutables")
 public abstract class AbstractLocationEvent implements Event {
 
     /**
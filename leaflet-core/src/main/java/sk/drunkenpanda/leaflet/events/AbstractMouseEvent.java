@@ -32,6 +32,8 @@ import sk.drunkenpanda.leaflet.models.Point;
  */
 @EventStyle
 @Value.Immutable
+// builder can't copy covariant type of Event#getType() from supertype, which is fine
+@SuppressWarnings("immutables")
 public abstract class AbstractMouseEvent implements Event {
 
     /**
@@ -16,7 +16,7 @@
 
 package sk.drunkenpanda.leaflet.events;
 
-import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.components.map.EventType;
 
 /**
  * Model that describes the base event. All other Leaflet events should inherit from this class.
@@ -26,10 +26,10 @@ import sk.drunkenpanda.leaflet.components.map.MapEventType;
 public interface Event {
 
     /**
-     * Returns type of event.
+     * Returns type of event. Built-in events return {@link sk.drunkenpanda.leaflet.components.map.MapEventType}.
      *
      * @return type of event
      */
-    MapEventType getType();
+    EventType getType();
 
 }
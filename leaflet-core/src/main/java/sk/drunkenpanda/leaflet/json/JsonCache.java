@@ -0,0 +1,127 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Bounded cache of JSON written for immutable objects.
+ * Objects are compared by {@link Object#equals(Object)}, so equal objects share single JSON string.
+ * When cache is full, least recently used entry is evicted.
+ * Cache counts hits, misses and evictions, so its effectiveness can be monitored.
+ *
+ * @author Jan Ferko
+ */
+public final class JsonCache {
+
+    private final int maxSize;
+
+    private final Map<Object, String> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize the maximal number of cached objects
+     * @throws IllegalArgumentException if size is not positive
+     */
+    public JsonCache(final int maxSize) {
+        Args.withinRange(1, Integer.MAX_VALUE, maxSize, "maxSize");
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Object, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns cached JSON of given object.
+     *
+     * @param key the object
+     * @return the cached JSON or {@code null} if object is not cached
+     */
+    String get(Object key) {
+        final String json;
+        synchronized (entries) {
+            json = entries.get(key);
+        }
+
+        if (json != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return json;
+    }
+
+    /**
+     * Stores JSON of given object.
+     *
+     * @param key the object
+     * @param json the JSON of object
+     */
+    void put(Object key, String json) {
+        synchronized (entries) {
+            entries.put(key, json);
+        }
+    }
+
+    /**
+     * Removes all cached entries. Statistics are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the maximal number of cached objects
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the current number of cached objects
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups, that found cached JSON
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups, that didn't find cached JSON
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries evicted because cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+}
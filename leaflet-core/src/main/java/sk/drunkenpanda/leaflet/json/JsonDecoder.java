@@ -0,0 +1,140 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Decoder that reads objects of single type from JSON.
+ * It holds {@link ObjectReader} with already resolved deserializer, so decoding
+ * does not need to look up deserializer for every call.
+ * If {@link StreamingDecoder} is available for the type, it's tried first and
+ * data-binding is used only when it fails.
+ * Instances are created and cached by {@link JsonRenderer#getDecoder(Class)}.
+ *
+ * @author Jan Ferko
+ * @param <T> the type of decoded objects
+ */
+public final class JsonDecoder<T> {
+
+    private final Class<T> type;
+
+    private final ObjectReader reader;
+
+    private final StreamingDecoder<T> streamingDecoder;
+
+    JsonDecoder(Class<T> type, ObjectReader reader, StreamingDecoder<T> streamingDecoder) {
+        this.type = type;
+        this.reader = reader;
+        this.streamingDecoder = streamingDecoder;
+    }
+
+    /**
+     * @return the type of objects decoded by this decoder
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Reads object from given JSON string.
+     *
+     * @param json the JSON string
+     * @return the decoded object
+     * @throws JsonException if JSON could not be read
+     */
+    public T decode(String json) {
+        if (streamingDecoder != null) {
+            try (JsonParser parser = reader.getFactory().createParser(json)) {
+                final T result = streamingDecoder.decode(parser);
+                if (result != null) {
+                    return result;
+                }
+            } catch (IOException | RuntimeException ex) {
+                // unexpected input, data-binding decides whether it's valid or not
+            }
+        }
+        return decodeWithDatabind(json);
+    }
+
+    /**
+     * Reads list of objects from given JSON array.
+     *
+     * @param json the JSON array
+     * @return the decoded objects
+     * @throws JsonException if JSON could not be read
+     */
+    public List<T> decodeList(String json) {
+        if (streamingDecoder != null) {
+            try (JsonParser parser = reader.getFactory().createParser(json)) {
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    final List<T> result = new ArrayList<>();
+                    final ElementParser element = new ElementParser(parser);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        element.pushBack = true;
+                        final T value = streamingDecoder.decode(element);
+                        if (value == null) {
+                            break;
+                        }
+                        result.add(value);
+                    }
+                    if (parser.getCurrentToken() == JsonToken.END_ARRAY) {
+                        return result;
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                // unexpected input, data-binding decides whether it's valid or not
+            }
+        }
+
+        try {
+            return reader.forType(reader.getTypeFactory().constructCollectionType(List.class, type)).readValue(json);
+        } catch (Exception ex) {
+            throw new JsonException("Error while reading list of [" + type.getCanonicalName()
+                + "] from JSON string [" + json + "].", ex);
+        }
+    }
+
+    /**
+     * Reads object from given JSON string using only data-binding.
+     *
+     * @param json the JSON string
+     * @return the decoded object
+     * @throws JsonException if JSON could not be read
+     */
+    T decodeWithDatabind(String json) {
+        try {
+            return reader.readValue(json);
+        } catch (Exception ex) {
+            throw new JsonException("Error while reading object [" + type.getCanonicalName() + "] from JSON string ["
+                + json + "].", ex);
+        }
+    }
+
+    /**
+     * Parser that returns current token once more, so element of array, whose first token was
+     * already read, can be passed to {@link StreamingDecoder}.
+     */
+    private static final class ElementParser extends JsonParserDelegate {
+
+        private boolean pushBack;
+
+        ElementParser(JsonParser parser) {
+            super(parser);
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            if (pushBack) {
+                pushBack = false;
+                return delegate.getCurrentToken();
+            }
+            return delegate.nextToken();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package sk.drunkenpanda.leaflet.json;
+
+import org.apache.wicket.RuntimeConfigurationType;
+
+/**
+ * Profile that decides how JSON is rendered.
+ * Development profile writes indented JSON, that is easy to read in browser,
+ * while deployment profile writes compact JSON to keep responses small.
+ *
+ * @author Jan Ferko
+ */
+public enum JsonProfile {
+
+    /** Readable profile with indented output. */
+    DEVELOPMENT(true),
+
+    /** Compact profile without any whitespace. */
+    DEPLOYMENT(false);
+
+    private final boolean indented;
+
+    JsonProfile(boolean indented) {
+        this.indented = indented;
+    }
+
+    /**
+     * @return {@code true} if JSON written with this profile is indented
+     */
+    public boolean isIndented() {
+        return indented;
+    }
+
+    /**
+     * Returns profile suitable for given configuration type of application.
+     *
+     * @param configurationType the configuration type of application
+     * @return the deployment profile for deployment applications, otherwise development profile
+     */
+    public static JsonProfile of(RuntimeConfigurationType configurationType) {
+        return configurationType == RuntimeConfigurationType.DEPLOYMENT ? DEPLOYMENT : DEVELOPMENT;
+    }
+}
@@ -1,46 +1,329 @@
 package sk.drunkenpanda.leaflet.json;
 
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.request.Response;
+import org.apache.wicket.util.lang.Args;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 
+import sk.drunkenpanda.leaflet.components.map.MapOptions;
+import sk.drunkenpanda.leaflet.events.DragEndEvent;
+import sk.drunkenpanda.leaflet.events.ErrorEvent;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.events.ResizeEvent;
+import sk.drunkenpanda.leaflet.json.decoders.DragEndEventDecoder;
+import sk.drunkenpanda.leaflet.json.decoders.ErrorEventDecoder;
+import sk.drunkenpanda.leaflet.json.decoders.LocationEventDecoder;
+import sk.drunkenpanda.leaflet.json.decoders.MouseEventDecoder;
+import sk.drunkenpanda.leaflet.json.decoders.PlainEventDecoder;
+import sk.drunkenpanda.leaflet.json.decoders.ResizeEventDecoder;
+import sk.drunkenpanda.leaflet.json.serializers.JavaScriptCallSerializer;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.TileLayer;
+import sk.drunkenpanda.leaflet.models.TileLayerOptions;
+
+/**
+ * Renderer that converts objects to JSON and back.
+ * Output of renderer is controlled by {@link JsonProfile}. Writers of types used to bootstrap
+ * map are prepared when renderer is created and writers of other types are cached on first use.
+ * If renderer has {@link JsonCache}, JSON of immutable map options and layers is written only once
+ * and then it's reused for all equal objects.
+ *
+ * @author Jan Ferko
+ */
 public final class JsonRenderer {
 
+    /** Immutable types, whose JSON can be cached. */
+    private static final Set<Class<?>> CACHEABLE_TYPES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.<Class<?>>asList(MapOptions.class, TileLayer.class, TileLayerOptions.class)));
+
+    private final JsonProfile profile;
+
+    private final int coordinatePrecision;
+
     private final ObjectMapper jacksonMapper;
 
+    private final ObjectWriter defaultWriter;
+
+    private final ObjectWriter dataWriter;
+
+    private final JsonCache cache;
+
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, JsonDecoder<?>> decoders = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, StreamingDecoder<?>> streamingDecoders = new ConcurrentHashMap<>();
+
+    /**
+     * Creates renderer with development profile.
+     */
     public JsonRenderer() {
-        this.jacksonMapper = createObjectMapper();
+        this(JsonProfile.DEVELOPMENT);
+    }
+
+    /**
+     * Creates renderer with given profile and default coordinate precision.
+     *
+     * @param profile the profile, that controls output of renderer
+     * @throws IllegalArgumentException if profile is {@code null}
+     */
+    public JsonRenderer(JsonProfile profile) {
+        this(profile, LeafletJacksonModule.DEFAULT_COORDINATE_PRECISION);
+    }
+
+    /**
+     * Creates renderer with given profile and coordinate precision.
+     *
+     * @param profile the profile, that controls output of renderer
+     * @param coordinatePrecision the number of decimal places of written coordinates
+     * @throws IllegalArgumentException if profile is {@code null} or precision is not between 0 and 15
+     */
+    public JsonRenderer(JsonProfile profile, int coordinatePrecision) {
+        this(profile, coordinatePrecision, null);
     }
 
-    private ObjectMapper createObjectMapper() {
+    /**
+     * Creates renderer with given profile, coordinate precision and cache.
+     *
+     * @param profile the profile, that controls output of renderer
+     * @param coordinatePrecision the number of decimal places of written coordinates
+     * @param cache the cache of JSON written for immutable objects or {@code null} if JSON shouldn't be cached
+     * @throws IllegalArgumentException if profile is {@code null} or precision is not between 0 and 15
+     */
+    public JsonRenderer(JsonProfile profile, int coordinatePrecision, JsonCache cache) {
+        Args.notNull(profile, "profile");
+        this.profile = profile;
+        this.coordinatePrecision = coordinatePrecision;
+        this.cache = cache;
+        this.jacksonMapper = createObjectMapper(profile, coordinatePrecision);
+        this.defaultWriter = jacksonMapper.writer();
+        this.dataWriter = defaultWriter.withAttribute(JavaScriptCallSerializer.DATA_ATTRIBUTE, Boolean.TRUE);
+        registerStreamingDecoders();
+        prepareWriters();
+    }
+
+    private void registerStreamingDecoders() {
+        registerStreamingDecoder(MouseEvent.class, new MouseEventDecoder());
+        registerStreamingDecoder(LocationEvent.class, new LocationEventDecoder());
+        registerStreamingDecoder(ErrorEvent.class, new ErrorEventDecoder());
+        registerStreamingDecoder(ResizeEvent.class, new ResizeEventDecoder());
+        registerStreamingDecoder(DragEndEvent.class, new DragEndEventDecoder());
+        registerStreamingDecoder(PlainEvent.class, new PlainEventDecoder());
+    }
+
+    private void prepareWriters() {
+        getWriter(MapOptions.class);
+        getWriter(LatLng.class);
+        getWriter(LatLngBounds.class);
+        getWriter(TileLayer.class);
+        getWriter(TileLayerOptions.class);
+    }
+
+    private static ObjectMapper createObjectMapper(JsonProfile profile, int coordinatePrecision) {
         final ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new GuavaModule());
-        mapper.registerModule(new LeafletJacksonModule());
+        mapper.registerModule(new LeafletJacksonModule(coordinatePrecision));
 
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, profile.isIndented());
         mapper.disable(SerializationFeature.WRITE_NULL_MAP_VALUES);
         mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
         mapper.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
 
         return mapper;
     }
 
+    /**
+     * @return the profile of this renderer
+     */
+    public JsonProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return the number of decimal places of written coordinates
+     */
+    public int getCoordinatePrecision() {
+        return coordinatePrecision;
+    }
+
+    /**
+     * @return the cache of JSON written for immutable objects or {@code null} if caching is disabled
+     */
+    public JsonCache getCache() {
+        return cache;
+    }
+
     public String toJson(Object obj) {
+        if (!isCacheable(obj)) {
+            return writeValueAsString(obj);
+        }
+
+        String json = cache.get(obj);
+        if (json == null) {
+            json = writeValueAsString(obj);
+            cache.put(obj, json);
+        }
+        return json;
+    }
+
+    private String writeValueAsString(Object obj) {
         try {
-            return jacksonMapper.writeValueAsString(obj);
+            return getWriter(obj).writeValueAsString(obj);
         } catch (Exception ex) {
-            throw new JsonException("Error while writing object [" + obj.getClass().getCanonicalName() + "] to JSON", ex);
+            throw new JsonException("Error while writing object [" + getClassName(obj) + "] to JSON", ex);
         }
     }
 
-    public <T> T fromJson(final String json, Class<T> clazz) {
+    /**
+     * Converts given object to proper JSON, that can be read by {@code JSON.parse}.
+     * Layers, that are otherwise written as calls of Leaflet factory functions, are written as descriptions
+     * of these calls, see {@link JavaScriptCallSerializer}. JSON isn't cached.
+     *
+     * @param obj the object that is written as JSON
+     * @return the proper JSON of object
+     * @throws JsonException if object could not be written
+     */
+    public String toDataJson(Object obj) {
+        try {
+            return obj != null ? dataWriter.forType(obj.getClass()).writeValueAsString(obj)
+                    : dataWriter.writeValueAsString(null);
+        } catch (Exception ex) {
+            throw new JsonException("Error while writing object [" + getClassName(obj) + "] to JSON", ex);
+        }
+    }
+
+    /**
+     * Writes JSON representation of given object directly to writer.
+     * Writer is not closed after object is written.
+     *
+     * @param obj the object that is written as JSON
+     * @param writer the writer that receives JSON
+     * @throws JsonException if object could not be written
+     */
+    public void writeJson(Object obj, Writer writer) {
         try {
-            return jacksonMapper.readValue(json, clazz);
+            if (isCacheable(obj)) {
+                writer.write(toJson(obj));
+            } else {
+                getWriter(obj).writeValue(writer, obj);
+            }
+        } catch (JsonException ex) {
+            throw ex;
         } catch (Exception ex) {
-            throw new JsonException("Error while reading object [" + clazz.getCanonicalName() + "] from JSON string ["
-                + json + "].", ex);
+            throw new JsonException("Error while writing object [" + getClassName(obj) + "] to JSON", ex);
+        }
+    }
+
+    /**
+     * Writes JSON representation of given object directly to Wicket response.
+     *
+     * @param obj the object that is written as JSON
+     * @param response the response that receives JSON
+     * @throws JsonException if object could not be written
+     * @see #writeJson(Object, java.io.Writer)
+     */
+    public void writeJson(Object obj, Response response) {
+        writeJson(obj, new ResponseWriter(response));
+    }
+
+    public <T> T fromJson(final String json, Class<T> clazz) {
+        return getDecoder(clazz).decode(json);
+    }
+
+    /**
+     * Returns decoder for given type.
+     * Decoder is created only once per type and then it's reused by all callers.
+     *
+     * @param <T> the type of decoded objects
+     * @param clazz the class of decoded objects
+     * @return the decoder for given type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> JsonDecoder<T> getDecoder(Class<T> clazz) {
+        JsonDecoder<T> decoder = (JsonDecoder<T>) decoders.get(clazz);
+        if (decoder == null) {
+            final StreamingDecoder<T> streamingDecoder = (StreamingDecoder<T>) streamingDecoders.get(clazz);
+            decoder = new JsonDecoder<>(clazz, jacksonMapper.readerFor(clazz), streamingDecoder);
+            final JsonDecoder<T> existing = (JsonDecoder<T>) decoders.putIfAbsent(clazz, decoder);
+            if (existing != null) {
+                decoder = existing;
+            }
         }
+        return decoder;
+    }
+
+    /**
+     * Creates decoder for given type, that tries given hand-written decoder instead of decoder registered
+     * with renderer. Renderer isn't changed and created decoder isn't cached, so caller should keep it.
+     *
+     * @param <T> the type of decoded objects
+     * @param clazz the class of decoded objects
+     * @param streamingDecoder the hand-written decoder for given type
+     * @return the new decoder for given type
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public <T> JsonDecoder<T> createDecoder(Class<T> clazz, StreamingDecoder<T> streamingDecoder) {
+        Args.notNull(clazz, "clazz");
+        Args.notNull(streamingDecoder, "streamingDecoder");
+
+        return new JsonDecoder<>(clazz, jacksonMapper.readerFor(clazz), streamingDecoder);
+    }
+
+    /**
+     * Registers hand-written decoder for given type. Registered decoder is used as fast path
+     * by {@link JsonDecoder} and data-binding is used only if it fails.
+     *
+     * @param <T> the type of decoded objects
+     * @param clazz the class of decoded objects
+     * @param decoder the decoder for given type
+     */
+    public <T> void registerStreamingDecoder(Class<T> clazz, StreamingDecoder<T> decoder) {
+        Args.notNull(clazz, "clazz");
+        Args.notNull(decoder, "decoder");
+
+        streamingDecoders.put(clazz, decoder);
+        decoders.remove(clazz);
+    }
+
+    private boolean isCacheable(Object obj) {
+        return cache != null && obj != null && CACHEABLE_TYPES.contains(obj.getClass());
+    }
+
+    private ObjectWriter getWriter(Object obj) {
+        return obj != null ? getWriter(obj.getClass()) : defaultWriter;
+    }
+
+    private ObjectWriter getWriter(Class<?> clazz) {
+        ObjectWriter writer = writers.get(clazz);
+        if (writer == null) {
+            writer = defaultWriter.forType(clazz);
+            final ObjectWriter existing = writers.putIfAbsent(clazz, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    private static String getClassName(Object obj) {
+        return obj != null ? obj.getClass().getCanonicalName() : "null";
     }
 }
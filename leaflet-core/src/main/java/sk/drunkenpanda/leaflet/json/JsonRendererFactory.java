@@ -1,13 +1,118 @@
 package sk.drunkenpanda.leaflet.json;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Factory that provides shared {@link JsonRenderer} instances.
+ * There is single renderer for every combination of {@link JsonProfile} and coordinate precision.
+ * Renderers with default precision are created eagerly, so their writers are ready before first page
+ * is rendered. Renderer of current application is selected by
+ * {@link sk.drunkenpanda.leaflet.Leaflet#install(org.apache.wicket.protocol.http.WebApplication)}.
+ *
+ * @author Jan Ferko
+ */
 public final class JsonRendererFactory {
 
-    private static final JsonRenderer INSTANCE = new JsonRenderer();
+    /** Meta key, that is used to identify JSON renderer of application. */
+    private static final MetaDataKey<JsonRenderer> RENDERER_KEY = new MetaDataKey<JsonRenderer>() {};
+
+    private static final Map<JsonProfile, ConcurrentMap<Integer, JsonRenderer>> RENDERERS = createRenderers();
 
     private JsonRendererFactory() {
     }
 
+    private static Map<JsonProfile, ConcurrentMap<Integer, JsonRenderer>> createRenderers() {
+        final Map<JsonProfile, ConcurrentMap<Integer, JsonRenderer>> renderers = new EnumMap<>(JsonProfile.class);
+        for (JsonProfile profile : JsonProfile.values()) {
+            final ConcurrentMap<Integer, JsonRenderer> byPrecision = new ConcurrentHashMap<>();
+            byPrecision.put(LeafletJacksonModule.DEFAULT_COORDINATE_PRECISION, new JsonRenderer(profile));
+            renderers.put(profile, byPrecision);
+        }
+        return renderers;
+    }
+
+    /**
+     * Returns renderer of application, that belongs to current thread.
+     * If there isn't any application or it doesn't have renderer, development renderer is returned.
+     *
+     * @return the renderer of current application
+     */
     public static JsonRenderer getJsonRenderer() {
-        return INSTANCE;
+        return Application.exists() ? getJsonRenderer(Application.get()) : getJsonRenderer(JsonProfile.DEVELOPMENT);
+    }
+
+    /**
+     * Returns renderer of given application.
+     * If application doesn't have renderer, development renderer is returned.
+     *
+     * @param application the application
+     * @return the renderer of application
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static JsonRenderer getJsonRenderer(Application application) {
+        Args.notNull(application, "application");
+        final JsonRenderer renderer = application.getMetaData(RENDERER_KEY);
+        return renderer != null ? renderer : getJsonRenderer(JsonProfile.DEVELOPMENT);
+    }
+
+    /**
+     * Returns shared renderer of given profile with default coordinate precision.
+     *
+     * @param profile the JSON profile
+     * @return the renderer of given profile
+     * @throws IllegalArgumentException if profile is {@code null}
+     */
+    public static JsonRenderer getJsonRenderer(JsonProfile profile) {
+        return getJsonRenderer(profile, LeafletJacksonModule.DEFAULT_COORDINATE_PRECISION);
+    }
+
+    /**
+     * Returns shared renderer of given profile and coordinate precision.
+     *
+     * @param profile the JSON profile
+     * @param coordinatePrecision the number of decimal places of written coordinates
+     * @return the renderer of given profile and precision
+     * @throws IllegalArgumentException if profile is {@code null} or precision is not between 0 and 15
+     */
+    public static JsonRenderer getJsonRenderer(JsonProfile profile, int coordinatePrecision) {
+        Args.notNull(profile, "profile");
+
+        final ConcurrentMap<Integer, JsonRenderer> byPrecision = RENDERERS.get(profile);
+        JsonRenderer renderer = byPrecision.get(coordinatePrecision);
+        if (renderer == null) {
+            renderer = new JsonRenderer(profile, coordinatePrecision);
+            final JsonRenderer existing = byPrecision.putIfAbsent(coordinatePrecision, renderer);
+            if (existing != null) {
+                renderer = existing;
+            }
+        }
+        return renderer;
+    }
+
+    /**
+     * Sets renderer of given profile and coordinate precision as renderer of application.
+     * If cache size is positive, application gets its own renderer with {@link JsonCache} of given size,
+     * otherwise it uses shared renderer.
+     *
+     * @param application the application
+     * @param profile the JSON profile of application
+     * @param coordinatePrecision the number of decimal places of written coordinates
+     * @param cacheSize the maximal number of objects in JSON cache or {@code 0} if JSON shouldn't be cached
+     * @throws IllegalArgumentException if application or profile is {@code null}
+     *      or precision is not between 0 and 15
+     */
+    public static void install(Application application, JsonProfile profile, int coordinatePrecision, int cacheSize) {
+        Args.notNull(application, "application");
+        final JsonRenderer renderer = cacheSize > 0
+                ? new JsonRenderer(profile, coordinatePrecision, new JsonCache(cacheSize))
+                : getJsonRenderer(profile, coordinatePrecision);
+        application.setMetaData(RENDERER_KEY, renderer);
     }
 }
@@ -3,20 +3,53 @@ package sk.drunkenpanda.leaflet.json;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
+import sk.drunkenpanda.leaflet.json.serializers.JavaScriptCallSerializer;
+import sk.drunkenpanda.leaflet.json.serializers.LatLngSerializer;
+import sk.drunkenpanda.leaflet.json.serializers.PointSerializer;
 import sk.drunkenpanda.leaflet.json.serializers.TileLayerSerializer;
-import sk.drunkenpanda.leaflet.models.TileLayer;
+import sk.drunkenpanda.leaflet.models.ILayer;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.Point;
 
 /**
  * @author Jan Ferko
  */
 public final class LeafletJacksonModule extends SimpleModule {
 
+    /** Default number of decimal places of written coordinates, that is roughly 1 centimeter on the map. */
+    public static final int DEFAULT_COORDINATE_PRECISION = 7;
+
+    private final int coordinatePrecision;
+
     public LeafletJacksonModule() {
+        this(DEFAULT_COORDINATE_PRECISION);
+    }
+
+    /**
+     * @param coordinatePrecision the number of decimal places of written coordinates
+     * @throws IllegalArgumentException if precision is negative or greater than 15
+     */
+    public LeafletJacksonModule(int coordinatePrecision) {
         super("wicket-leaflet", new Version(0, 0, 1, null, "sk.drunkenpanda", "wicket-leaflet"));
+        this.coordinatePrecision = coordinatePrecision;
         registerSerializers();
     }
 
     private void registerSerializers() {
-        addSerializer(TileLayer.class, new TileLayerSerializer());
+        addLayerSerializer(new TileLayerSerializer());
+        addSerializer(LatLng.class, new LatLngSerializer(coordinatePrecision));
+        addSerializer(Point.class, new PointSerializer(coordinatePrecision));
+    }
+
+    /**
+     * Registers serializer of layer, that is written as call of Leaflet factory function.
+     *
+     * @param <T> the type of layer
+     * @param serializer the serializer of layer
+     * @return this module for chaining
+     */
+    public <T extends ILayer> LeafletJacksonModule addLayerSerializer(JavaScriptCallSerializer<T> serializer) {
+        addSerializer(serializer.handledType(), serializer);
+        return this;
     }
 }
@@ -0,0 +1,91 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import org.apache.wicket.request.Response;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Adapter that exposes Wicket {@link Response} as {@link Writer}, so JSON can be streamed
+ * directly into response without building intermediate strings.
+ *
+ * @author Jan Ferko
+ */
+public final class ResponseWriter extends Writer {
+
+    private final Response response;
+
+    private final boolean escapeClosingTags;
+
+    private char lastChar;
+
+    /**
+     * Creates writer, that passes everything to given response as is.
+     *
+     * @param response the response that receives written characters
+     */
+    public ResponseWriter(Response response) {
+        this(response, false);
+    }
+
+    /**
+     * Creates writer, that passes written characters to given response.
+     * If {@code escapeClosingTags} is {@code true}, every {@code </} is written as {@code <\/},
+     * so content can be safely placed inside of {@code <script>} element.
+     *
+     * @param response the response that receives written characters
+     * @param escapeClosingTags whether closing tags should be escaped
+     */
+    public ResponseWriter(Response response, boolean escapeClosingTags) {
+        Args.notNull(response, "response");
+        this.response = response;
+        this.escapeClosingTags = escapeClosingTags;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        if (len <= 0) {
+            return;
+        }
+
+        final int end = off + len;
+        int start = off;
+        if (escapeClosingTags) {
+            char previous = lastChar;
+            for (int i = off; i < end; i++) {
+                if (cbuf[i] == '/' && previous == '<') {
+                    response.write(CharBuffer.wrap(cbuf, start, i - start));
+                    response.write("\\");
+                    start = i;
+                }
+                previous = cbuf[i];
+            }
+        }
+
+        response.write(CharBuffer.wrap(cbuf, start, end - start));
+        lastChar = cbuf[end - 1];
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        if (escapeClosingTags) {
+            final char[] chars = new char[len];
+            str.getChars(off, off + len, chars, 0);
+            write(chars, 0, len);
+        } else if (len > 0) {
+            response.write(str.subSequence(off, off + len));
+            lastChar = str.charAt(off + len - 1);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // response is flushed by Wicket when request is processed
+    }
+
+    @Override
+    public void close() {
+        // response is closed by Wicket when request is processed
+    }
+}
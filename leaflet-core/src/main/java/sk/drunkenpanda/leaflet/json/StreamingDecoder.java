@@ -0,0 +1,26 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Hand-written decoder, that reads object directly from JSON tokens without reflective data-binding.
+ * Decoders are used by {@link JsonDecoder} as fast path for small payloads with fixed shape.
+ * If decoder fails, {@link JsonDecoder} falls back to data-binding, which also reports
+ * malformed input.
+ *
+ * @author Jan Ferko
+ * @param <T> the type of decoded objects
+ */
+public interface StreamingDecoder<T> {
+
+    /**
+     * Reads object from given parser. Parser is positioned before the first token of object.
+     *
+     * @param parser the parser that provides JSON tokens
+     * @return the decoded object
+     * @throws IOException if input does not have expected shape
+     */
+    T decode(JsonParser parser) throws IOException;
+}
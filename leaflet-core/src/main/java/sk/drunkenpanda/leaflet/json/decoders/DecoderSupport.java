@@ -0,0 +1,172 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.Point;
+
+/**
+ * Helper methods shared by streaming decoders of event payloads.
+ * Methods that read values expect parser to be positioned at the first token of value
+ * and leave it at the last token of value.
+ *
+ * @author Jan Ferko
+ */
+final class DecoderSupport {
+
+    private DecoderSupport() {
+    }
+
+    /**
+     * Moves parser to the start of object.
+     *
+     * @param parser the JSON parser
+     * @throws IOException if next token is not start of object
+     */
+    static void startObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw unexpected(parser);
+        }
+    }
+
+    /**
+     * Moves parser to the next field of current object and then to its value.
+     *
+     * @param parser the JSON parser
+     * @return the name of the field or {@code null} if object has no more fields
+     * @throws IOException if object is malformed
+     */
+    static String nextField(JsonParser parser) throws IOException {
+        final JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        if (token != JsonToken.FIELD_NAME) {
+            throw unexpected(parser);
+        }
+        final String name = parser.getCurrentName();
+        parser.nextToken();
+        return name;
+    }
+
+    static MapEventType readType(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+            throw unexpected(parser);
+        }
+        final MapEventType type = MapEventType.find(parser.getText());
+        if (type == null) {
+            throw unexpected(parser);
+        }
+        return type;
+    }
+
+    static double readDouble(JsonParser parser) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+        if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+            throw unexpected(parser);
+        }
+        return parser.getDoubleValue();
+    }
+
+    /**
+     * Reads geographical point written as {@code [latitude, longitude]}.
+     *
+     * @param parser the JSON parser
+     * @return the geographical point or {@code null} if value is {@code null}
+     * @throws IOException if value is malformed
+     */
+    static LatLng readLatLng(JsonParser parser) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw unexpected(parser);
+        }
+        parser.nextToken();
+        final double latitude = readDouble(parser);
+        parser.nextToken();
+        final double longitude = readDouble(parser);
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+            throw unexpected(parser);
+        }
+        return LatLng.of(latitude, longitude);
+    }
+
+    /**
+     * Reads geographical bounds written as {@code [northEast, southWest]}.
+     *
+     * @param parser the JSON parser
+     * @return the geographical bounds or {@code null} if value is {@code null}
+     * @throws IOException if value is malformed
+     */
+    static LatLngBounds readLatLngBounds(JsonParser parser) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw unexpected(parser);
+        }
+        parser.nextToken();
+        final LatLng northEast = readLatLng(parser);
+        parser.nextToken();
+        final LatLng southWest = readLatLng(parser);
+        if (northEast == null || southWest == null || parser.nextToken() != JsonToken.END_ARRAY) {
+            throw unexpected(parser);
+        }
+        return LatLngBounds.of(northEast, southWest);
+    }
+
+    /**
+     * Reads pixel point written as {@code {"x": x, "y": y}}.
+     *
+     * @param parser the JSON parser
+     * @return the pixel point or {@code null} if value is {@code null}
+     * @throws IOException if value is malformed
+     */
+    static Point readPoint(JsonParser parser) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw unexpected(parser);
+        }
+
+        double x = Double.NaN;
+        double y = Double.NaN;
+        boolean hasX = false;
+        boolean hasY = false;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "x":
+                    x = readDouble(parser);
+                    hasX = true;
+                    break;
+                case "y":
+                    y = readDouble(parser);
+                    hasY = true;
+                    break;
+                default:
+                    throw unexpected(parser);
+            }
+        }
+
+        if (!hasX || !hasY) {
+            throw unexpected(parser);
+        }
+        return Point.of(x, y);
+    }
+
+    static JsonParseException unexpected(JsonParser parser) {
+        return new JsonParseException(parser, "Unexpected token [" + parser.getCurrentToken() + "]");
+    }
+}
@@ -0,0 +1,44 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.DragEndEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Streaming decoder of {@link DragEndEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class DragEndEventDecoder implements StreamingDecoder<DragEndEvent> {
+
+    @Override
+    public DragEndEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        MapEventType type = null;
+        Number distance = null;
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            switch (field) {
+                case "type":
+                    type = DecoderSupport.readType(parser);
+                    break;
+                case "distance":
+                    final JsonToken token = parser.getCurrentToken();
+                    if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+                        throw DecoderSupport.unexpected(parser);
+                    }
+                    distance = parser.getNumberValue();
+                    break;
+                default:
+                    throw DecoderSupport.unexpected(parser);
+            }
+        }
+        return DragEndEvent.of(type, distance);
+    }
+}
@@ -0,0 +1,53 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.ErrorEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Streaming decoder of {@link ErrorEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class ErrorEventDecoder implements StreamingDecoder<ErrorEvent> {
+
+    @Override
+    public ErrorEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        MapEventType type = null;
+        String message = null;
+        Integer code = null;
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            switch (field) {
+                case "type":
+                    type = DecoderSupport.readType(parser);
+                    break;
+                case "message":
+                    if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+                        throw DecoderSupport.unexpected(parser);
+                    }
+                    message = parser.getText();
+                    break;
+                case "code":
+                    if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+                        code = null;
+                    } else if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT) {
+                        code = parser.getIntValue();
+                    } else {
+                        throw DecoderSupport.unexpected(parser);
+                    }
+                    break;
+                default:
+                    throw DecoderSupport.unexpected(parser);
+            }
+        }
+        return ErrorEvent.of(type, message, code);
+    }
+}
@@ -0,0 +1,58 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Streaming decoder of {@link LocationEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class LocationEventDecoder implements StreamingDecoder<LocationEvent> {
+
+    @Override
+    public LocationEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        final LocationEvent.Builder builder = LocationEvent.builder();
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            switch (field) {
+                case "type":
+                    builder.type(DecoderSupport.readType(parser));
+                    break;
+                case "latLng":
+                    builder.latLng(DecoderSupport.readLatLng(parser));
+                    break;
+                case "latLngBounds":
+                    builder.latLngBounds(DecoderSupport.readLatLngBounds(parser));
+                    break;
+                case "accuracy":
+                    builder.accuracy(DecoderSupport.readDouble(parser));
+                    break;
+                case "altitude":
+                    builder.altitude(DecoderSupport.readDouble(parser));
+                    break;
+                case "altitudeAccuracy":
+                    builder.altitudeAccuracy(DecoderSupport.readDouble(parser));
+                    break;
+                case "heading":
+                    builder.heading(DecoderSupport.readDouble(parser));
+                    break;
+                case "speed":
+                    builder.speed(DecoderSupport.readDouble(parser));
+                    break;
+                case "timestamp":
+                    builder.timestamp(DecoderSupport.readDouble(parser));
+                    break;
+                default:
+                    throw DecoderSupport.unexpected(parser);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,43 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Streaming decoder of {@link MouseEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class MouseEventDecoder implements StreamingDecoder<MouseEvent> {
+
+    @Override
+    public MouseEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        final MouseEvent.Builder builder = MouseEvent.builder();
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            switch (field) {
+                case "type":
+                    builder.type(DecoderSupport.readType(parser));
+                    break;
+                case "latLng":
+                    builder.latLng(DecoderSupport.readLatLng(parser));
+                    break;
+                case "layerPoint":
+                    builder.layerPoint(DecoderSupport.readPoint(parser));
+                    break;
+                case "containerPoint":
+                    builder.containerPoint(DecoderSupport.readPoint(parser));
+                    break;
+                default:
+                    throw DecoderSupport.unexpected(parser);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,32 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+
+/**
+ * Streaming decoder of {@link PlainEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class PlainEventDecoder implements StreamingDecoder<PlainEvent> {
+
+    @Override
+    public PlainEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        MapEventType type = null;
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            if (!"type".equals(field)) {
+                throw DecoderSupport.unexpected(parser);
+            }
+            type = DecoderSupport.readType(parser);
+        }
+        return PlainEvent.of(type);
+    }
+}
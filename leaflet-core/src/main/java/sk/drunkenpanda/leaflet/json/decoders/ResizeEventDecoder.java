@@ -0,0 +1,44 @@
+package sk.drunkenpanda.leaflet.json.decoders;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.ResizeEvent;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+import sk.drunkenpanda.leaflet.models.Point;
+
+/**
+ * Streaming decoder of {@link ResizeEvent} payload.
+ *
+ * @author Jan Ferko
+ */
+public final class ResizeEventDecoder implements StreamingDecoder<ResizeEvent> {
+
+    @Override
+    public ResizeEvent decode(JsonParser parser) throws IOException {
+        DecoderSupport.startObject(parser);
+
+        MapEventType type = null;
+        Point oldSize = null;
+        Point newSize = null;
+        String field;
+        while ((field = DecoderSupport.nextField(parser)) != null) {
+            switch (field) {
+                case "type":
+                    type = DecoderSupport.readType(parser);
+                    break;
+                case "oldSize":
+                    oldSize = DecoderSupport.readPoint(parser);
+                    break;
+                case "newSize":
+                    newSize = DecoderSupport.readPoint(parser);
+                    break;
+                default:
+                    throw DecoderSupport.unexpected(parser);
+            }
+        }
+        return ResizeEvent.of(type, oldSize, newSize);
+    }
+}
@@ -0,0 +1,107 @@
+package sk.drunkenpanda.leaflet.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes coordinates rounded to fixed number of decimal places.
+ * Trailing zeros are dropped, so every coordinate is written with the shortest representation
+ * that still holds its value at given precision. Digits are written directly from {@code long},
+ * without formatting number to {@link String} or {@link java.math.BigDecimal}.
+ *
+ * @author Jan Ferko
+ */
+final class CoordinateWriter {
+
+    /** Maximal supported number of decimal places. */
+    static final int MAX_PRECISION = 15;
+
+    /** Values, that can't be scaled to {@code long} without losing integer digits, are written by Jackson. */
+    private static final double MAX_SCALED_VALUE = 1e15;
+
+    private static final int BUFFER_SIZE = 24;
+
+    private static final double[] POWERS_OF_TEN = createPowersOfTen();
+
+    /** Buffer is reused by all coordinates written by thread, it's handed to generator and never escapes write. */
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[BUFFER_SIZE];
+        }
+    };
+
+    private CoordinateWriter() {
+    }
+
+    private static double[] createPowersOfTen() {
+        final double[] powers = new double[MAX_PRECISION + 1];
+        double power = 1.0;
+        for (int i = 0; i < powers.length; i++) {
+            powers[i] = power;
+            power *= 10.0;
+        }
+        return powers;
+    }
+
+    /**
+     * Checks that given number of decimal places is supported.
+     *
+     * @param precision the number of decimal places
+     * @return the given precision
+     * @throws IllegalArgumentException if precision is negative or greater than {@link #MAX_PRECISION}
+     */
+    static int checkPrecision(int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION
+                + ", but was [" + precision + "].");
+        }
+        return precision;
+    }
+
+    /**
+     * Writes coordinate rounded to given number of decimal places.
+     *
+     * @param gen the generator that receives coordinate
+     * @param value the coordinate
+     * @param precision the number of decimal places
+     * @throws IOException if coordinate could not be written
+     */
+    static void write(JsonGenerator gen, double value, int precision) throws IOException {
+        final double scaled = value * POWERS_OF_TEN[precision];
+        if (Double.isNaN(scaled) || Math.abs(scaled) >= MAX_SCALED_VALUE) {
+            gen.writeNumber(value);
+            return;
+        }
+
+        // rounds half away from zero, so negative coordinates are rounded as positive ones
+        long units = Math.round(Math.abs(scaled));
+        final boolean negative = scaled < 0 && units != 0;
+
+        int decimals = precision;
+        while (decimals > 0 && units % 10 == 0) {
+            units /= 10;
+            decimals--;
+        }
+
+        final char[] buffer = BUFFER.get();
+        int position = BUFFER_SIZE;
+        for (int i = 0; i < decimals; i++) {
+            buffer[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        }
+        if (decimals > 0) {
+            buffer[--position] = '.';
+        }
+        do {
+            buffer[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        if (negative) {
+            buffer[--position] = '-';
+        }
+
+        gen.writeRawValue(buffer, position, BUFFER_SIZE - position);
+    }
+}
@@ -0,0 +1,246 @@
+package sk.drunkenpanda.leaflet.json.serializers;
+
+import java.io.IOException;
+
+import org.apache.wicket.util.lang.Args;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import sk.drunkenpanda.leaflet.models.ILayer;
+
+/**
+ * Base serializer of layers, that are written as calls of Leaflet factory functions,
+ * e.g. {@code L.tileLayer(url, options)}.
+ * Whole call is written as single value, so layers can be placed anywhere in JSON.
+ * Arguments are serialized by the same generator as the rest of JSON, so they keep its buffer and indentation,
+ * and strings are escaped, so they can be safely used in JavaScript.
+ * <p>
+ * If writer has {@link #DATA_ATTRIBUTE} set or if output isn't text, e.g. when layer is converted
+ * to tree, call is written as proper JSON, that describes it,
+ * e.g. {@code {"leafletCall":"L.tileLayer","args":[url, options]}}, and it's resolved on client.
+ *
+ * @author Jan Ferko
+ * @param <T> the type of serialized layer
+ */
+public abstract class JavaScriptCallSerializer<T extends ILayer> extends JsonSerializer<T> {
+
+    /** The attribute of writer, that enables writing of calls as proper JSON. */
+    public static final String DATA_ATTRIBUTE = "leaflet.data";
+
+    private static final CharacterEscapes JAVASCRIPT_ESCAPES = new JavaScriptCharacterEscapes();
+
+    private static final PrettyPrinter COMPACT_PRINTER = new MinimalPrettyPrinter(null);
+
+    private final Class<T> layerClass;
+
+    private final String function;
+
+    /**
+     * @param layerClass the class of serialized layers
+     * @param function the name of Leaflet factory function, e.g. {@code L.tileLayer}
+     * @throws IllegalArgumentException if function is not valid JavaScript name
+     */
+    protected JavaScriptCallSerializer(Class<T> layerClass, String function) {
+        Args.notNull(layerClass, "layerClass");
+        Args.notEmpty(function, "function");
+        for (int i = 0; i < function.length(); i++) {
+            final char c = function.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.') {
+                throw new IllegalArgumentException("Function [" + function + "] is not valid JavaScript name.");
+            }
+        }
+
+        this.layerClass = layerClass;
+        this.function = function;
+    }
+
+    @Override
+    public Class<T> handledType() {
+        return layerClass;
+    }
+
+    @Override
+    public final void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (provider.getAttribute(DATA_ATTRIBUTE) != null || gen instanceof TokenBuffer) {
+            gen.writeStartObject();
+            gen.writeStringField("leafletCall", function);
+            gen.writeArrayFieldStart("args");
+            writeArguments(value, new Arguments(gen, provider));
+            gen.writeEndArray();
+            gen.writeEndObject();
+            return;
+        }
+
+        // call is written as array, whose brackets and separators are replaced by printer
+        final PrettyPrinter printer = gen.getPrettyPrinter();
+        final CharacterEscapes escapes = gen.getCharacterEscapes();
+        gen.setPrettyPrinter(new CallPrinter(function, printer != null ? printer : COMPACT_PRINTER));
+        gen.setCharacterEscapes(JAVASCRIPT_ESCAPES);
+        try {
+            gen.writeStartArray();
+            writeArguments(value, new Arguments(gen, provider));
+            gen.writeEndArray();
+        } finally {
+            gen.setPrettyPrinter(printer);
+            gen.setCharacterEscapes(escapes);
+        }
+    }
+
+    /**
+     * Writes arguments of factory function in order, in which function accepts them.
+     *
+     * @param value the serialized layer
+     * @param arguments the writer of arguments
+     * @throws IOException if argument could not be written
+     */
+    protected abstract void writeArguments(T value, Arguments arguments) throws IOException;
+
+    /**
+     * Writer of factory function arguments.
+     */
+    protected static final class Arguments {
+
+        private final JsonGenerator gen;
+
+        private final SerializerProvider provider;
+
+        Arguments(JsonGenerator gen, SerializerProvider provider) {
+            this.gen = gen;
+            this.provider = provider;
+        }
+
+        /**
+         * Writes next argument serialized by Jackson.
+         *
+         * @param value the argument, {@code null} is written as JavaScript {@code null}
+         * @throws IOException if argument could not be written
+         */
+        public void write(Object value) throws IOException {
+            provider.defaultSerializeValue(value, gen);
+        }
+    }
+
+    /**
+     * Printer, that writes array of call as {@code function(arguments)} and leaves formatting of values
+     * around and inside of arguments to printer of generator.
+     */
+    private static final class CallPrinter implements PrettyPrinter {
+
+        private static final String ARGUMENT_SEPARATOR = ", ";
+
+        private final String callPrefix;
+
+        private final PrettyPrinter delegate;
+
+        /** The number of arrays and objects opened since call started, {@code 1} for arguments of call. */
+        private int level;
+
+        CallPrinter(String function, PrettyPrinter delegate) {
+            this.callPrefix = function + "(";
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writeStartArray(JsonGenerator gen) throws IOException {
+            if (level++ == 0) {
+                gen.writeRaw(callPrefix);
+            } else {
+                delegate.writeStartArray(gen);
+            }
+        }
+
+        @Override
+        public void beforeArrayValues(JsonGenerator gen) throws IOException {
+            if (level != 1) {
+                delegate.beforeArrayValues(gen);
+            }
+        }
+
+        @Override
+        public void writeArrayValueSeparator(JsonGenerator gen) throws IOException {
+            if (level == 1) {
+                gen.writeRaw(ARGUMENT_SEPARATOR);
+            } else {
+                delegate.writeArrayValueSeparator(gen);
+            }
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator gen, int nrOfValues) throws IOException {
+            if (--level == 0) {
+                gen.writeRaw(')');
+            } else {
+                delegate.writeEndArray(gen, nrOfValues);
+            }
+        }
+
+        @Override
+        public void writeStartObject(JsonGenerator gen) throws IOException {
+            level++;
+            delegate.writeStartObject(gen);
+        }
+
+        @Override
+        public void writeEndObject(JsonGenerator gen, int nrOfEntries) throws IOException {
+            level--;
+            delegate.writeEndObject(gen, nrOfEntries);
+        }
+
+        @Override
+        public void writeRootValueSeparator(JsonGenerator gen) throws IOException {
+            delegate.writeRootValueSeparator(gen);
+        }
+
+        @Override
+        public void beforeObjectEntries(JsonGenerator gen) throws IOException {
+            delegate.beforeObjectEntries(gen);
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator gen) throws IOException {
+            delegate.writeObjectFieldValueSeparator(gen);
+        }
+
+        @Override
+        public void writeObjectEntrySeparator(JsonGenerator gen) throws IOException {
+            delegate.writeObjectEntrySeparator(gen);
+        }
+    }
+
+    /**
+     * JSON escapes extended with line and paragraph separators, which are not allowed
+     * in JavaScript string literals.
+     */
+    private static final class JavaScriptCharacterEscapes extends CharacterEscapes {
+
+        private static final SerializableString LINE_SEPARATOR = new SerializedString("\\u2028");
+
+        private static final SerializableString PARAGRAPH_SEPARATOR = new SerializedString("\\u2029");
+
+        private final int[] asciiEscapes = standardAsciiEscapesForJSON();
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return asciiEscapes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int ch) {
+            if (ch == 0x2028) {
+                return LINE_SEPARATOR;
+            }
+            if (ch == 0x2029) {
+                return PARAGRAPH_SEPARATOR;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package sk.drunkenpanda.leaflet.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+/**
+ * Serializes geographical point as {@code [latitude, longitude]} with coordinates
+ * rounded to configured number of decimal places.
+ *
+ * @author Jan Ferko
+ */
+public final class LatLngSerializer extends JsonSerializer<LatLng> {
+
+    private final int precision;
+
+    /**
+     * @param precision the number of decimal places of written coordinates
+     * @throws IllegalArgumentException if precision is negative or greater than 15
+     */
+    public LatLngSerializer(int precision) {
+        this.precision = CoordinateWriter.checkPrecision(precision);
+    }
+
+    @Override
+    public void serialize(LatLng value, JsonGenerator gen, SerializerProvider serializerProvider) throws IOException {
+        gen.writeStartArray();
+        CoordinateWriter.write(gen, value.getLatitude(), precision);
+        CoordinateWriter.write(gen, value.getLongitude(), precision);
+        gen.writeEndArray();
+    }
+}
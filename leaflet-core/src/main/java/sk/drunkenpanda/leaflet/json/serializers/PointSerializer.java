@@ -0,0 +1,38 @@
+package sk.drunkenpanda.leaflet.json.serializers;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import sk.drunkenpanda.leaflet.models.Point;
+
+/**
+ * Serializes pixel point as {@code {"x": x, "y": y}} with coordinates
+ * rounded to configured number of decimal places.
+ *
+ * @author Jan Ferko
+ */
+public final class PointSerializer extends JsonSerializer<Point> {
+
+    private final int precision;
+
+    /**
+     * @param precision the number of decimal places of written coordinates
+     * @throws IllegalArgumentException if precision is negative or greater than 15
+     */
+    public PointSerializer(int precision) {
+        this.precision = CoordinateWriter.checkPrecision(precision);
+    }
+
+    @Override
+    public void serialize(Point value, JsonGenerator gen, SerializerProvider serializerProvider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("x");
+        CoordinateWriter.write(gen, value.getX(), precision);
+        gen.writeFieldName("y");
+        CoordinateWriter.write(gen, value.getY(), precision);
+        gen.writeEndObject();
+    }
+}
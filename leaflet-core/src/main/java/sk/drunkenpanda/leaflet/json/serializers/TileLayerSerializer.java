@@ -2,21 +2,22 @@ package sk.drunkenpanda.leaflet.json.serializers;
 
 import java.io.IOException;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
-
 import sk.drunkenpanda.leaflet.models.TileLayer;
 
 /**
+ * Serializes tile layer as {@code L.tileLayer(urlTemplate, options)}.
+ *
  * @author Jan Ferko
  */
-public final class TileLayerSerializer extends JsonSerializer<TileLayer> {
+public final class TileLayerSerializer extends JavaScriptCallSerializer<TileLayer> {
+
+    public TileLayerSerializer() {
+        super(TileLayer.class, "L.tileLayer");
+    }
 
     @Override
-    public void serialize(TileLayer value, JsonGenerator gen, SerializerProvider serializerProvider) throws IOException {
-        gen.writeRaw("L.tileLayer(\"" + value.getUrlTemplate() + "\", ");
-        gen.writeObject(value.getOptions());
-        gen.writeRaw(")");
+    protected void writeArguments(TileLayer value, Arguments arguments) throws IOException {
+        arguments.write(value.getUrlTemplate());
+        arguments.write(value.getOptions());
     }
 }
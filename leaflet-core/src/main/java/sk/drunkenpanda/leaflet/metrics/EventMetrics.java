@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+
+/**
+ * Receiver of measurements of map events handled on server, configured by
+ * {@link sk.drunkenpanda.leaflet.ExtendedLeafletSettings#getEventMetrics()}.
+ * It's called for every event by thread that handled request, so implementation has to be thread-safe and fast.
+ * {@link EventStatistics} keeps statistics in memory and exposes them through JMX, other implementations
+ * can pass measurements to monitoring library used by application.
+ *
+ * @author Jan Ferko
+ */
+public interface EventMetrics {
+
+    /** Metrics, that ignore all measurements. */
+    EventMetrics NONE = new EventMetrics() {
+        @Override
+        public void onEvent(String map, EventType type, int payloadLength, long decodeNanos, long handleNanos,
+                long renderNanos) {
+            // measurements are ignored
+        }
+    };
+
+    /**
+     * Records handled event.
+     *
+     * @param map the identifier of map, that consists of page class and path of map in page
+     * @param type the type of event
+     * @param payloadLength the number of characters of JSON payload sent from client
+     * @param decodeNanos the time spent by decoding of JSON payload in nanoseconds
+     * @param handleNanos the time spent by event handler of application in nanoseconds
+     * @param renderNanos the time spent by rendering of response after event was handled in nanoseconds
+     *      or {@code 0} if there isn't any response
+     */
+    void onEvent(String map, EventType type, int payloadLength, long decodeNanos, long handleNanos, long renderNanos);
+}
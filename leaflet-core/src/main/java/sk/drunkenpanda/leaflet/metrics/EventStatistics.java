@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.components.map.EventType;
+
+/**
+ * Metrics, that keep statistics of handled events in memory. Statistics are kept per event type and per map
+ * in lock-free accumulators, so recording doesn't block request threads.
+ * When configured in {@link sk.drunkenpanda.leaflet.LeafletSettings}, statistics are registered
+ * in platform MBean server as {@code sk.drunkenpanda.leaflet:type=EventStatistics,application=<name>}.
+ * <pre>
+ * Leaflet.install(this, new DefaultLeafletSettings.Builder().setEventMetrics(new EventStatistics()).build());
+ * </pre>
+ *
+ * @author Jan Ferko
+ */
+public final class EventStatistics implements EventMetrics, EventStatisticsMXBean {
+
+    /** The domain of registered MBeans. */
+    public static final String JMX_DOMAIN = "sk.drunkenpanda.leaflet";
+
+    private final ConcurrentMap<String, TypeAccumulator> types = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, MapAccumulator> maps = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(String map, EventType type, int payloadLength, long decodeNanos, long handleNanos,
+            long renderNanos) {
+        TypeAccumulator typeAccumulator = types.get(type.getJavascriptName());
+        if (typeAccumulator == null) {
+            typeAccumulator = putIfAbsent(types, type.getJavascriptName(), new TypeAccumulator());
+        }
+        typeAccumulator.record(payloadLength, decodeNanos, handleNanos, renderNanos);
+
+        MapAccumulator mapAccumulator = maps.get(map);
+        if (mapAccumulator == null) {
+            mapAccumulator = putIfAbsent(maps, map, new MapAccumulator());
+        }
+        mapAccumulator.record(decodeNanos + handleNanos + renderNanos);
+    }
+
+    @Override
+    public long getEventCount() {
+        long count = 0;
+        for (TypeAccumulator accumulator : types.values()) {
+            count += accumulator.count.get();
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, EventTypeStatistics> getEventTypes() {
+        final Map<String, EventTypeStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, TypeAccumulator> entry : types.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public Map<String, MapStatistics> getMaps() {
+        final Map<String, MapStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, MapAccumulator> entry : maps.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    @Override
+    public void reset() {
+        types.clear();
+        maps.clear();
+    }
+
+    /**
+     * Registers statistics in platform MBean server as MBean of given application.
+     * MBean, that is already registered with the same name, is replaced. MBean is unregistered
+     * when application is destroyed.
+     *
+     * @param application the application
+     * @throws IllegalArgumentException if application is {@code null}
+     * @throws IllegalStateException if MBean can't be registered
+     */
+    public void register(Application application) {
+        Args.notNull(application, "application");
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = getObjectName(application);
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException ex) {
+            throw new IllegalStateException("Event statistics can't be registered as [" + name + "].", ex);
+        }
+
+        application.getApplicationListeners().add(new IApplicationListener() {
+            @Override
+            public void onAfterInitialized(Application application) {
+            }
+
+            @Override
+            public void onBeforeDestroyed(Application application) {
+                try {
+                    if (server.isRegistered(name)) {
+                        server.unregisterMBean(name);
+                    }
+                } catch (JMException ex) {
+                    // MBean server is shutting down together with application
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns name of MBean of given application.
+     *
+     * @param application the application
+     * @return the name of MBean
+     */
+    public static ObjectName getObjectName(Application application) {
+        final Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", "EventStatistics");
+        properties.put("application", ObjectName.quote(application.getName()));
+        try {
+            return new ObjectName(JMX_DOMAIN, properties);
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static <T> T putIfAbsent(ConcurrentMap<String, T> accumulators, String key, T accumulator) {
+        final T existing = accumulators.putIfAbsent(key, accumulator);
+        return existing != null ? existing : accumulator;
+    }
+
+    /**
+     * Accumulator of statistics of one event type.
+     */
+    private static final class TypeAccumulator {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong totalPayloadLength = new AtomicLong();
+
+        private final AtomicLong maxPayloadLength = new AtomicLong();
+
+        private final LatencyHistogram decode = new LatencyHistogram();
+
+        private final LatencyHistogram handle = new LatencyHistogram();
+
+        private final LatencyHistogram render = new LatencyHistogram();
+
+        void record(int payloadLength, long decodeNanos, long handleNanos, long renderNanos) {
+            count.incrementAndGet();
+            totalPayloadLength.addAndGet(payloadLength);
+            LatencyHistogram.updateMax(maxPayloadLength, payloadLength);
+            decode.record(decodeNanos);
+            handle.record(handleNanos);
+            render.record(renderNanos);
+        }
+
+        EventTypeStatistics snapshot() {
+            return new EventTypeStatistics(count.get(), totalPayloadLength.get(), maxPayloadLength.get(),
+                    decode.snapshot(), handle.snapshot(), render.snapshot());
+        }
+    }
+
+    /**
+     * Accumulator of statistics of one map.
+     */
+    private static final class MapAccumulator {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+        }
+
+        MapStatistics snapshot() {
+            return new MapStatistics(count.get(), TimeUnit.NANOSECONDS.toMicros(totalNanos.get()));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link EventStatistics}.
+ *
+ * @author Jan Ferko
+ */
+public interface EventStatisticsMXBean {
+
+    /**
+     * @return the number of all handled events
+     */
+    long getEventCount();
+
+    /**
+     * @return the statistics by javascript names of event types
+     */
+    Map<String, EventTypeStatistics> getEventTypes();
+
+    /**
+     * @return the statistics by identifiers of maps
+     */
+    Map<String, MapStatistics> getMaps();
+
+    /**
+     * Removes all recorded statistics.
+     */
+    void reset();
+}
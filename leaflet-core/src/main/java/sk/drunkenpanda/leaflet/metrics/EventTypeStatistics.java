@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of statistics of one event type.
+ *
+ * @author Jan Ferko
+ */
+public final class EventTypeStatistics {
+
+    private final long eventCount;
+
+    private final long totalPayloadLength;
+
+    private final long maxPayloadLength;
+
+    private final LatencyStatistics decode;
+
+    private final LatencyStatistics handle;
+
+    private final LatencyStatistics render;
+
+    @ConstructorProperties({"eventCount", "totalPayloadLength", "maxPayloadLength", "decode", "handle", "render"})
+    public EventTypeStatistics(long eventCount, long totalPayloadLength, long maxPayloadLength,
+            LatencyStatistics decode, LatencyStatistics handle, LatencyStatistics render) {
+        this.eventCount = eventCount;
+        this.totalPayloadLength = totalPayloadLength;
+        this.maxPayloadLength = maxPayloadLength;
+        this.decode = decode;
+        this.handle = handle;
+        this.render = render;
+    }
+
+    /**
+     * @return the number of handled events
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return the number of characters of all received payloads
+     */
+    public long getTotalPayloadLength() {
+        return totalPayloadLength;
+    }
+
+    /**
+     * @return the number of characters of the longest received payload
+     */
+    public long getMaxPayloadLength() {
+        return maxPayloadLength;
+    }
+
+    /**
+     * @return the latencies of decoding of JSON payload
+     */
+    public LatencyStatistics getDecode() {
+        return decode;
+    }
+
+    /**
+     * @return the latencies of event handlers of application
+     */
+    public LatencyStatistics getHandle() {
+        return handle;
+    }
+
+    /**
+     * @return the latencies of response rendering
+     */
+    public LatencyStatistics getRender() {
+        return render;
+    }
+
+    @Override
+    public String toString() {
+        return "EventTypeStatistics{eventCount=" + eventCount + ", totalPayloadLength=" + totalPayloadLength
+                + ", maxPayloadLength=" + maxPayloadLength + ", decode=" + decode + ", handle=" + handle
+                + ", render=" + render + "}";
+    }
+}
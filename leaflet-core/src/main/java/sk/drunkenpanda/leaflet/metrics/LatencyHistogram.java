@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds. Bucket {@code i} counts latencies lower than
+ * {@code 2^i} microseconds, so percentiles are precise up to factor of two, which is enough to see
+ * where the time goes.
+ *
+ * @author Jan Ferko
+ */
+final class LatencyHistogram {
+
+    /** The number of buckets, the last one counts latencies longer than about 17 minutes. */
+    private static final int BUCKETS = 31;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0L));
+        buckets.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1));
+        count.incrementAndGet();
+        total.addAndGet(micros);
+        updateMax(max, micros);
+    }
+
+    LatencyStatistics snapshot() {
+        final long[] counts = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            recorded += counts[i];
+        }
+
+        final long maxMicros = max.get();
+        return new LatencyStatistics(recorded, recorded > 0 ? total.get() / recorded : 0, maxMicros,
+                percentile(counts, recorded, 0.5, maxMicros), percentile(counts, recorded, 0.95, maxMicros),
+                percentile(counts, recorded, 0.99, maxMicros));
+    }
+
+    private static long percentile(long[] counts, long recorded, double quantile, long maxMicros) {
+        final long rank = (long) Math.ceil(recorded * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                // upper bound of bucket, but never more than the longest recorded latency
+                return Math.min((1L << i) - 1, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of latencies of one phase of event handling. All times are in microseconds.
+ *
+ * @author Jan Ferko
+ */
+public final class LatencyStatistics {
+
+    private final long count;
+
+    private final long mean;
+
+    private final long max;
+
+    private final long p50;
+
+    private final long p95;
+
+    private final long p99;
+
+    @ConstructorProperties({"count", "mean", "max", "p50", "p95", "p99"})
+    public LatencyStatistics(long count, long mean, long max, long p50, long p95, long p99) {
+        this.count = count;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    /**
+     * @return the number of measured events
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean latency
+     */
+    public long getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the maximal latency
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the median latency
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * @return the 95th percentile of latency
+     */
+    public long getP95() {
+        return p95;
+    }
+
+    /**
+     * @return the 99th percentile of latency
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStatistics{count=" + count + ", mean=" + mean + ", max=" + max
+                + ", p50=" + p50 + ", p95=" + p95 + ", p99=" + p99 + "}";
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of statistics of one map.
+ *
+ * @author Jan Ferko
+ */
+public final class MapStatistics {
+
+    private final long eventCount;
+
+    private final long totalMicros;
+
+    @ConstructorProperties({"eventCount", "totalMicros"})
+    public MapStatistics(long eventCount, long totalMicros) {
+        this.eventCount = eventCount;
+        this.totalMicros = totalMicros;
+    }
+
+    /**
+     * @return the number of events handled by map
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return the time spent by decoding, handling and rendering of events of map in microseconds
+     */
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "MapStatistics{eventCount=" + eventCount + ", totalMicros=" + totalMicros + "}";
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.models;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Layer of features shared by all maps, that show it, e.g. positions of vehicles in fleet.
+ * Features are kept in copy-on-write snapshot, so any number of threads can read layer without locking,
+ * while writes are serialized. Every write creates new version of layer and it's recorded in change log
+ * of limited size.
+ * <p>
+ * Viewers keep version they've seen last and ask for {@link #changesSince(long) changes since} that version.
+ * Changes are coalesced per feature, so slow viewer gets one delta with the latest state of features instead
+ * of every change it missed. Viewer, that is behind the oldest change in log, gets whole snapshot.
+ * Deltas are cached for current version, so viewers at the same version share the same delta.
+ * <p>
+ * Layer is meant to be application wide, so it isn't serializable and it shouldn't be referenced by components.
+ *
+ * @author Jan Ferko
+ */
+public final class LiveLayer {
+
+    /** The default number of changes kept in change log. */
+    public static final int DEFAULT_LOG_SIZE = 1024;
+
+    private final int logSize;
+
+    private final ArrayDeque<Change> log;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile State state = new State(0L, Collections.<String, Feature>emptyMap());
+
+    /**
+     * Constructor creates new empty layer with change log of {@link #DEFAULT_LOG_SIZE default size}.
+     */
+    public LiveLayer() {
+        this(DEFAULT_LOG_SIZE);
+    }
+
+    /**
+     * Constructor creates new empty layer with change log of given size.
+     *
+     * @param logSize the maximal number of changes kept in change log
+     * @throws IllegalArgumentException if size isn't positive
+     */
+    public LiveLayer(int logSize) {
+        this.logSize = Args.withinRange(1, Integer.MAX_VALUE, logSize, "logSize");
+        this.log = new ArrayDeque<>(Math.min(logSize, DEFAULT_LOG_SIZE));
+    }
+
+    /**
+     * @return the current version of layer, {@code 0} for layer that was never changed
+     */
+    public long getVersion() {
+        return state.version;
+    }
+
+    /**
+     * Returns features of current version. Returned map never changes.
+     *
+     * @return the features by id
+     */
+    public Map<String, Feature> getFeatures() {
+        return state.features;
+    }
+
+    /**
+     * Adds feature with given id to layer or replaces feature with the same id.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @return the new version of layer
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public long put(String id, LatLng latLng) {
+        return put(id, latLng, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Adds feature with given id and marker options to layer or replaces feature with the same id.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @param options the options of Leaflet marker, e.g. {@code title} or {@code opacity}
+     * @return the new version of layer
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public long put(String id, LatLng latLng, Map<String, ?> options) {
+        final Feature feature = new Feature(Args.notNull(id, "id"), Args.notNull(latLng, "latLng"),
+                Collections.unmodifiableMap(new LinkedHashMap<String, Object>(Args.notNull(options, "options"))));
+        final long version;
+        synchronized (log) {
+            version = update(id, feature, false);
+        }
+        notifyListeners();
+        return version;
+    }
+
+    /**
+     * Moves feature with given id. Options of feature are kept. It does nothing, if layer doesn't contain feature.
+     *
+     * @param id the id of feature
+     * @param latLng the new position of feature
+     * @return the version of layer after move
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public long move(String id, LatLng latLng) {
+        Args.notNull(id, "id");
+        Args.notNull(latLng, "latLng");
+
+        final long version;
+        synchronized (log) {
+            final Feature feature = state.features.get(id);
+            if (feature == null) {
+                return state.version;
+            }
+            version = update(id, new Feature(id, latLng, feature.options), true);
+        }
+        notifyListeners();
+        return version;
+    }
+
+    /**
+     * Removes feature with given id. It does nothing, if layer doesn't contain feature.
+     *
+     * @param id the id of feature
+     * @return the version of layer after removal
+     */
+    public long remove(String id) {
+        if (id == null) {
+            return state.version;
+        }
+
+        final long version;
+        synchronized (log) {
+            if (!state.features.containsKey(id)) {
+                return state.version;
+            }
+            version = update(id, null, false);
+        }
+        notifyListeners();
+        return version;
+    }
+
+    /**
+     * Returns changes made after given version coalesced per feature.
+     *
+     * @param version the version, that viewer has seen last, {@code 0} for viewer that hasn't seen anything yet
+     * @return the delta between given and current version
+     */
+    public Delta changesSince(long version) {
+        final State current = state;
+        Delta delta = current.deltas.get(version);
+        if (delta == null) {
+            synchronized (log) {
+                delta = coalesce(current, version);
+            }
+            final Delta existing = current.deltas.putIfAbsent(version, delta);
+            if (existing != null) {
+                delta = existing;
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Adds listener, that is notified after every change of layer.
+     *
+     * @param listener the listener
+     * @throws IllegalArgumentException if listener is {@code null}
+     */
+    public void addListener(Listener listener) {
+        listeners.add(Args.notNull(listener, "listener"));
+    }
+
+    /**
+     * Removes listener of layer.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private long update(String id, Feature feature, boolean move) {
+        final State current = state;
+        final Map<String, Feature> features = new LinkedHashMap<>(current.features);
+        if (feature != null) {
+            features.put(id, feature);
+        } else {
+            features.remove(id);
+        }
+
+        final long version = current.version + 1;
+        if (log.size() == logSize) {
+            log.removeFirst();
+        }
+        log.addLast(new Change(version, id, feature, move));
+        state = new State(version, Collections.unmodifiableMap(features));
+        return version;
+    }
+
+    private Delta coalesce(State current, long version) {
+        if (version == current.version) {
+            return new Delta(current.version, false, Collections.<Feature>emptyList(),
+                    Collections.<Feature>emptyList(), Collections.<String>emptyList());
+        }
+
+        // changes of state can be already trimmed from log, so viewer gets whole snapshot
+        final Change oldest = log.peekFirst();
+        if (version < 0 || version > current.version || oldest == null || oldest.version > version + 1) {
+            return new Delta(current.version, true, new ArrayList<>(current.features.values()),
+                    Collections.<Feature>emptyList(), Collections.<String>emptyList());
+        }
+
+        final Map<String, Change> coalesced = new LinkedHashMap<>();
+        final Iterator<Change> changes = log.iterator();
+        while (changes.hasNext()) {
+            final Change change = changes.next();
+            if (change.version <= version) {
+                continue;
+            }
+            if (change.version > current.version) {
+                break;
+            }
+
+            final Change previous = coalesced.get(change.id);
+            coalesced.put(change.id, previous == null ? change
+                    : new Change(change.version, change.id, change.feature, previous.move && change.move));
+        }
+
+        final List<Feature> added = new ArrayList<>();
+        final List<Feature> moved = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        for (Change change : coalesced.values()) {
+            if (change.feature == null) {
+                removed.add(change.id);
+            } else if (change.move) {
+                moved.add(change.feature);
+            } else {
+                added.add(change.feature);
+            }
+        }
+        return new Delta(current.version, false, added, moved, removed);
+    }
+
+    private void notifyListeners() {
+        for (Listener listener : listeners) {
+            listener.onChange(this);
+        }
+    }
+
+    /**
+     * Listener of changes of layer. Listener is called by thread, that changed layer, after change is made.
+     */
+    public interface Listener {
+
+        /**
+         * Called after layer is changed.
+         *
+         * @param layer the changed layer
+         */
+        void onChange(LiveLayer layer);
+    }
+
+    /**
+     * Feature of layer shown on map as marker.
+     */
+    public static final class Feature implements Serializable {
+
+        private static final long serialVersionUID = 20171018170000L;
+
+        private final String id;
+
+        private final LatLng latLng;
+
+        private final Map<String, Object> options;
+
+        Feature(String id, LatLng latLng, Map<String, Object> options) {
+            this.id = id;
+            this.latLng = latLng;
+            this.options = options;
+        }
+
+        /**
+         * @return the id of feature
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the position of feature
+         */
+        public LatLng getLatLng() {
+            return latLng;
+        }
+
+        /**
+         * @return the options of Leaflet marker
+         */
+        public Map<String, Object> getOptions() {
+            return options;
+        }
+
+        @Override
+        public String toString() {
+            return "Feature{id=" + id + ", latLng=" + latLng + ", options=" + options + "}";
+        }
+    }
+
+    /**
+     * Changes of layer between two versions, with at most one change per feature.
+     */
+    public static final class Delta {
+
+        private final long version;
+
+        private final boolean reset;
+
+        private final List<Feature> added;
+
+        private final List<Feature> moved;
+
+        private final List<String> removed;
+
+        Delta(long version, boolean reset, List<Feature> added, List<Feature> moved, List<String> removed) {
+            this.version = version;
+            this.reset = reset;
+            this.added = Collections.unmodifiableList(added);
+            this.moved = Collections.unmodifiableList(moved);
+            this.removed = Collections.unmodifiableList(removed);
+        }
+
+        /**
+         * @return the version of layer after delta is applied
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Checks whether viewer has to remove all features before delta is applied,
+         * because delta contains whole snapshot of layer.
+         *
+         * @return {@code true} if delta contains whole snapshot, {@code false} otherwise
+         */
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * @return the features, that were added or replaced
+         */
+        public List<Feature> getAdded() {
+            return added;
+        }
+
+        /**
+         * @return the features, that were only moved
+         */
+        public List<Feature> getMoved() {
+            return moved;
+        }
+
+        /**
+         * @return the ids of removed features
+         */
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return {@code true} if delta doesn't change anything, {@code false} otherwise
+         */
+        public boolean isEmpty() {
+            return !reset && added.isEmpty() && moved.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    /**
+     * Recorded change of single feature.
+     */
+    private static final class Change {
+
+        private final long version;
+
+        private final String id;
+
+        private final Feature feature;
+
+        private final boolean move;
+
+        Change(long version, String id, Feature feature, boolean move) {
+            this.version = version;
+            this.id = id;
+            this.feature = feature;
+            this.move = move;
+        }
+    }
+
+    /**
+     * Snapshot of features with deltas computed for it.
+     */
+    private static final class State {
+
+        private final long version;
+
+        private final Map<String, Feature> features;
+
+        private final ConcurrentMap<Long, Delta> deltas = new ConcurrentHashMap<>();
+
+        State(long version, Map<String, Feature> features) {
+            this.version = version;
+            this.features = features;
+        }
+    }
+}
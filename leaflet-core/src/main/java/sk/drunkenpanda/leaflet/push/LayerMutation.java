@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.push;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+/**
+ * Change of feature in pushed layer. Feature is identified by id and it's shown on map as marker.
+ * Mutation is written to wire as short JSON array:
+ * <ul>
+ * <li>{@code ["a", id, [lat, lng], options]} adds feature or replaces feature with the same id,
+ * options are written only if they aren't empty,</li>
+ * <li>{@code ["m", id, [lat, lng]]} moves feature,</li>
+ * <li>{@code ["r", id]} removes feature,</li>
+ * <li>{@code ["c"]} removes all features.</li>
+ * </ul>
+ *
+ * @author Jan Ferko
+ */
+public final class LayerMutation implements Serializable {
+
+    private static final long serialVersionUID = 20171018160000L;
+
+    private final String operation;
+
+    private final String id;
+
+    private final LatLng latLng;
+
+    private final Map<String, Object> options;
+
+    private LayerMutation(String operation, String id, LatLng latLng, Map<String, Object> options) {
+        this.operation = operation;
+        this.id = id;
+        this.latLng = latLng;
+        this.options = options;
+    }
+
+    /**
+     * Returns mutation, that adds feature with given id to layer.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @return the mutation
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public static LayerMutation add(String id, LatLng latLng) {
+        return add(id, latLng, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Returns mutation, that adds feature with given id and marker options to layer.
+     *
+     * @param id the id of feature
+     * @param latLng the position of feature
+     * @param options the options of Leaflet marker, e.g. {@code title} or {@code opacity}
+     * @return the mutation
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public static LayerMutation add(String id, LatLng latLng, Map<String, ?> options) {
+        Args.notNull(options, "options");
+        return new LayerMutation("a", Args.notNull(id, "id"), Args.notNull(latLng, "latLng"),
+                Collections.unmodifiableMap(new LinkedHashMap<String, Object>(options)));
+    }
+
+    /**
+     * Returns mutation, that moves feature with given id.
+     *
+     * @param id the id of feature
+     * @param latLng the new position of feature
+     * @return the mutation
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public static LayerMutation move(String id, LatLng latLng) {
+        return new LayerMutation("m", Args.notNull(id, "id"), Args.notNull(latLng, "latLng"), null);
+    }
+
+    /**
+     * Returns mutation, that removes feature with given id.
+     *
+     * @param id the id of feature
+     * @return the mutation
+     * @throws IllegalArgumentException if id is {@code null}
+     */
+    public static LayerMutation remove(String id) {
+        return new LayerMutation("r", Args.notNull(id, "id"), null, null);
+    }
+
+    /**
+     * Returns mutation, that removes all features from layer.
+     *
+     * @return the mutation
+     */
+    public static LayerMutation clear() {
+        return new LayerMutation("c", null, null, null);
+    }
+
+    /**
+     * @return the id of changed feature or {@code null} if all features are removed
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the position of feature or {@code null} if feature is removed
+     */
+    public LatLng getLatLng() {
+        return latLng;
+    }
+
+    /**
+     * Returns values written to wire.
+     *
+     * @return the values of JSON array
+     */
+    List<Object> toWire() {
+        final List<Object> wire = new ArrayList<>(4);
+        wire.add(operation);
+        if (id != null) {
+            wire.add(id);
+        }
+        if (latLng != null) {
+            wire.add(latLng);
+        }
+        if (options != null && !options.isEmpty()) {
+            wire.add(options);
+        }
+        return wire;
+    }
+
+    @Override
+    public String toString() {
+        return "LayerMutation" + toWire();
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.push;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.protocol.ws.api.registry.IKey;
+import org.apache.wicket.protocol.ws.api.registry.IWebSocketConnectionRegistry;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.Leaflet;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LiveLayer;
+
+/**
+ * Publisher of layer mutations to maps with {@link LayerPushBehavior}.
+ * Maps subscribe to topic and every mutation published to topic is sent through WebSocket to all
+ * connected views. Mutations are written to JSON only once per publish, no matter how many views are connected:
+ * <pre>
+ * {"leafletPush":"vehicles","ops":[["m","bus-12",[48.1486,17.1077]],["r","bus-7"]]}
+ * </pre>
+ * Topic can also {@link #share(String, LiveLayer) share} live layer, so views get changes of layer coalesced
+ * per view. Changes of shared layers are sent by {@link #setExecutor(Executor) executor}, so thread, that changes
+ * layer, never waits for views.
+ * Publisher can be used from any thread, e.g. from thread that receives vehicle positions.
+ * Leaflet must be installed in application,
+ * see {@link Leaflet#install(org.apache.wicket.protocol.http.WebApplication)}.
+ *
+ * @author Jan Ferko
+ * @see LayerMutation
+ */
+public final class LayerPush {
+
+    /** Meta key, that is used to identify publisher of application. */
+    private static final MetaDataKey<LayerPush> PUSH_KEY = new MetaDataKey<LayerPush>() {};
+
+    private final Application application;
+
+    private final ConcurrentMap<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Sharing> sharings = new ConcurrentHashMap<>();
+
+    private volatile Executor executor;
+
+    private ExecutorService ownExecutor;
+
+    private LayerPush(Application application) {
+        this.application = application;
+    }
+
+    /**
+     * Returns publisher of given application. Publisher is created when it's requested for the first time.
+     *
+     * @param application the application
+     * @return the publisher of application
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static LayerPush get(Application application) {
+        Args.notNull(application, "application");
+
+        LayerPush push = application.getMetaData(PUSH_KEY);
+        if (push == null) {
+            synchronized (PUSH_KEY) {
+                push = application.getMetaData(PUSH_KEY);
+                if (push == null) {
+                    push = new LayerPush(application);
+                    application.setMetaData(PUSH_KEY, push);
+                    application.getApplicationListeners().add(new ExecutorDestroyer(push));
+                }
+            }
+        }
+        return push;
+    }
+
+    /**
+     * Sends given mutations to all views subscribed to topic.
+     *
+     * @param topic the topic
+     * @param mutations the mutations applied in given order
+     * @return the number of views, that received mutations
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public int publish(String topic, LayerMutation... mutations) {
+        Args.notNull(mutations, "mutations");
+        return publish(topic, Arrays.asList(mutations));
+    }
+
+    /**
+     * Sends given mutations to all views subscribed to topic. Mutations are sent by calling thread
+     * to one view after another, so method returns after all views received them.
+     *
+     * @param topic the topic
+     * @param mutations the mutations applied in given order
+     * @return the number of views, that received mutations
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public int publish(String topic, List<LayerMutation> mutations) {
+        Args.notNull(topic, "topic");
+        Args.notNull(mutations, "mutations");
+
+        final Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null || subscribers.isEmpty() || mutations.isEmpty()) {
+            return 0;
+        }
+
+        final String message = toMessage(getRenderer(), topic, mutations);
+        final IWebSocketConnectionRegistry registry =
+                WebSocketSettings.Holder.get(application).getConnectionRegistry();
+
+        int delivered = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (send(subscribers, subscriber, message, registry)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Shares given layer with all views subscribed to topic. Every view gets current features of layer,
+     * when it subscribes, and then changes of layer, when layer is changed. Changes are sent to every view
+     * by separate task of {@link #setExecutor(Executor) executor}, so thread, that changed layer, doesn't send
+     * anything. If view is still receiving previous changes, all newer changes are sent to it coalesced
+     * in one message after it's done, so slow view gets one delta instead of backlog of messages.
+     * Mutations shouldn't be {@link #publish(String, List) published} to topic with shared layer.
+     * Layer is shared until it is {@link #unshare(String) unshared}.
+     *
+     * @param topic the topic
+     * @param layer the shared layer
+     * @throws IllegalArgumentException if any argument is {@code null}
+     * @throws IllegalStateException if topic already shares another layer
+     */
+    public void share(String topic, LiveLayer layer) {
+        Args.notNull(topic, "topic");
+        Args.notNull(layer, "layer");
+
+        final Sharing sharing = new Sharing(topic, layer);
+        if (sharings.putIfAbsent(topic, sharing) != null) {
+            throw new IllegalStateException("Topic [" + topic + "] already shares layer.");
+        }
+        layer.addListener(sharing);
+        sharing.onChange(layer);
+    }
+
+    /**
+     * Stops sharing of layer with topic. Views keep features, that they already received,
+     * and layer isn't referenced by this publisher anymore.
+     *
+     * @param topic the topic
+     * @return the layer, that was shared with topic, or {@code null} if topic didn't share any layer
+     */
+    public LiveLayer unshare(String topic) {
+        final Sharing sharing = topic != null ? sharings.remove(topic) : null;
+        if (sharing == null) {
+            return null;
+        }
+        sharing.layer.removeListener(sharing);
+        return sharing.layer;
+    }
+
+    /**
+     * Sets executor, that sends changes of shared layers to views. By default, changes are sent by pool
+     * of daemon threads, that is shut down together with application.
+     *
+     * @param executor the executor
+     * @throws IllegalArgumentException if executor is {@code null}
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Args.notNull(executor, "executor");
+    }
+
+    /**
+     * Returns number of views subscribed to given topic.
+     *
+     * @param topic the topic
+     * @return the number of subscribed views
+     */
+    public int getSubscriberCount(String topic) {
+        final Set<Subscriber> subscribers = topic != null ? topics.get(topic) : null;
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    void subscribe(String topic, String sessionId, IKey key) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers == null) {
+            subscribers = Collections.newSetFromMap(new ConcurrentHashMap<Subscriber, Boolean>());
+            final Set<Subscriber> existing = topics.putIfAbsent(topic, subscribers);
+            if (existing != null) {
+                subscribers = existing;
+            }
+        }
+        final Subscriber subscriber = new Subscriber(sessionId, key);
+        final Sharing sharing = sharings.get(topic);
+        if (subscribers.add(subscriber) && sharing != null) {
+            schedule(sharing, subscribers, subscriber);
+        }
+    }
+
+    void unsubscribe(String topic, String sessionId, IKey key) {
+        final Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers != null) {
+            subscribers.remove(new Subscriber(sessionId, key));
+        }
+    }
+
+    private JsonRenderer getRenderer() {
+        // messages are always compact, no matter how JSON of pages is rendered
+        return JsonRendererFactory.getJsonRenderer(JsonProfile.DEPLOYMENT,
+                Leaflet.getExtendedSettings(application).getCoordinatePrecision());
+    }
+
+    private boolean send(Set<Subscriber> subscribers, Subscriber subscriber, String message,
+            IWebSocketConnectionRegistry registry) {
+        final IWebSocketConnection connection =
+                registry.getConnection(application, subscriber.sessionId, subscriber.key);
+        if (connection == null || !connection.isOpen()) {
+            subscribers.remove(subscriber);
+            return false;
+        }
+
+        try {
+            // connection doesn't support concurrent writes from several publishing threads
+            synchronized (connection) {
+                connection.sendMessage(message);
+            }
+            return true;
+        } catch (IOException ex) {
+            subscribers.remove(subscriber);
+            return false;
+        }
+    }
+
+    private void schedule(final Sharing sharing, final Set<Subscriber> subscribers, final Subscriber subscriber) {
+        // subscriber with scheduled task gets this change together with others, once task runs
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(sharing, subscribers, subscriber);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void deliver(Sharing sharing, Set<Subscriber> subscribers, Subscriber subscriber) {
+        final IWebSocketConnectionRegistry registry =
+                WebSocketSettings.Holder.get(application).getConnectionRegistry();
+        while (true) {
+            while (subscriber.cursor != sharing.layer.getVersion()) {
+                final LiveLayer.Delta delta = sharing.layer.changesSince(subscriber.cursor);
+                if (!delta.isEmpty() && !send(subscribers, subscriber, sharing.toMessage(delta), registry)) {
+                    return;
+                }
+                subscriber.cursor = delta.getVersion();
+            }
+
+            subscriber.scheduled.set(false);
+            // change made after the last check didn't schedule task, so it's sent by this one
+            if (subscriber.cursor == sharing.layer.getVersion() || !subscriber.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private Executor getExecutor() {
+        final Executor current = executor;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (executor == null) {
+                final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new PushThreadFactory(application.getName()));
+                pool.allowCoreThreadTimeOut(true);
+                ownExecutor = pool;
+                executor = pool;
+            }
+            return executor;
+        }
+    }
+
+    private synchronized void shutdown() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    static List<LayerMutation> toMutations(LiveLayer.Delta delta) {
+        final List<LayerMutation> mutations = new ArrayList<>(
+                delta.getAdded().size() + delta.getMoved().size() + delta.getRemoved().size() + 1);
+        if (delta.isReset()) {
+            mutations.add(LayerMutation.clear());
+        }
+        for (String id : delta.getRemoved()) {
+            mutations.add(LayerMutation.remove(id));
+        }
+        for (LiveLayer.Feature feature : delta.getAdded()) {
+            mutations.add(LayerMutation.add(feature.getId(), feature.getLatLng(), feature.getOptions()));
+        }
+        for (LiveLayer.Feature feature : delta.getMoved()) {
+            mutations.add(LayerMutation.move(feature.getId(), feature.getLatLng()));
+        }
+        return mutations;
+    }
+
+    static String toMessage(JsonRenderer renderer, String topic, List<LayerMutation> mutations) {
+        final List<List<Object>> ops = new ArrayList<>(mutations.size());
+        for (LayerMutation mutation : mutations) {
+            ops.add(Args.notNull(mutation, "mutation").toWire());
+        }
+
+        final Map<String, Object> message = new LinkedHashMap<>(2);
+        message.put("leafletPush", topic);
+        message.put("ops", ops);
+        return renderer.toJson(message);
+    }
+
+    /**
+     * Layer shared with topic.
+     */
+    private final class Sharing implements LiveLayer.Listener {
+
+        private final String topic;
+
+        private final LiveLayer layer;
+
+        /** Messages of deltas, that are dropped together with deltas of older versions. */
+        private final Map<LiveLayer.Delta, String> messages =
+                Collections.synchronizedMap(new WeakHashMap<LiveLayer.Delta, String>());
+
+        Sharing(String topic, LiveLayer layer) {
+            this.topic = topic;
+            this.layer = layer;
+        }
+
+        @Override
+        public void onChange(LiveLayer layer) {
+            final Set<Subscriber> subscribers = topics.get(topic);
+            if (subscribers == null || subscribers.isEmpty()) {
+                return;
+            }
+
+            for (Subscriber subscriber : subscribers) {
+                schedule(this, subscribers, subscriber);
+            }
+        }
+
+        String toMessage(LiveLayer.Delta delta) {
+            String message = messages.get(delta);
+            if (message == null) {
+                message = LayerPush.toMessage(getRenderer(), topic, toMutations(delta));
+                messages.put(delta, message);
+            }
+            return message;
+        }
+    }
+
+    /**
+     * Shuts down executor of publisher, when application is destroyed.
+     */
+    private static final class ExecutorDestroyer implements IApplicationListener {
+
+        private final LayerPush push;
+
+        ExecutorDestroyer(LayerPush push) {
+            this.push = push;
+        }
+
+        @Override
+        public void onAfterInitialized(Application application) {
+        }
+
+        @Override
+        public void onBeforeDestroyed(Application application) {
+            push.shutdown();
+        }
+    }
+
+    /**
+     * Factory of daemon threads, that send changes of shared layers.
+     */
+    private static final class PushThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        PushThreadFactory(String applicationName) {
+            this.prefix = "leaflet-push-" + applicationName + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * WebSocket connection of view subscribed to topic.
+     */
+    private static final class Subscriber {
+
+        private final String sessionId;
+
+        private final IKey key;
+
+        /** The version of shared layer, that was sent to view last. */
+        private volatile long cursor;
+
+        /** The indicator whether task, that sends changes of shared layer to view, is scheduled. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscriber(String sessionId, IKey key) {
+            this.sessionId = sessionId;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Subscriber)) {
+                return false;
+            }
+            final Subscriber other = (Subscriber) obj;
+            return sessionId.equals(other.sessionId) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sessionId.hashCode() + key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.push;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.head.OnLoadHeaderItem;
+import org.apache.wicket.protocol.ws.api.WebSocketBehavior;
+import org.apache.wicket.protocol.ws.api.message.AbortedMessage;
+import org.apache.wicket.protocol.ws.api.message.ClosedMessage;
+import org.apache.wicket.protocol.ws.api.message.ConnectedMessage;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+
+/**
+ * Behavior that shows layer of features pushed to map through WebSocket.
+ * Map subscribes to topic when its WebSocket connection is opened and features are updated on client
+ * whenever mutations are published to the topic with {@link LayerPush}, without any request from client.
+ * <pre>
+ * map.add(new LayerPushBehavior("vehicles"));
+ * ...
+ * LayerPush.get(application).publish("vehicles", LayerMutation.move("bus-12", LatLng.of(48.1486, 17.1077)));
+ * </pre>
+ * Application has to run in container supported by Wicket Native WebSocket.
+ *
+ * @author Jan Ferko
+ */
+public class LayerPushBehavior extends WebSocketBehavior {
+
+    private static final long serialVersionUID = 20171018160001L;
+
+    private static final ResourceReference JS_REFERENCE =
+            new JavaScriptResourceReference(LayerPushBehavior.class, "LayerPush.js");
+
+    private final String topic;
+
+    /**
+     * Constructor creates new behavior, that subscribes map to given topic.
+     *
+     * @param topic the topic of pushed layer
+     * @throws IllegalArgumentException if topic is {@code null} or empty
+     */
+    public LayerPushBehavior(String topic) {
+        this.topic = Args.notEmpty(topic, "topic");
+    }
+
+    /**
+     * @return the topic of pushed layer
+     */
+    public final String getTopic() {
+        return this.topic;
+    }
+
+    @Override
+    protected void onConnect(ConnectedMessage message) {
+        super.onConnect(message);
+        LayerPush.get(message.getApplication()).subscribe(topic, message.getSessionId(), message.getKey());
+    }
+
+    @Override
+    protected void onClose(ClosedMessage message) {
+        LayerPush.get(message.getApplication()).unsubscribe(topic, message.getSessionId(), message.getKey());
+        super.onClose(message);
+    }
+
+    @Override
+    protected void onAbort(AbortedMessage message) {
+        LayerPush.get(message.getApplication()).unsubscribe(topic, message.getSessionId(), message.getKey());
+        super.onAbort(message);
+    }
+
+    @Override
+    public void renderHead(Component component, IHeaderResponse response) {
+        super.renderHead(component, response);
+        response.render(JavaScriptHeaderItem.forReference(JS_REFERENCE));
+        response.render(OnLoadHeaderItem.forScript(getInitializationScript((Map) component)));
+    }
+
+    /**
+     * Returns script that creates pushed layer on client.
+     *
+     * @param map the map
+     * @return the initialization script
+     */
+    String getInitializationScript(Map map) {
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+        if (map.isLazyInitialization()) {
+            // layer receives messages before map is created, so it's up to date, when it's shown
+            return "WicketLeaflet.LayerPush.bindLazily(" + renderer.toJson(map.getMapVarName()) + ", "
+                    + renderer.toJson(topic) + ");";
+        }
+        return "WicketLeaflet.LayerPush.bind(" + map.getMapVarName() + ", " + renderer.toJson(topic) + ", "
+                + renderer.toJson(map.getMapVarName()) + ");";
+    }
+
+    @Override
+    public void bind(Component component) {
+        if (!(component instanceof Map)) {
+            throw new IllegalArgumentException("LayerPushBehavior accepts only Map component.");
+        }
+        super.bind(component);
+    }
+}
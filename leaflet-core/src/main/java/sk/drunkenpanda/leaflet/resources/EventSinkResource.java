@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.resources;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.StringValue;
+
+import sk.drunkenpanda.leaflet.behaviors.EventSinkHandler;
+import sk.drunkenpanda.leaflet.behaviors.EventTypeRegistry;
+import sk.drunkenpanda.leaflet.behaviors.MapEventHub;
+import sk.drunkenpanda.leaflet.components.map.EventType;
+import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.json.JsonDecoder;
+import sk.drunkenpanda.leaflet.json.JsonException;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+
+/**
+ * Stateless resource, that receives map events sent by {@link sk.drunkenpanda.leaflet.behaviors.EventSinkBehavior}.
+ * Unlike AJAX behaviors, it doesn't load page from page store nor lock it, so it's suitable for events
+ * that are only recorded, e.g. for analytics. Events are passed to {@link EventSinkHandler}s registered by name.
+ * Every handler receives only event types, that it's registered with, other events are rejected.
+ * Resource is mounted to {@link #MOUNT_PATH} by {@link sk.drunkenpanda.leaflet.Leaflet#install(WebApplication)}.
+ *
+ * @author Jan Ferko
+ */
+public final class EventSinkResource extends AbstractResource {
+
+    private static final long serialVersionUID = 20171018150000L;
+
+    /** The path, where resource is mounted. */
+    public static final String MOUNT_PATH = "wicket-leaflet/events";
+
+    /** The name of request parameter, that contains name of handler. */
+    public static final String HANDLER_PARAMETER = "leafletHandler";
+
+    /** The reference to resource of current application. */
+    public static final ResourceReference REFERENCE = new Reference();
+
+    /** Meta key, that is used to identify resource of application. */
+    private static final MetaDataKey<EventSinkResource> RESOURCE_KEY = new MetaDataKey<EventSinkResource>() {};
+
+    private final ConcurrentMap<String, Registration<?>> handlers = new ConcurrentHashMap<>();
+
+    private EventSinkResource() {
+    }
+
+    /**
+     * Creates resource of given application and mounts it to {@link #MOUNT_PATH}.
+     * If application already has resource, it does nothing.
+     *
+     * @param application the application
+     * @throws IllegalArgumentException if application is {@code null}
+     */
+    public static void install(WebApplication application) {
+        Args.notNull(application, "application");
+
+        if (application.getMetaData(RESOURCE_KEY) == null) {
+            application.setMetaData(RESOURCE_KEY, new EventSinkResource());
+            application.mountResource(MOUNT_PATH, REFERENCE);
+        }
+    }
+
+    /**
+     * Returns resource of given application.
+     *
+     * @param application the application
+     * @return the event sink of application
+     * @throws IllegalArgumentException if application is {@code null}
+     * @throws IllegalStateException if resource is not installed in application
+     */
+    public static EventSinkResource get(Application application) {
+        Args.notNull(application, "application");
+
+        final EventSinkResource resource = application.getMetaData(RESOURCE_KEY);
+        if (resource == null) {
+            throw new IllegalStateException("Event sink isn't installed in application [" + application.getName()
+                    + "].");
+        }
+        return resource;
+    }
+
+    /**
+     * Registers handler of events with given name. Handler replaces any handler previously registered with the name.
+     *
+     * @param <E> the type of handled events
+     * @param name the name of handler used by {@link sk.drunkenpanda.leaflet.behaviors.EventSinkBehavior}
+     * @param jsonPayloadClass the class of JSON payload that is sent from client
+     * @param handler the handler
+     * @param eventType the event type, that handler receives
+     * @param otherEventTypes the other event types with the same payload, that handler receives
+     * @throws IllegalArgumentException if any argument is {@code null} or name is empty
+     */
+    public <E extends Event> void register(String name, Class<E> jsonPayloadClass, EventSinkHandler<E> handler,
+            EventType eventType, EventType... otherEventTypes) {
+        Args.notEmpty(name, "name");
+        Args.notNull(jsonPayloadClass, "jsonPayloadClass");
+        Args.notNull(handler, "handler");
+        Args.notNull(eventType, "eventType");
+        Args.notNull(otherEventTypes, "otherEventTypes");
+
+        final Set<String> typeNames = new HashSet<>();
+        typeNames.add(eventType.getJavascriptName());
+        for (EventType type : otherEventTypes) {
+            typeNames.add(Args.notNull(type, "otherEventTypes").getJavascriptName());
+        }
+        handlers.put(name, new Registration<>(jsonPayloadClass, handler, typeNames));
+    }
+
+    /**
+     * Removes handler with given name.
+     *
+     * @param name the name of handler
+     */
+    public void unregister(String name) {
+        handlers.remove(name);
+    }
+
+    /**
+     * Checks whether handler with given name is registered.
+     *
+     * @param name the name of handler
+     * @return {@code true} if handler is registered, {@code false} otherwise
+     */
+    public boolean isRegistered(String name) {
+        return name != null && handlers.containsKey(name);
+    }
+
+    @Override
+    protected ResourceResponse newResourceResponse(Attributes attributes) {
+        final ResourceResponse response = new ResourceResponse();
+        response.disableCaching();
+
+        final IRequestParameters parameters = attributes.getRequest().getRequestParameters();
+        final Registration<?> registration = handlers.get(parameters.getParameterValue(HANDLER_PARAMETER).toString(""));
+        if (registration == null) {
+            return response.setError(HttpServletResponse.SC_NOT_FOUND, "Unknown event handler.");
+        }
+
+        final EventTypeRegistry.Registration<?> type = EventTypeRegistry.get(Application.get()).get(
+                parameters.getParameterValue(MapEventHub.EVENT_TYPE_PARAMETER).toString());
+        if (type == null || !registration.accepts(type.getType())) {
+            return response.setError(HttpServletResponse.SC_BAD_REQUEST, "Unexpected event type.");
+        }
+        final StringValue payload = parameters.getParameterValue(type.getType().getJavascriptName());
+        if (payload.isEmpty()) {
+            return response.setError(HttpServletResponse.SC_BAD_REQUEST, "Missing event.");
+        }
+
+        try {
+            registration.handle(payload.toString(), type);
+        } catch (JsonException ex) {
+            return response.setError(HttpServletResponse.SC_BAD_REQUEST, "Malformed event.");
+        }
+
+        response.setStatusCode(HttpServletResponse.SC_NO_CONTENT);
+        response.setWriteCallback(new WriteCallback() {
+            @Override
+            public void writeData(Attributes attributes) {
+                // no content
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Handler registered with payload class and event types.
+     *
+     * @param <E> the type of handled events
+     */
+    private static final class Registration<E extends Event> {
+
+        private final Class<E> jsonPayloadClass;
+
+        private final EventSinkHandler<E> handler;
+
+        /** Javascript names of event types, that handler receives. */
+        private final Set<String> typeNames;
+
+        Registration(Class<E> jsonPayloadClass, EventSinkHandler<E> handler, Set<String> typeNames) {
+            this.jsonPayloadClass = jsonPayloadClass;
+            this.handler = handler;
+            this.typeNames = typeNames;
+        }
+
+        boolean accepts(EventType type) {
+            return typeNames.contains(type.getJavascriptName());
+        }
+
+        @SuppressWarnings("unchecked")
+        void handle(String json, EventTypeRegistry.Registration<?> type) {
+            // registered type may read its payload with decoder of plugin
+            final JsonDecoder<E> decoder = type.getPayloadClass().equals(jsonPayloadClass)
+                    ? (JsonDecoder<E>) type.getDecoder()
+                    : JsonRendererFactory.getJsonRenderer().getDecoder(jsonPayloadClass);
+            handler.onEvent(decoder.decode(json));
+        }
+    }
+
+    /**
+     * Reference to event sink of current application.
+     */
+    private static final class Reference extends ResourceReference {
+
+        private static final long serialVersionUID = 20171018150001L;
+
+        Reference() {
+            super(EventSinkResource.class, "event-sink");
+        }
+
+        @Override
+        public IResource getResource() {
+            return get(Application.get());
+        }
+    }
+}
@@ -6,4 +6,443 @@ WicketLeaflet.Map.prepareOptions = function(options, center) {
     var newOptions = options;
     newOptions.center = center;
     return newOptions;
-};
\ No newline at end of file
+};
+WicketLeaflet.Map.waiting = {};
+WicketLeaflet.Map.ready = function(name, callback) {
+    if (window[name]) {
+        callback(window[name]);
+    } else {
+        (WicketLeaflet.Map.waiting[name] = WicketLeaflet.Map.waiting[name] || []).push(callback);
+    }
+};
+WicketLeaflet.Map.observers = {};
+WicketLeaflet.Map.lazy = function(element, name, create) {
+    // map rendered again waits for its new instance and previous instance is never created
+    window[name] = undefined;
+    delete WicketLeaflet.Map.waiting[name];
+    if (WicketLeaflet.Map.observers[name]) {
+        WicketLeaflet.Map.observers[name].disconnect();
+        delete WicketLeaflet.Map.observers[name];
+    }
+    var done = false;
+    var init = function() {
+        if (done) {
+            return;
+        }
+        done = true;
+        create();
+        var callbacks = WicketLeaflet.Map.waiting[name] || [];
+        delete WicketLeaflet.Map.waiting[name];
+        for (var i = 0; i < callbacks.length; i++) {
+            callbacks[i](window[name]);
+        }
+    };
+    if (!element || !window.IntersectionObserver) {
+        init();
+        return;
+    }
+    var observer = new IntersectionObserver(function(entries) {
+        for (var i = 0; i < entries.length; i++) {
+            if (entries[i].isIntersecting) {
+                observer.disconnect();
+                if (WicketLeaflet.Map.observers[name] === observer) {
+                    delete WicketLeaflet.Map.observers[name];
+                }
+                init();
+                return;
+            }
+        }
+    }, {rootMargin: '200px'});
+    WicketLeaflet.Map.observers[name] = observer;
+    observer.observe(element);
+};
+WicketLeaflet.Map.handlers = ['dragging', 'touchZoom', 'scrollWheelZoom', 'doubleClickZoom', 'boxZoom', 'tap',
+    'keyboard'];
+WicketLeaflet.Map.update = function(map, changes) {
+    var zoom = map.getZoom();
+    var rezoom = false;
+    for (var name in changes) {
+        if (!changes.hasOwnProperty(name)) {
+            continue;
+        }
+        var value = changes[name];
+        if (name === 'layers') {
+            WicketLeaflet.Map.setLayers(map, value);
+        } else if (name === 'maxBounds') {
+            map.setMaxBounds(value);
+        } else if (name === 'zoom' || name === 'minZoom' || name === 'maxZoom') {
+            map.options[name] = value === null ? undefined : value;
+            zoom = name === 'zoom' && value !== null ? value : zoom;
+            rezoom = true;
+        } else if (WicketLeaflet.Map.controls.hasOwnProperty(name)) {
+            map.options[name] = value !== false;
+            WicketLeaflet.Map.toggleControl(map, name, value !== false);
+        } else {
+            map.options[name] = value === null ? undefined : value;
+            if (map[name] && WicketLeaflet.Map.handlers.indexOf(name) >= 0) {
+                if (value) {
+                    map[name].enable();
+                } else {
+                    map[name].disable();
+                }
+            }
+        }
+    }
+    if (rezoom) {
+        map.setZoom(zoom);
+    }
+};
+WicketLeaflet.Map.controls = {zoomControl: 'zoom', attributionControl: 'attribution'};
+WicketLeaflet.Map.toggleControl = function(map, name, enabled) {
+    if (enabled && !map[name]) {
+        map[name] = L.control[WicketLeaflet.Map.controls[name]]();
+        map.addControl(map[name]);
+    } else if (!enabled && map[name]) {
+        map.removeControl(map[name]);
+        delete map[name];
+    }
+};
+WicketLeaflet.Map.setLayers = function(map, layers) {
+    var previous = map.options.layers || [];
+    var next = [];
+    var kept = {};
+    var i;
+    for (i = 0; i < layers.length; i++) {
+        if (typeof layers[i] === 'number') {
+            kept[layers[i]] = true;
+            next.push(previous[layers[i]]);
+        } else {
+            next.push(layers[i]);
+        }
+    }
+    for (i = 0; i < previous.length; i++) {
+        if (!kept[i]) {
+            map.removeLayer(previous[i]);
+        }
+    }
+    for (i = 0; i < next.length; i++) {
+        if (!map.hasLayer(next[i])) {
+            map.addLayer(next[i]);
+        }
+    }
+    map.options.layers = next;
+};
+WicketLeaflet.Map.patch = function(map, ops) {
+    var layers = map._leafletLayers = map._leafletLayers || {};
+    for (var i = 0; i < ops.length; i++) {
+        var id = ops[i][1];
+        if (layers.hasOwnProperty(id)) {
+            map.removeLayer(layers[id]);
+            delete layers[id];
+        }
+        if (ops[i][0] === 'a') {
+            layers[id] = ops[i][2];
+            map.addLayer(layers[id]);
+        }
+    }
+};
+WicketLeaflet.Map.run = function(map, commands) {
+    var features = map._leafletFeatures = map._leafletFeatures || {};
+    var remove = function(id) {
+        if (features.hasOwnProperty(id)) {
+            map.removeLayer(features[id]);
+            delete features[id];
+        }
+    };
+    for (var i = 0; i < commands.length; i++) {
+        var command = commands[i];
+        switch (command[0]) {
+            case 'v':
+                map.setView(command[1], command[2]);
+                break;
+            case 'p':
+                map.panTo(command[1]);
+                break;
+            case 'z':
+                map.setZoom(command[1]);
+                break;
+            case 'b':
+                map.fitBounds([command[2], command[1]]);
+                break;
+            case 'a':
+                remove(command[1]);
+                features[command[1]] = L.marker(command[2], command[3] || {}).addTo(map);
+                break;
+            case 'r':
+                for (var j = 1; j < command.length; j++) {
+                    remove(command[j]);
+                }
+                break;
+            case 'c':
+                for (var id in features) {
+                    if (features.hasOwnProperty(id)) {
+                        remove(id);
+                    }
+                }
+                break;
+            case 's':
+                var layer = features[command[1]] || (map._leafletLayers || {})[command[1]];
+                if (layer && layer.setStyle) {
+                    layer.setStyle(command[2]);
+                } else if (layer) {
+                    if (command[2].hasOwnProperty('opacity') && layer.setOpacity) {
+                        layer.setOpacity(command[2].opacity);
+                    }
+                    if (command[2].hasOwnProperty('zIndexOffset') && layer.setZIndexOffset) {
+                        layer.setZIndexOffset(command[2].zIndexOffset);
+                    }
+                }
+                break;
+            case 'i':
+                map.invalidateSize();
+                break;
+        }
+    }
+};
+WicketLeaflet.Map.backoff = function(map, factor, duration) {
+    map._leafletBackoff = {factor: factor, until: new Date().getTime() + duration};
+};
+WicketLeaflet.Map.factor = function(map) {
+    var backoff = map && map._leafletBackoff;
+    if (!backoff) {
+        return 1;
+    }
+    if (backoff.until < new Date().getTime()) {
+        map._leafletBackoff = null;
+        return 1;
+    }
+    return backoff.factor;
+};
+WicketLeaflet.Map.limit = function(limit, send, map) {
+    if (!limit) {
+        return send;
+    }
+
+    var timer = null;
+    var pending = null;
+    var delay = function() {
+        return limit.delay * WicketLeaflet.Map.factor(map);
+    };
+    var flush = function() {
+        var event = pending;
+        pending = null;
+        if (limit.trailing && event !== null) {
+            send(event);
+            timer = limit.mode === 'throttle' ? setTimeout(flush, delay()) : null;
+        } else {
+            timer = null;
+        }
+    };
+
+    return function(event) {
+        var leading = limit.leading && timer === null;
+        if (limit.mode === 'debounce') {
+            clearTimeout(timer);
+            timer = setTimeout(flush, delay());
+        } else if (timer === null) {
+            timer = setTimeout(flush, delay());
+        }
+
+        if (leading) {
+            pending = null;
+            send(event);
+        } else {
+            pending = event;
+        }
+    };
+};
+WicketLeaflet.Map.batches = {};
+WicketLeaflet.Map.batch = function(batch, attrs, payload) {
+    var key = attrs.c + ':' + batch.id;
+    var buffer = WicketLeaflet.Map.batches[key];
+    if (buffer === undefined) {
+        buffer = WicketLeaflet.Map.batches[key] = {events: [], timer: null};
+    }
+
+    var flush = function() {
+        clearTimeout(buffer.timer);
+        buffer.timer = null;
+        var ep = [
+            {name: 'leafletEvent', value: batch.type},
+            {name: 'leafletBatchId', value: batch.id},
+            {name: 'leafletBatch', value: '[' + buffer.events.join(',') + ']'}
+        ].concat(attrs.ep || []);
+        buffer.events = [];
+        Wicket.Ajax.ajax(Wicket.merge(attrs, {ep: ep}));
+    };
+
+    buffer.events.push(payload);
+    if (buffer.events.length >= batch.size) {
+        flush();
+    } else if (buffer.timer === null) {
+        buffer.timer = setTimeout(flush, batch.delay);
+    }
+};
+WicketLeaflet.Map.context = function(map, event) {
+    var latLng = event.latlng || map.getCenter();
+    var zoom = map.getZoom();
+    var pixel = map.project(latLng, zoom);
+    var original = event.originalEvent || {};
+    return {
+        zoom: zoom, lat: latLng.lat, lng: latLng.lng, x: pixel.x, y: pixel.y,
+        shift: !!original.shiftKey, ctrl: !!original.ctrlKey, alt: !!original.altKey, meta: !!original.metaKey
+    };
+};
+WicketLeaflet.Map.contextValue = function(c) {
+    var keys = [];
+    for (var key in {shift: 1, ctrl: 1, alt: 1, meta: 1}) {
+        if (c[key]) {
+            keys.push(key);
+        }
+    }
+    return [c.zoom, c.lat, c.lng, c.x, c.y, keys.join(' ')].join(',');
+};
+WicketLeaflet.Map.on = function(map, shared, distinct, handlers, epoch) {
+    var register = function(type, extract, attrs, limit, batch, filter) {
+        var state = {};
+        var send = WicketLeaflet.Map.limit(limit, function(accepted) {
+            var event = accepted.event;
+            var ep = attrs.ep || [];
+            if (accepted.context) {
+                // distance is measured from the last event, that was sent, as it is on server
+                state.x = accepted.context.x;
+                state.y = accepted.context.y;
+                ep = [{name: 'leafletContext', value: WicketLeaflet.Map.contextValue(accepted.context)}].concat(ep);
+            }
+            if (batch) {
+                WicketLeaflet.Map.batch(batch, attrs, extract(event));
+                return;
+            }
+            map._leafletSeq = (map._leafletSeq || 0) + 1;
+            ep = [
+                {name: 'leafletEvent', value: type},
+                {name: 'leafletEpoch', value: epoch || 0},
+                {name: 'leafletSeq', value: map._leafletSeq},
+                {name: type, value: extract(event)}
+            ].concat(ep);
+            Wicket.Ajax.ajax(Wicket.merge(attrs, {ep: ep}));
+        }, map);
+
+        map.on(type, function(event) {
+            var context = null;
+            if (filter) {
+                // filter sees every event, so rate limit doesn't coalesce accepted event into rejected one
+                context = WicketLeaflet.Map.context(map, event);
+                if (!filter(context, state)) {
+                    return;
+                }
+            }
+            send({event: event, context: context});
+        });
+    };
+
+    for (var i = 0; i < handlers.length; i++) {
+        register(handlers[i][0], handlers[i][1], Wicket.merge(shared, distinct[handlers[i][2]]), handlers[i][3],
+            handlers[i][4], handlers[i][5]);
+    }
+};
+WicketLeaflet.Map.send = function(url, params) {
+    var body = [];
+    for (var name in params) {
+        if (params.hasOwnProperty(name)) {
+            body.push(encodeURIComponent(name) + '=' + encodeURIComponent(params[name]));
+        }
+    }
+    body = body.join('&');
+
+    if (navigator.sendBeacon
+            && navigator.sendBeacon(url, new Blob([body], {type: 'application/x-www-form-urlencoded'}))) {
+        return;
+    }
+    var request = new XMLHttpRequest();
+    request.open('POST', url, true);
+    request.setRequestHeader('Content-Type', 'application/x-www-form-urlencoded');
+    request.send(body);
+};
+WicketLeaflet.Map.sink = function(map, url, handler, handlers) {
+    var register = function(type, extract, limit) {
+        map.on(type, WicketLeaflet.Map.limit(limit, function(event) {
+            var params = {leafletHandler: handler, leafletEvent: type};
+            params[type] = extract(event);
+            WicketLeaflet.Map.send(url, params);
+        }));
+    };
+
+    for (var i = 0; i < handlers.length; i++) {
+        register(handlers[i][0], handlers[i][1], handlers[i][2]);
+    }
+};
+WicketLeaflet.Map.revive = function(value) {
+    if (!value || typeof value !== 'object') {
+        return value;
+    }
+    if (typeof value.leafletCall === 'string') {
+        // functions are looked up by name, nothing is evaluated
+        var path = value.leafletCall.split('.');
+        var owner = window;
+        for (var i = 0; i < path.length - 1 && owner; i++) {
+            owner = owner[path[i]];
+        }
+        var fn = owner && owner[path[path.length - 1]];
+        if (typeof fn !== 'function') {
+            throw new Error('Unknown Leaflet function ' + value.leafletCall);
+        }
+        return fn.apply(owner, WicketLeaflet.Map.revive(value.args || []));
+    }
+    for (var key in value) {
+        if (value.hasOwnProperty(key)) {
+            value[key] = WicketLeaflet.Map.revive(value[key]);
+        }
+    }
+    return value;
+};
+WicketLeaflet.Map.boot = function(element) {
+    if (element._leafletBooted) {
+        return element._leafletBooted;
+    }
+    var data = JSON.parse(element.getAttribute('data-leaflet-map'));
+    var create = function() {
+        var map = L.map(element, WicketLeaflet.Map.prepareOptions(WicketLeaflet.Map.revive(data.options || {}),
+            data.center));
+        element._leafletBooted = window[data.name] = map;
+
+        if (data.layers) {
+            var ops = [];
+            var layers = WicketLeaflet.Map.revive(data.layers);
+            for (var id in layers) {
+                if (layers.hasOwnProperty(id)) {
+                    ops.push(['a', id, layers[id]]);
+                }
+            }
+            WicketLeaflet.Map.patch(map, ops);
+        }
+        if (data.commands) {
+            WicketLeaflet.Map.run(map, data.commands);
+        }
+        return map;
+    };
+    if (data.lazy) {
+        element._leafletBooted = true;
+        WicketLeaflet.Map.lazy(element, data.name, create);
+        return undefined;
+    }
+    return create();
+};
+WicketLeaflet.Map.bootAll = function(root) {
+    var elements = root.querySelectorAll ? root.querySelectorAll('[data-leaflet-map]') : [];
+    if (root.getAttribute && root.getAttribute('data-leaflet-map') !== null) {
+        WicketLeaflet.Map.boot(root);
+    }
+    for (var i = 0; i < elements.length; i++) {
+        WicketLeaflet.Map.boot(elements[i]);
+    }
+};
+if (window.Wicket && Wicket.Event) {
+    // maps are created before on-load scripts, that register their event handlers
+    Wicket.Event.add(window, 'domready', function() {
+        WicketLeaflet.Map.bootAll(document);
+    });
+    Wicket.Event.subscribe('/dom/node/added', function(jqEvent, element) {
+        WicketLeaflet.Map.bootAll(element);
+    });
+}
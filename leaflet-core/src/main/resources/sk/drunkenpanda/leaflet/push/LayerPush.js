@@ -0,0 +1,75 @@
+var WicketLeaflet = WicketLeaflet || {};
+
+WicketLeaflet.LayerPush = {};
+
+WicketLeaflet.LayerPush.apply = function(layer, features, ops) {
+    for (var i = 0; i < ops.length; i++) {
+        var op = ops[i];
+        var feature = features[op[1]];
+        if (op[0] === 'c') {
+            layer.clearLayers();
+            for (var id in features) {
+                delete features[id];
+            }
+        } else if (op[0] === 'm' && feature) {
+            feature.setLatLng(op[2]);
+        } else if (op[0] === 'r' && feature) {
+            layer.removeLayer(feature);
+            delete features[op[1]];
+        } else if (op[0] === 'a' || op[0] === 'm') {
+            if (feature) {
+                layer.removeLayer(feature);
+            }
+            features[op[1]] = L.marker(op[2], op[3] || {}).addTo(layer);
+        }
+    }
+};
+WicketLeaflet.LayerPush.bindings = {};
+WicketLeaflet.LayerPush.bind = function(map, topic, name) {
+    var key = (name || '') + '|' + topic;
+    var previous = WicketLeaflet.LayerPush.bindings[key];
+    var binding;
+    if (previous) {
+        // map rendered again keeps features, because server sends only changes made since
+        Wicket.Event.unsubscribe('/websocket/message', previous.subscriber);
+        if (previous.map) {
+            previous.map.removeLayer(previous.layer);
+        }
+        binding = {layer: previous.layer, features: previous.features};
+    } else {
+        binding = {layer: L.layerGroup(), features: {}};
+    }
+
+    binding.subscriber = function(jqEvent, message) {
+        var data;
+        try {
+            data = JSON.parse(message);
+        } catch (e) {
+            return;
+        }
+        if (data && data.leafletPush === topic) {
+            WicketLeaflet.LayerPush.apply(binding.layer, binding.features, data.ops);
+        }
+    };
+    WicketLeaflet.LayerPush.bindings[key] = binding;
+    if (map) {
+        WicketLeaflet.LayerPush.show(binding, map);
+    }
+    Wicket.Event.subscribe('/websocket/message', binding.subscriber);
+    return binding.layer;
+};
+WicketLeaflet.LayerPush.show = function(binding, map) {
+    binding.map = map;
+    binding.layer.addTo(map);
+};
+WicketLeaflet.LayerPush.bindLazily = function(mapName, topic) {
+    // messages are received before map is created, so layer is up to date, when it's shown
+    var layer = WicketLeaflet.LayerPush.bind(null, topic, mapName);
+    var binding = WicketLeaflet.LayerPush.bindings[mapName + '|' + topic];
+    WicketLeaflet.Map.ready(mapName, function(map) {
+        if (WicketLeaflet.LayerPush.bindings[mapName + '|' + topic] === binding) {
+            WicketLeaflet.LayerPush.show(binding, map);
+        }
+    });
+    return layer;
+};
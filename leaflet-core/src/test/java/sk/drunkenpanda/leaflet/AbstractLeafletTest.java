@@ -29,6 +29,7 @@ import org.apache.wicket.util.tester.WicketTester;
 import org.junit.Before;
 
 import sk.drunkenpanda.leaflet.behaviors.LeafletAjaxEventBehavior;
+import sk.drunkenpanda.leaflet.behaviors.MapEventHub;
 import sk.drunkenpanda.leaflet.components.map.MapEventType;
 import sk.drunkenpanda.leaflet.events.Event;
 import sk.drunkenpanda.leaflet.json.JsonRenderer;
@@ -145,6 +146,24 @@ public abstract class AbstractLeafletTest {
         return this.prepareRequest(tester, behavior, eventType.getJavascriptName(), json);
     }
 
+    /**
+     * Prepares request that triggers event behavior through map's event hub and contains parameter
+     * with given event type name and payload.
+     *
+     * @param tester the wicket tester which triggers behavior
+     * @param behavior the behavior that should be triggered
+     * @param eventTypeName the javascript name of event type
+     * @param jsonPayload the JSON payload set as value for parameter with event type
+     * @return mock HTTP request that triggers Leaflet event behavior
+     */
+    protected MockHttpServletRequest prepareRequest(WicketTester tester, LeafletAjaxEventBehavior<?> behavior,
+            String eventTypeName, String jsonPayload) {
+        final MockHttpServletRequest request = this.prepareRequest(tester, (AbstractAjaxBehavior) behavior,
+                eventTypeName, jsonPayload);
+        request.setParameter(MapEventHub.EVENT_TYPE_PARAMETER, eventTypeName);
+        return request;
+    }
+
     /**
      * Prepares request that triggers AJAX behavior and contains parameter with given name and value.
      *
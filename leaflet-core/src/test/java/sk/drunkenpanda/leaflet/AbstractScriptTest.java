@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.junit.Assume;
+import org.junit.Before;
+
+import static sk.drunkenpanda.leaflet.FixtureHelpers.fixture;
+
+/**
+ * Base class for tests of Wicket-Leaflet javascript. Scripts run in Nashorn with stubs of browser, Leaflet
+ * and Wicket from {@code fixtures/scriptStubs.js}, e.g. {@code stubs.scrollIntoView(element)} notifies
+ * intersection observers of element.
+ * <p>
+ * Nashorn isn't part of JDK since Java 15, so tests are skipped on newer JDKs.
+ *
+ * @author Jan Ferko
+ */
+public abstract class AbstractScriptTest {
+
+    private ScriptEngine engine;
+
+    @Before
+    public void before() {
+        this.engine = new ScriptEngineManager().getEngineByName("nashorn");
+        Assume.assumeNotNull(this.engine);
+
+        eval(fixture("fixtures/scriptStubs.js"));
+    }
+
+    /**
+     * Evaluates javascript resource from package of given class.
+     *
+     * @param scope the class, whose package contains resource
+     * @param name the name of resource
+     */
+    protected void load(Class<?> scope, String name) {
+        eval(fixture(scope.getPackage().getName().replace('.', '/') + "/" + name));
+    }
+
+    /**
+     * Evaluates given script.
+     *
+     * @param script the script
+     * @return the value of last statement
+     * @throws IllegalStateException if script fails
+     */
+    protected Object eval(String script) {
+        try {
+            return this.engine.eval(script);
+        } catch (ScriptException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Evaluates given script, that returns number.
+     *
+     * @param script the script
+     * @return the value of last statement as integer
+     */
+    protected int evalInt(String script) {
+        return ((Number) eval(script)).intValue();
+    }
+}
@@ -17,14 +17,25 @@
 package sk.drunkenpanda.leaflet;
 
 import org.apache.wicket.Page;
+import org.apache.wicket.RuntimeConfigurationType;
 import org.apache.wicket.mock.MockHomePage;
 import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.tester.TagTester;
 import org.apache.wicket.util.tester.WicketTester;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.Before;
 import org.junit.Test;
 
+import sk.drunkenpanda.leaflet.components.map.MapBootstrap;
+import sk.drunkenpanda.leaflet.components.map.MapOptions;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.LeafletJacksonModule;
+import sk.drunkenpanda.leaflet.metrics.EventMetrics;
+import sk.drunkenpanda.leaflet.models.LatLng;
+
 /**
  *
  * @author Jan Ferko
@@ -108,8 +119,96 @@ public class LeafletTest {
         LeafletSettings settings = Leaflet.getSettings();
     }
 
+    @Test
+    public void testDevelopmentApplicationUsesIndentedJson() {
+        WicketTester tester = new WicketTester(createWebApp(null, true));
+        JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+        assertThat(renderer.getProfile()).isEqualTo(JsonProfile.DEVELOPMENT);
+        assertThat(renderer.toJson(MapOptions.builder().zoom(13).build())).startsWith("{\n  \"zoom\" : 13,\n");
+    }
+
+    @Test
+    public void testDeploymentApplicationUsesCompactJson() {
+        WicketTester tester = new WicketTester(createWebApp(null, true, RuntimeConfigurationType.DEPLOYMENT));
+        JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+        assertThat(renderer.getProfile()).isEqualTo(JsonProfile.DEPLOYMENT);
+        assertThat(renderer.toJson(MapOptions.builder().zoom(13).build())).startsWith("{\"zoom\":13,\"").doesNotContain("\n");
+    }
+
+    @Test
+    public void testCoordinatePrecisionIsInstalled() {
+        LeafletSettings settings = new DefaultLeafletSettings.Builder().setCoordinatePrecision(3).build();
+        WicketTester tester = new WicketTester(createWebApp(settings, true));
+        JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+        assertThat(renderer.getCoordinatePrecision()).isEqualTo(3);
+        assertThat(renderer.toJson(LatLng.of(48.14816, 17.10674))).isEqualTo("[ 48.148, 17.107 ]");
+    }
+
+    @Test
+    public void testJsonCacheIsDisabledByDefault() {
+        WicketTester tester = new WicketTester(createWebApp(null, true));
+
+        assertThat(JsonRendererFactory.getJsonRenderer().getCache()).isNull();
+    }
+
+    @Test
+    public void testJsonCacheIsInstalled() {
+        LeafletSettings settings = new DefaultLeafletSettings.Builder().setJsonCacheSize(16).build();
+        WicketTester tester = new WicketTester(createWebApp(settings, true));
+
+        assertThat(JsonRendererFactory.getJsonRenderer().getCache().getMaxSize()).isEqualTo(16);
+    }
+
     //@TODO webjar resources init
 
+    @Test
+    public void testSettingsWithoutExtendedSettingsUseDefaults() {
+        final LeafletSettings defaults = new DefaultLeafletSettings();
+        LeafletSettings settings = new LeafletSettings() {
+
+            @Override
+            public ResourceReference getJavascriptReference() {
+                return defaults.getJavascriptReference();
+            }
+
+            @Override
+            public ResourceReference getCssReference() {
+                return defaults.getCssReference();
+            }
+
+            @Override
+            public String getVersion() {
+                return defaults.getVersion();
+            }
+
+            @Override
+            public boolean useWebJars() {
+                return defaults.useWebJars();
+            }
+
+            @Override
+            public boolean useCDN() {
+                return defaults.useCDN();
+            }
+
+            @Override
+            public boolean autoAppendResources() {
+                return defaults.autoAppendResources();
+            }
+        };
+        WicketTester tester = new WicketTester(createWebApp(settings, true));
+        ExtendedLeafletSettings extendedSettings = Leaflet.getExtendedSettings(tester.getApplication());
+
+        assertThat(extendedSettings.getCoordinatePrecision()).isEqualTo(LeafletJacksonModule.DEFAULT_COORDINATE_PRECISION);
+        assertThat(extendedSettings.getJsonCacheSize()).isZero();
+        assertThat(extendedSettings.getEventMetrics()).isSameAs(EventMetrics.NONE);
+        assertThat(extendedSettings.getMapBootstrap()).isEqualTo(MapBootstrap.SCRIPT);
+        assertThat(extendedSettings.isLazyMapInitialization()).isFalse();
+    }
+
     @Test
     public void testAddResourcesIfAutoAppendIsUsed() {
         WicketTester tester = new WicketTester(createWebApp(customSettings, true));
@@ -146,8 +245,18 @@ public class LeafletTest {
     }
 
     private WebApplication createWebApp(final LeafletSettings settings, final boolean installLeaflets) {
+        return createWebApp(settings, installLeaflets, RuntimeConfigurationType.DEVELOPMENT);
+    }
+
+    private WebApplication createWebApp(final LeafletSettings settings, final boolean installLeaflets,
+            final RuntimeConfigurationType configurationType) {
         return new WebApplication() {
 
+            @Override
+            public RuntimeConfigurationType getConfigurationType() {
+                return configurationType;
+            }
+
             @Override
             protected void init() {
                 super.init();
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class BatchingEventBehaviorTest extends AbstractLeafletTest {
+
+    @Test
+    public void testRendersBatchForAllEventTypes() {
+        final TestBatchingEventBehavior behavior = new TestBatchingEventBehavior();
+        behavior.setMaxSize(50).setMaxDelay(Duration.milliseconds(500));
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+
+        final String batch = "{\"id\":" + map.getBehaviorId(behavior)
+                + ",\"type\":\"click\",\"size\":50,\"delay\":500}]";
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .contains("[\"click\",WicketLeaflet.MouseEvent.getMouseEvent,0,")
+                .contains("[\"mousemove\",WicketLeaflet.MouseEvent.getMouseEvent,0,")
+                .contains("0,null," + batch)
+                .contains("0," + behavior.getRateLimit().toJavaScript() + "," + batch);
+    }
+
+    @Test
+    public void testDeliversBatchOfEvents() {
+        final WicketTester tester = this.getTester();
+        final TestBatchingEventBehavior behavior = new TestBatchingEventBehavior();
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+        final MouseEvent click = MouseEvent.builder().type(MapEventType.CLICK).latLng(LatLng.of(1.0, 2.0)).build();
+        final MouseEvent move = MouseEvent.builder().type(MapEventType.MOUSEMOVE).latLng(LatLng.of(3.0, 4.0)).build();
+        final MockHttpServletRequest request = prepareBatchRequest(tester, behavior,
+                "[" + renderer.toJson(click) + "," + renderer.toJson(move) + "]", map.getBehaviorId(behavior));
+        tester.processRequest(request);
+
+        assertThat(behavior.batches).hasSize(1);
+        assertThat(behavior.batches.get(0)).containsExactly(click, move);
+    }
+
+    @Test
+    public void testChecksFilterOfEveryEventInBatch() {
+        final WicketTester tester = this.getTester();
+        final TestBatchingEventBehavior behavior = new TestBatchingEventBehavior();
+        behavior.setFilter(EventFilter.within(LatLngBounds.of(LatLng.of(2.0, 3.0), LatLng.of(0.0, 0.0))));
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+
+        final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+        final MouseEvent click = MouseEvent.builder().type(MapEventType.CLICK).latLng(LatLng.of(1.0, 2.0)).build();
+        final MouseEvent move = MouseEvent.builder().type(MapEventType.MOUSEMOVE).latLng(LatLng.of(3.0, 4.0)).build();
+        final MockHttpServletRequest request = prepareBatchRequest(tester, behavior,
+                "[" + renderer.toJson(click) + "," + renderer.toJson(move) + "]", map.getBehaviorId(behavior));
+        tester.processRequest(request);
+
+        assertThat(behavior.batches).hasSize(1);
+        assertThat(behavior.batches.get(0)).containsExactly(click);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsFilterThatCantBeCheckedOnServer() {
+        new TestBatchingEventBehavior().setFilter(EventFilter.within(LatLngBounds.of(LatLng.of(2.0, 3.0),
+                LatLng.of(0.0, 0.0))).and(EventFilter.zoomAtLeast(12)));
+    }
+
+    @Test
+    public void testIgnoresBatchOfOtherBehavior() {
+        final WicketTester tester = this.getTester();
+        final TestBatchingEventBehavior behavior = new TestBatchingEventBehavior();
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+
+        final MockHttpServletRequest request = prepareBatchRequest(tester, behavior,
+                "[{\"type\":\"click\"}]", map.getBehaviorId(behavior) + 1);
+        tester.processRequest(request);
+
+        assertThat(behavior.batches).isEmpty();
+    }
+
+    private MockHttpServletRequest prepareBatchRequest(WicketTester tester, TestBatchingEventBehavior behavior,
+            String batch, int batchId) {
+        final MockHttpServletRequest request = this.prepareRequest(tester, (AbstractAjaxBehavior) behavior,
+                BatchingEventBehavior.BATCH_PARAMETER, batch);
+        request.setParameter(MapEventHub.EVENT_TYPE_PARAMETER, MapEventType.CLICK.getJavascriptName());
+        request.setParameter(BatchingEventBehavior.BATCH_ID_PARAMETER, String.valueOf(batchId));
+        return request;
+    }
+
+    private static final class TestBatchingEventBehavior extends BatchingEventBehavior<MouseEvent> {
+
+        final List<List<MouseEvent>> batches = new ArrayList<>();
+
+        TestBatchingEventBehavior() {
+            super(MouseEvent.class, "WicketLeaflet.MouseEvent.getMouseEvent",
+                    new JavaScriptResourceReference(MouseEventBehavior.class, "MouseEvent.js"),
+                    MapEventType.CLICK, MapEventType.MOUSEMOVE);
+        }
+
+        @Override
+        protected void onEvents(List<MouseEvent> events, AjaxRequestTarget target) {
+            batches.add(events);
+        }
+    }
+}
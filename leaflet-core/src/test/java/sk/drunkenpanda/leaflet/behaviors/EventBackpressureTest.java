@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventBackpressureTest {
+
+    @Test
+    public void testDoesntSlowDownFastHandlers() {
+        final EventBackpressure backpressure = new EventBackpressure();
+
+        final long start = backpressure.enter();
+        assertThat(backpressure.getPendingEvents()).isEqualTo(1);
+        assertThat(backpressure.exit(start)).isEqualTo(1);
+        assertThat(backpressure.getPendingEvents()).isZero();
+    }
+
+    @Test
+    public void testFactorGrowsWithAverageLatency() {
+        final EventBackpressure backpressure = new EventBackpressure()
+                .setLatencyThreshold(Duration.milliseconds(10))
+                .setMaxFactor(4);
+
+        // average moves by 1/8 of difference, so single slow event is smoothed
+        backpressure.record(160000000L);
+        assertThat(backpressure.getAverageLatency()).isEqualTo(Duration.milliseconds(20));
+        assertThat(backpressure.getFactor()).isEqualTo(2);
+
+        for (int i = 0; i < 20; i++) {
+            backpressure.record(160000000L);
+        }
+        assertThat(backpressure.getFactor()).isEqualTo(4);
+
+        for (int i = 0; i < 50; i++) {
+            backpressure.record(0L);
+        }
+        assertThat(backpressure.getFactor()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFactorGrowsWithPendingEvents() {
+        final EventBackpressure backpressure = new EventBackpressure().setConcurrencyThreshold(2);
+
+        backpressure.enter();
+        backpressure.enter();
+        assertThat(backpressure.getFactor()).isEqualTo(1);
+
+        backpressure.enter();
+        assertThat(backpressure.getFactor()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroLatencyThreshold() {
+        new EventBackpressure().setLatencyThreshold(Duration.NONE);
+    }
+}
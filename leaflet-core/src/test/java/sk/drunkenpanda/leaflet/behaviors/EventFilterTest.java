@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.Point;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventFilterTest {
+
+    private static final LatLngBounds BRATISLAVA = LatLngBounds.of(LatLng.of(48.2, 17.2), LatLng.of(48.1, 17.0));
+
+    @Test
+    public void testChecksZoomAndBounds() {
+        final EventFilter filter = EventFilter.zoomAtLeast(12).and(EventFilter.within(BRATISLAVA));
+
+        assertThat(filter.test(context(13, LatLng.of(48.15, 17.1), null))).isTrue();
+        assertThat(filter.test(context(11, LatLng.of(48.15, 17.1), null))).isFalse();
+        assertThat(filter.test(context(13, LatLng.of(49.0, 17.1), null))).isFalse();
+    }
+
+    @Test
+    public void testChecksModifierKeys() {
+        final EventFilter filter = EventFilter.keyPressed(EventFilter.Key.SHIFT)
+                .or(EventFilter.keyPressed(EventFilter.Key.ALT))
+                .and(EventFilter.keyPressed(EventFilter.Key.CTRL).negate());
+
+        assertThat(filter.test(EventFilter.Context.parse("10,48,17,0,0,shift", null))).isTrue();
+        assertThat(filter.test(EventFilter.Context.parse("10,48,17,0,0,alt meta", null))).isTrue();
+        assertThat(filter.test(EventFilter.Context.parse("10,48,17,0,0,shift ctrl", null))).isFalse();
+        assertThat(filter.test(EventFilter.Context.parse("10,48,17,0,0,", null))).isFalse();
+    }
+
+    @Test
+    public void testChecksDistanceFromPreviousEvent() {
+        final EventFilter filter = EventFilter.movedMoreThan(5);
+
+        assertThat(filter.test(context(10, LatLng.of(48, 17), null))).isTrue();
+        assertThat(filter.test(context(10, LatLng.of(48, 17), Point.of(3, 4)))).isFalse();
+        assertThat(filter.test(context(10, LatLng.of(48, 17), Point.of(3, 5)))).isTrue();
+    }
+
+    @Test
+    public void testCompilesToJavaScript() {
+        final EventFilter filter = EventFilter.zoomAtMost(10).and(EventFilter.movedMoreThan(2).negate());
+
+        assertThat(filter.toFunction()).isEqualTo("function(c,s){return (c.zoom<=10.0)&&"
+                + "(!((s.x===undefined||(c.x-s.x)*(c.x-s.x)+(c.y-s.y)*(c.y-s.y)>4.0)));}");
+    }
+
+    @Test
+    public void testRejectsMalformedContext() {
+        assertThat(EventFilter.Context.parse(null, null)).isNull();
+        assertThat(EventFilter.Context.parse("10,48,17,0,0", null)).isNull();
+        assertThat(EventFilter.Context.parse("10,north,17,0,0,", null)).isNull();
+    }
+
+    private static EventFilter.Context context(double zoom, LatLng latLng, Point previousPixel) {
+        return new EventFilter.Context(zoom, latLng, Point.of(0, 0), EnumSet.noneOf(EventFilter.Key.class),
+                previousPixel);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventRateLimitTest {
+
+    @Test
+    public void testDefaultLimits() {
+        assertThat(EventRateLimit.forEventType(MapEventType.MOUSEMOVE))
+                .isEqualTo(EventRateLimit.throttle(EventRateLimit.DEFAULT_THROTTLE_INTERVAL));
+        assertThat(EventRateLimit.forEventType(MapEventType.DRAG).isThrottle()).isTrue();
+        assertThat(EventRateLimit.forEventType(MapEventType.RESIZE))
+                .isEqualTo(EventRateLimit.debounce(EventRateLimit.DEFAULT_DEBOUNCE_DELAY));
+        assertThat(EventRateLimit.forEventType(MapEventType.CLICK)).isSameAs(EventRateLimit.none());
+    }
+
+    @Test
+    public void testRendersLimitForClient() {
+        final EventRateLimit limit = EventRateLimit.throttle(Duration.milliseconds(250)).withLeading(false);
+
+        assertThat(limit.toJavaScript())
+                .isEqualTo("{\"mode\":\"throttle\",\"delay\":250,\"leading\":false,\"trailing\":true}");
+        assertThat(EventRateLimit.none().toJavaScript()).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsLimitWithoutEdges() {
+        EventRateLimit.debounce(Duration.milliseconds(100)).withTrailing(false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroDelay() {
+        EventRateLimit.throttle(Duration.NONE);
+    }
+}
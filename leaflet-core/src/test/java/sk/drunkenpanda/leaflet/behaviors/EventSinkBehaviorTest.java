@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.resources.EventSinkResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventSinkBehaviorTest extends AbstractLeafletTest {
+
+    @Test
+    public void testSendsEventsToMountedResource() {
+        final EventSinkBehavior behavior = new EventSinkBehavior("clicks", "WicketLeaflet.MouseEvent.getMouseEvent",
+                new JavaScriptResourceReference(MouseEventBehavior.class, "MouseEvent.js"),
+                MapEventType.CLICK, MapEventType.MOUSEMOVE);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(behavior.getInitializationScript(map))
+                .startsWith("WicketLeaflet.Map.sink(" + map.getMapVarName() + ", \"")
+                .contains(EventSinkResource.MOUNT_PATH + "\", \"clicks\", [")
+                .contains("[\"click\",WicketLeaflet.MouseEvent.getMouseEvent,null]")
+                .contains("[\"mousemove\",WicketLeaflet.MouseEvent.getMouseEvent,null]");
+        assertThat(map.getBehaviors(MapEventHub.class)).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcceptsOnlyMap() {
+        new WebMarkupContainer("container").add(new EventSinkBehavior("clicks",
+                "WicketLeaflet.Event.getEvent", new JavaScriptResourceReference(PlainEventBehavior.class, "Event.js"),
+                MapEventType.CLICK));
+    }
+}
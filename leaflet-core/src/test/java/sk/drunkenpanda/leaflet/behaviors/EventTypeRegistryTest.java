@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.behaviors;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.components.map.CustomEventType;
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.ErrorEvent;
+import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.StreamingDecoder;
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventTypeRegistryTest extends AbstractLeafletTest {
+
+    private static final CustomEventType DRAW_CREATED = CustomEventType.of("draw:created");
+
+    private static final CustomEventType DRAW_EDITED = CustomEventType.of("draw:edited");
+
+    private static final DrawEvent EDITED = new DrawEvent(DRAW_EDITED, LatLng.of(1.0, 2.0));
+
+    @Override
+    protected void init(WebApplication application) {
+        EventTypeRegistry.get(application).register(DRAW_CREATED, DrawEvent.class, "WicketLeaflet.Draw.getDrawEvent",
+                new JavaScriptResourceReference(EventTypeRegistryTest.class, "Draw.js"));
+        EventTypeRegistry.get(application).register(DRAW_EDITED, DrawEvent.class, new StreamingDecoder<DrawEvent>() {
+            @Override
+            public DrawEvent decode(JsonParser parser) {
+                return EDITED;
+            }
+        }, "WicketLeaflet.Draw.getDrawEvent", new JavaScriptResourceReference(EventTypeRegistryTest.class, "Draw.js"));
+    }
+
+    @Test
+    public void testRegistersBuiltInEventTypes() {
+        final EventTypeRegistry registry = EventTypeRegistry.get(getApplication());
+
+        assertThat(registry.find("click")).isEqualTo(MapEventType.CLICK);
+        assertThat(registry.get("click").getPayloadClass()).isEqualTo(MouseEvent.class);
+        assertThat(registry.get("moveend").getExtractorFunction()).isEqualTo("WicketLeaflet.Event.getEvent");
+        assertThat(registry.get("locationerror").getDecoder().getType()).isEqualTo(ErrorEvent.class);
+        assertThat(registry.find("draw:created")).isEqualTo(DRAW_CREATED);
+        assertThat(registry.find("unknown")).isNull();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoesntRegisterTypeTwice() {
+        EventTypeRegistry.get(getApplication()).register(MapEventType.CLICK, PlainEvent.class,
+                "WicketLeaflet.Event.getEvent", new JavaScriptResourceReference(PlainEventBehavior.class, "Event.js"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDoesntCreateBehaviorWithOtherPayload() {
+        new RegisteredEventBehavior<PlainEvent>("draw:created", PlainEvent.class) {
+            @Override
+            protected void onEvent(PlainEvent event, AjaxRequestTarget target) {
+            }
+        };
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCustomTypeCantHaveNameOfBuiltInType() {
+        CustomEventType.of("click");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegistryMustBeInstalled() {
+        EventTypeRegistry.get(new MockApplication());
+    }
+
+    @Test
+    public void testRoutesPluginEventThroughEventHub() {
+        final WicketTester tester = this.getTester();
+        final DrawEvent[] received = new DrawEvent[1];
+        final RegisteredEventBehavior<DrawEvent> behavior =
+                new RegisteredEventBehavior<DrawEvent>("draw:created", DrawEvent.class) {
+                    @Override
+                    protected void onEvent(DrawEvent event, AjaxRequestTarget target) {
+                        received[0] = event;
+                    }
+                };
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .contains("[\"draw:created\",WicketLeaflet.Draw.getDrawEvent,");
+
+        final MockHttpServletRequest request = this.prepareRequest(tester, behavior, "draw:created",
+                "{\"type\":\"draw:created\",\"latLng\":[48.1,17.1]}");
+        tester.processRequest(request);
+
+        assertThat(received[0]).isNotNull();
+        assertThat(received[0].getType()).isEqualTo(DRAW_CREATED);
+        assertThat(received[0].getLatLng()).isEqualTo(LatLng.of(48.1, 17.1));
+    }
+
+    @Test
+    public void testKeepsPluginDecoderInRegistration() {
+        final String json = "{\"type\":\"draw:edited\",\"latLng\":[48.1,17.1]}";
+        final EventTypeRegistry registry = EventTypeRegistry.get(getApplication());
+
+        assertThat(registry.get("draw:edited").getDecoder().decode(json)).isSameAs(EDITED);
+        assertThat(registry.get("draw:created").getDecoder().decode(json)).isNotSameAs(EDITED);
+        assertThat(JsonRendererFactory.getJsonRenderer().getDecoder(DrawEvent.class).decode(json))
+                .isNotSameAs(EDITED);
+    }
+
+    @Test
+    public void testDecodesPluginEventWithPluginDecoder() {
+        final WicketTester tester = this.getTester();
+        final DrawEvent[] received = new DrawEvent[1];
+        final RegisteredEventBehavior<DrawEvent> behavior =
+                new RegisteredEventBehavior<DrawEvent>("draw:edited", DrawEvent.class) {
+                    @Override
+                    protected void onEvent(DrawEvent event, AjaxRequestTarget target) {
+                        received[0] = event;
+                    }
+                };
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        tester.processRequest(this.prepareRequest(tester, behavior, "draw:edited",
+                "{\"type\":\"draw:edited\",\"latLng\":[48.1,17.1]}"));
+
+        assertThat(received[0]).isSameAs(EDITED);
+    }
+
+    /**
+     * Payload of event fired by draw plugin.
+     */
+    public static final class DrawEvent implements Event {
+
+        private final CustomEventType type;
+
+        private final LatLng latLng;
+
+        @JsonCreator
+        public DrawEvent(@JsonProperty("type") CustomEventType type, @JsonProperty("latLng") LatLng latLng) {
+            this.type = type;
+            this.latLng = latLng;
+        }
+
+        @Override
+        public CustomEventType getType() {
+            return type;
+        }
+
+        public LatLng getLatLng() {
+            return latLng;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package sk.drunkenpanda.leaflet.behaviors;
 
+import org.apache.wicket.Page;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
@@ -24,16 +25,23 @@ import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
 import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.util.time.Duration;
 import org.junit.Test;
 
 import sk.drunkenpanda.leaflet.AbstractLeafletTest;
 import sk.drunkenpanda.leaflet.components.map.Map;
 import sk.drunkenpanda.leaflet.components.map.MapEventType;
 import sk.drunkenpanda.leaflet.events.Event;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
 import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -55,20 +63,124 @@ public final class LeafletAjaxEventBehaviorTest extends AbstractLeafletTest {
         behavior.renderHead(map, headerResponse);
 
         verify(headerResponse).render(JavaScriptHeaderItem.forReference(behavior.getJavascriptReference()));
-        verify(headerResponse).render(OnLoadHeaderItem.forScript(behavior.getInitializationScript()));
+        verify(headerResponse, never()).render(isA(OnLoadHeaderItem.class));
     }
 
     @Test
-    public void testGetInitializationScript() {
+    public void testContributesHandlerToEventHub() {
         final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.CLICK);
         Map map = new Map("map");
         map.add(behavior);
 
         getTester().startComponentInPage(map);
 
-        assertThat(behavior.getInitializationScript())
-                .startsWith(map.getMapVarName())
-                .contains(MapEventType.CLICK.getJavascriptName());
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .startsWith("WicketLeaflet.Map.on(" + map.getMapVarName() + ", {")
+                .contains("[\"" + MapEventType.CLICK.getJavascriptName() + "\",WicketLeaflet.Event.getEvent,0]")
+                .contains(behavior.getCallbackUrl());
+    }
+
+    @Test
+    public void testRendersSingleScriptForAllBehaviors() {
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        final TestAjaxEventBehavior focus = new TestAjaxEventBehavior(MapEventType.FOCUS);
+        Map map = new Map("map");
+        map.add(click, focus);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(map.getBehaviors(MapEventHub.class)).hasSize(1);
+        final String script = MapEventHub.of(map).getRegistrationScript(map);
+        assertThat(script)
+                .contains(click.getCallbackUrl())
+                .contains(focus.getCallbackUrl());
+    }
+
+    @Test
+    public void testRendersSharedAjaxAttributesOnce() {
+        final Map map = new Map("map");
+        for (MapEventType type : MouseEventBehavior.SUPPORTED_EVENTS) {
+            map.add(new TestAjaxEventBehavior(type).setChannelPolicy(EventChannelPolicy.DEFAULT));
+        }
+
+        getTester().startComponentInPage(map);
+
+        final String script = MapEventHub.of(map).getRegistrationScript(map);
+        final String url = MapEventHub.of(map).getCallbackUrl().toString();
+        assertThat(script.indexOf(url)).isEqualTo(script.lastIndexOf(url));
+        assertThat(script)
+                .startsWith("WicketLeaflet.Map.on(" + map.getMapVarName() + ", {\"u\":\"" + url + "\",\"c\":\""
+                        + map.getMarkupId() + "\"}, [{}], [")
+                .contains("[\"click\",WicketLeaflet.Event.getEvent,0]")
+                .contains("[\"mousemove\",WicketLeaflet.Event.getEvent,0");
+    }
+
+    @Test
+    public void testRendersRateLimitOfBehavior() {
+        final TestAjaxEventBehavior move = new TestAjaxEventBehavior(MapEventType.MOVE);
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        click.setRateLimit(EventRateLimit.debounce(Duration.milliseconds(300)));
+        Map map = new Map("map");
+        map.add(move, click);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(move.getRateLimit()).isEqualTo(EventRateLimit.forEventType(MapEventType.MOVE));
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .contains("0," + move.getRateLimit().toJavaScript() + "]")
+                .contains("1,{\"mode\":\"debounce\",\"delay\":300,\"leading\":false,\"trailing\":true}]");
+    }
+
+    @Test
+    public void testRendersChannelPolicyOfBehavior() {
+        final TestAjaxEventBehavior moveEnd = new TestAjaxEventBehavior(MapEventType.MOVE_END);
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        final TestAjaxEventBehavior focus = new TestAjaxEventBehavior(MapEventType.FOCUS);
+        focus.setChannelPolicy(EventChannelPolicy.ACTIVE);
+        Map map = new Map("map");
+        map.add(moveEnd, click, focus);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(moveEnd.getChannelPolicy()).isEqualTo(EventChannelPolicy.LATEST);
+        assertThat(click.getChannelPolicy()).isEqualTo(EventChannelPolicy.DEFAULT);
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .contains("\"ch\":\"leaflet:" + map.getMarkupId() + ":moveend|d\"")
+                .contains("\"ch\":\"leaflet:" + map.getMarkupId() + ":focus|a\"")
+                .doesNotContain(":click|");
+    }
+
+    @Test
+    public void testSharesCallbackUrlOfEventHub() {
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        final TestAjaxEventBehavior focus = new TestAjaxEventBehavior(MapEventType.FOCUS);
+        Map map = new Map("map");
+        map.add(click, focus);
+
+        getTester().startComponentInPage(map);
+
+        final CharSequence hubUrl = MapEventHub.of(map).getCallbackUrl();
+        assertThat(click.getCallbackUrl()).isEqualTo(hubUrl);
+        assertThat(focus.getCallbackUrl()).isEqualTo(hubUrl);
+    }
+
+    @Test
+    public void testRoutesEventToBehaviorOfEventType() {
+        final WicketTester tester = this.getTester();
+
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        final TestAjaxEventBehavior focus = new TestAjaxEventBehavior(MapEventType.FOCUS);
+        final Map map = new Map("map");
+        map.add(click, focus);
+
+        tester.startComponentInPage(map);
+
+        final MockHttpServletRequest request = this.prepareRequest(tester, click, MapEventType.FOCUS,
+                PlainEvent.of(MapEventType.FOCUS));
+        tester.processRequest(request);
+
+        assertThat(click.wasTriggered).isFalse();
+        assertThat(focus.wasTriggered).isTrue();
     }
 
     @Test
@@ -107,14 +219,218 @@ public final class LeafletAjaxEventBehaviorTest extends AbstractLeafletTest {
         assertThat(behavior.lastEvent).isEqualToComparingFieldByField(jsonEvent);
     }
 
+    @Test
+    public void testIgnoresStaleEvent() {
+        final WicketTester tester = this.getTester();
+
+        final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.MOVE_END);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        final PlainEvent event = PlainEvent.of(MapEventType.MOVE_END);
+
+        for (String sequence : new String[] {"2", "1", "2", "3"}) {
+            final MockHttpServletRequest request = this.prepareRequest(tester, behavior, MapEventType.MOVE_END, event);
+            request.setParameter(MapEventHub.SEQUENCE_PARAMETER, sequence);
+            tester.processRequest(request);
+        }
+
+        assertThat(behavior.triggerCount).isEqualTo(2);
+    }
+
+    @Test
+    public void testOrdersEventsByRenderOfMap() {
+        final WicketTester tester = this.getTester();
+
+        final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.MOVE_END);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        final long previous = MapEventHub.of(map).getEpoch();
+        tester.startComponentInPage(map);
+        final long current = MapEventHub.of(map).getEpoch();
+        final PlainEvent event = PlainEvent.of(MapEventType.MOVE_END);
+
+        // event of previous render arrives after map was rendered again
+        final long[][] events = {{previous, 5}, {current, 1}, {previous, 6}, {current, 2}};
+        for (long[] epochAndSequence : events) {
+            final MockHttpServletRequest request = this.prepareRequest(tester, behavior, MapEventType.MOVE_END, event);
+            request.setParameter(MapEventHub.EPOCH_PARAMETER, String.valueOf(epochAndSequence[0]));
+            request.setParameter(MapEventHub.SEQUENCE_PARAMETER, String.valueOf(epochAndSequence[1]));
+            tester.processRequest(request);
+        }
+
+        assertThat(current).isGreaterThan(previous);
+        assertThat(behavior.triggerCount).isEqualTo(3);
+    }
+
+    @Test
+    public void testRendersFilterOfBehavior() {
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        click.setFilter(EventFilter.zoomAtLeast(12));
+        Map map = new Map("map");
+        map.add(click);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
+                .contains("0,null,null,function(c,s){return c.zoom>=12.0;}]");
+    }
+
+    @Test
+    public void testIgnoresEventRejectedByFilter() {
+        final WicketTester tester = this.getTester();
+
+        final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.CLICK);
+        behavior.setFilter(EventFilter.zoomAtLeast(12).and(EventFilter.movedMoreThan(10)));
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        final PlainEvent event = PlainEvent.of(MapEventType.CLICK);
+
+        for (String context : new String[] {null, "11,48,17,0,0,", "12,48,17,0,0,", "12,48,17,5,5,", "13,48,17,20,0,"}) {
+            final MockHttpServletRequest request = this.prepareRequest(tester, behavior, MapEventType.CLICK, event);
+            if (context != null) {
+                request.setParameter(EventFilter.CONTEXT_PARAMETER, context);
+            }
+            tester.processRequest(request);
+        }
+
+        assertThat(behavior.triggerCount).isEqualTo(2);
+    }
+
+    @Test
+    public void testFiltersPositionFromPayloadOfEvent() {
+        final WicketTester tester = this.getTester();
+
+        final int[] triggerCount = new int[1];
+        final MouseEventBehavior behavior = new MouseEventBehavior(MapEventType.CLICK) {
+            @Override
+            protected void onEvent(MouseEvent event, AjaxRequestTarget target) {
+                triggerCount[0]++;
+            }
+        };
+        behavior.setFilter(EventFilter.within(LatLngBounds.of(LatLng.of(48.2, 17.2), LatLng.of(48.1, 17.0))));
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+
+        // client claims position within bounds, but payload is outside of them
+        final MockHttpServletRequest outside = this.prepareRequest(tester, behavior, MapEventType.CLICK,
+                MouseEvent.builder().type(MapEventType.CLICK).latLng(LatLng.of(50.0, 14.4)).build());
+        outside.setParameter(EventFilter.CONTEXT_PARAMETER, "12,48.15,17.1,0,0,");
+        tester.processRequest(outside);
+
+        final MockHttpServletRequest inside = this.prepareRequest(tester, behavior, MapEventType.CLICK,
+                MouseEvent.builder().type(MapEventType.CLICK).latLng(LatLng.of(48.15, 17.1)).build());
+        inside.setParameter(EventFilter.CONTEXT_PARAMETER, "12,50,14.4,0,0,");
+        tester.processRequest(inside);
+
+        assertThat(triggerCount[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void testReadOnlyEventDoesntChangePage() {
+        final WicketTester tester = this.getTester();
+
+        final PageStateBehavior behavior = new PageStateBehavior(MapEventType.CLICK);
+        behavior.setReadOnly(true);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        final Page page = map.getPage();
+
+        tester.processRequest(this.prepareRequest(tester, behavior, MapEventType.CLICK, PlainEvent.of(MapEventType.CLICK)));
+
+        assertThat(behavior.wasTriggered).isTrue();
+        assertThat(behavior.pageFrozen).isTrue();
+        assertThat(page.setFreezePageId(false)).isFalse();
+        assertThat(tester.getSession().getPageManager().getPage(page.getPageId())).isNull();
+    }
+
+    @Test
+    public void testEventChangesPage() {
+        final WicketTester tester = this.getTester();
+
+        final PageStateBehavior behavior = new PageStateBehavior(MapEventType.CLICK);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        final Page page = map.getPage();
+
+        tester.processRequest(this.prepareRequest(tester, behavior, MapEventType.CLICK, PlainEvent.of(MapEventType.CLICK)));
+
+        assertThat(behavior.wasTriggered).isTrue();
+        assertThat(behavior.pageFrozen).isFalse();
+        assertThat(tester.getSession().getPageManager().getPage(page.getPageId())).isSameAs(page);
+    }
+
+    @Test
+    public void testHintsClientToSlowDownUnderLoad() {
+        final WicketTester tester = this.getTester();
+        final EventBackpressure backpressure = EventBackpressure.get(tester.getApplication())
+                .setLatencyThreshold(Duration.milliseconds(1))
+                .setHintDuration(Duration.seconds(2));
+        for (int i = 0; i < 50; i++) {
+            backpressure.record(100000000L);
+        }
+
+        final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.MOUSEMOVE);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        tester.processRequest(this.prepareRequest(tester, behavior, MapEventType.MOUSEMOVE,
+                PlainEvent.of(MapEventType.MOUSEMOVE)));
+
+        assertThat(behavior.wasTriggered).isTrue();
+        assertThat(tester.getLastResponseAsString())
+                .contains("WicketLeaflet.Map.backoff(" + map.getMapVarName() + ",8,2000);");
+    }
+
+    @Test
+    public void testDoesntHintClientWhenServerKeepsUp() {
+        final WicketTester tester = this.getTester();
+
+        final TestAjaxEventBehavior behavior = new TestAjaxEventBehavior(MapEventType.MOUSEMOVE);
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        tester.processRequest(this.prepareRequest(tester, behavior, MapEventType.MOUSEMOVE,
+                PlainEvent.of(MapEventType.MOUSEMOVE)));
+
+        assertThat(behavior.wasTriggered).isTrue();
+        assertThat(tester.getLastResponseAsString()).doesNotContain("WicketLeaflet.Map.backoff(");
+        assertThat(EventBackpressure.get(tester.getApplication()).getPendingEvents()).isZero();
+    }
+
+    @Test
+    public void testSharesDecoderForPayloadType() {
+        final TestAjaxEventBehavior click = new TestAjaxEventBehavior(MapEventType.CLICK);
+        final TestAjaxEventBehavior focus = new TestAjaxEventBehavior(MapEventType.FOCUS);
+
+        assertThat(click.getDecoder())
+                .isSameAs(focus.getDecoder())
+                .isSameAs(JsonRendererFactory.getJsonRenderer().getDecoder(PlainEvent.class));
+    }
+
     private class TestAjaxEventBehavior extends LeafletAjaxEventBehavior<PlainEvent> {
 
         boolean wasTriggered = false;
 
         Event lastEvent = null;
 
+        int triggerCount = 0;
+
         public TestAjaxEventBehavior(MapEventType eventType) {
-            super(eventType, PlainEvent.class, "WicketLeaflet.Event.getEvent(event)");
+            super(eventType, PlainEvent.class, "WicketLeaflet.Event.getEvent");
         }
 
         @Override
@@ -126,8 +442,29 @@ public final class LeafletAjaxEventBehaviorTest extends AbstractLeafletTest {
         protected void onEvent(PlainEvent event, AjaxRequestTarget target) {
             this.wasTriggered = true;
             this.lastEvent = event;
+            this.triggerCount++;
+        }
+
+    }
+
+    /**
+     * Behavior, that records whether page could be changed by handler.
+     */
+    private class PageStateBehavior extends TestAjaxEventBehavior {
+
+        boolean pageFrozen = false;
+
+        PageStateBehavior(MapEventType eventType) {
+            super(eventType);
         }
 
+        @Override
+        protected void onEvent(PlainEvent event, AjaxRequestTarget target) {
+            super.onEvent(event, target);
+            final Page page = this.getComponent().getPage();
+            this.pageFrozen = page.setFreezePageId(true);
+            page.setFreezePageId(this.pageFrozen);
+        }
     }
 
 }
@@ -79,10 +79,11 @@ public final class LocationEventBehaviorTest extends AbstractLeafletTest {
 
         tester.startComponentInPage(map);
 
-        assertThat(behavior.getInitializationScript())
+        assertThat(MapEventHub.of(map).getRegistrationScript(map))
                 .isNotNull()
-                .startsWith(map.getMapVarName())
-                .contains("on('" + MapEventType.LOCATION_ERROR.getJavascriptName() + "'");
+                .startsWith("WicketLeaflet.Map.on(" + map.getMapVarName())
+                .contains("[\"" + MapEventType.LOCATION_FOUND.getJavascriptName() + "\",")
+                .contains("[\"" + MapEventType.LOCATION_ERROR.getJavascriptName() + "\",");
     }
 
     @Test
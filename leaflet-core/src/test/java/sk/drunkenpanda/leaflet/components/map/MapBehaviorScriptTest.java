@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractScriptTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapBehaviorScriptTest extends AbstractScriptTest {
+
+    @Before
+    public void loadScripts() {
+        load(MapBehavior.class, "MapBehavior.js");
+    }
+
+    @Test
+    public void testFiltersEventsBeforeRateLimit() {
+        eval("var map = L.map('map');"
+                + "WicketLeaflet.Map.on(map, {u: 'url'}, [{}], [['click', function(e) { return String(e.latlng.lat); }, 0,"
+                + " {mode: 'throttle', delay: 100, leading: true, trailing: true}, null,"
+                + " function(c, s) { return c.shift; }]]);"
+                + "var fire = function(lat, shift) {"
+                + "    map.fire('click', {latlng: {lat: lat, lng: 17}, originalEvent: {shiftKey: shift}});"
+                + "};");
+
+        eval("fire(1, true); fire(2, true); fire(3, false); stubs.runTimers();");
+
+        assertThat(evalInt("stubs.requests.length")).isEqualTo(2);
+        assertThat(eval("stubs.requests[1].ep[3].value")).isEqualTo("2");
+        assertThat(eval("stubs.requests[1].ep[4].value")).isEqualTo("10,2,17,170,20,shift");
+    }
+
+    @Test
+    public void testMeasuresDistanceFromLastSentEvent() {
+        eval("var map = L.map('map');"
+                + "WicketLeaflet.Map.on(map, {u: 'url'}, [{}], [['click', function(e) { return String(e.latlng.lat); }, 0,"
+                + " {mode: 'debounce', delay: 100, leading: false, trailing: true}, null,"
+                + " function(c, s) { return s.x === undefined || Math.abs(c.y - s.y) > 15; }]]);"
+                + "var fire = function(lat) { map.fire('click', {latlng: {lat: lat, lng: 17}}); };");
+
+        eval("fire(1); fire(2); stubs.runTimers(); fire(3); fire(4); stubs.runTimers();");
+
+        assertThat(evalInt("stubs.requests.length")).isEqualTo(2);
+        assertThat(eval("stubs.requests[0].ep[3].value")).isEqualTo("2");
+        assertThat(eval("stubs.requests[1].ep[3].value")).isEqualTo("4");
+    }
+
+    @Test
+    public void testTogglesControlsOfUpdatedMap() {
+        eval("var map = L.map('map', {}); map.zoomControl = L.control.zoom(); map.addControl(map.zoomControl);");
+
+        eval("WicketLeaflet.Map.update(map, {zoomControl: false, attributionControl: true});");
+
+        assertThat(eval("typeof map.zoomControl")).isEqualTo("undefined");
+        assertThat(eval("map.layers.length === 1 && map.layers[0] === map.attributionControl")).isEqualTo(true);
+        assertThat(eval("map.options.zoomControl")).isEqualTo(false);
+    }
+
+    @Test
+    public void testLazyMapRenderedAgainKeepsOnlyItsRegistrations() {
+        eval("var created = 0; var registered = 0;"
+                + "var render = function(element) {"
+                + "    WicketLeaflet.Map.lazy(element, 'lazyMap', function() {"
+                + "        created++;"
+                + "        window.lazyMap = L.map(element);"
+                + "    });"
+                + "    WicketLeaflet.Map.ready('lazyMap', function(map) { registered++; });"
+                + "};"
+                + "var first = {}; var second = {};");
+
+        eval("render(first); render(second);");
+
+        assertThat(evalInt("WicketLeaflet.Map.waiting.lazyMap.length")).isEqualTo(1);
+        assertThat(eval("stubs.observers[0].disconnected")).isEqualTo(Boolean.TRUE);
+
+        eval("stubs.scrollIntoView(first); stubs.scrollIntoView(second);");
+
+        assertThat(evalInt("created")).isEqualTo(1);
+        assertThat(evalInt("registered")).isEqualTo(1);
+        assertThat(eval("window.lazyMap.element === second")).isEqualTo(Boolean.TRUE);
+        assertThat(eval("WicketLeaflet.Map.waiting.lazyMap")).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.ResponseWriter;
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapBootstrapHeaderItemTest extends AbstractLeafletTest {
+
+    private final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+    @Test
+    public void testRendersMapScriptToPage() {
+        final LatLng center = LatLng.of(51.505, -0.09);
+        final MapOptions options = MapOptions.builder().zoom(13).build();
+        final Map map = new Map("map", Model.of(center), options);
+
+        getTester().startPage(new MapPage(map));
+
+        final String page = getTester().getLastResponseAsString();
+        assertThat(page)
+                .contains("var " + map.getMapVarName() + "Options = WicketLeaflet.Map.prepareOptions(")
+                .contains(renderer.toJson(options))
+                .contains(renderer.toJson(center))
+                .contains("window." + map.getMapVarName() + " = L.map('" + map.getMarkupId() + "', ");
+    }
+
+    @Test
+    public void testStreamedScriptEqualsStringScript() {
+        final Map map = new Map("map", Model.of(LatLng.of(10.0, 20.0)), MapOptions.builder().build());
+        getTester().startComponentInPage(map);
+
+        final MapBootstrapHeaderItem item = new MapBootstrapHeaderItem(map);
+        final StringResponse response = new StringResponse();
+        item.render(response);
+
+        assertThat(response.toString()).contains(item.getJavaScript());
+    }
+
+    @Test
+    public void testEscapesClosingTagsInScript() throws Exception {
+        final StringResponse response = new StringResponse();
+        final ResponseWriter writer = new ResponseWriter(response, true);
+
+        writer.write("\"</script>\", \"<");
+        writer.write("/div>\"");
+
+        assertThat(response.toString()).isEqualTo("\"<\\/script>\", \"<\\/div>\"");
+    }
+
+    /**
+     * Simple page that contains only map.
+     */
+    private static final class MapPage extends WebPage implements IMarkupResourceStreamProvider {
+
+        MapPage(Map map) {
+            add(map);
+        }
+
+        @Override
+        public IResourceStream getMarkupResourceStream(MarkupContainer container, Class<?> containerClass) {
+            return new StringResourceStream("<html><head></head><body><div wicket:id=\"map\"></div></body></html>");
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.util.Collections;
+
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.util.lang.Args;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapCommandsTest extends AbstractLeafletTest {
+
+    @Test
+    public void testSendsCommandsOfRequestAsSingleArray() {
+        final Map map = new Map("map");
+        final CommandBehavior behavior = new CommandBehavior(false) {
+
+            @Override
+            void issue(MapCommands commands) {
+                commands.setView(LatLng.of(48.1486, 17.1077), 12)
+                        .addFeature("bus", LatLng.of(48.15, 17.11), Collections.singletonMap("title", "Bus"))
+                        .removeFeatures("tram", "train")
+                        .setStyle("bus", Collections.singletonMap("opacity", 0.5));
+                commands.fitBounds(LatLngBounds.of(LatLng.of(49, 18), LatLng.of(48, 17)));
+            }
+        };
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+        getTester().executeBehavior(behavior);
+
+        assertThat(getTester().getLastResponseAsString()).containsOnlyOnce("WicketLeaflet.Map.run(")
+                .contains("WicketLeaflet.Map.run(" + map.getMapVarName() + ",[[\"v\",[48.1486,17.1077],12],"
+                        + "[\"a\",\"bus\",[48.15,17.11],{\"title\":\"Bus\"}],[\"r\",\"tram\",\"train\"],"
+                        + "[\"s\",\"bus\",{\"opacity\":0.5}],[\"b\",[49,18],[48,17]]]);");
+    }
+
+    @Test
+    public void testRunsCommandsWithMapRenderedInTheSameRequest() {
+        final Map map = new Map("map");
+        final CommandBehavior behavior = new CommandBehavior(true) {
+
+            @Override
+            void issue(MapCommands commands) {
+                commands.panTo(LatLng.of(48.0, 17.0));
+            }
+        };
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+        getTester().executeBehavior(behavior);
+
+        final String response = getTester().getLastResponseAsString();
+        assertThat(response).containsOnlyOnce("WicketLeaflet.Map.run(")
+                .contains("WicketLeaflet.Map.run(" + map.getMapVarName() + ",[[\"p\",[48,17]]]);");
+        assertThat(response.indexOf("WicketLeaflet.Map.run("))
+                .isGreaterThan(response.indexOf("window." + map.getMapVarName() + " = L.map("));
+    }
+
+    @Test
+    public void testEscapesClosingTagsOfCommandsRenderedWithMap() {
+        final Map map = new Map("map");
+        map.getCommands().addFeature("x", LatLng.of(48, 17),
+                Collections.singletonMap("title", "</script><b>pwn</b>"));
+
+        assertThat(new MapBootstrapHeaderItem(map).getJavaScript().toString())
+                .contains("\"title\":\"<\\/script><b>pwn<\\/b>\"")
+                .doesNotContain("</");
+    }
+
+    @Test
+    public void testRunsCommandsIssuedBeforeRenderingWithMap() {
+        final Map map = new Map("map");
+        map.getCommands().setZoom(5).invalidateSize();
+
+        assertThat(new MapBootstrapHeaderItem(map).getJavaScript())
+                .contains("WicketLeaflet.Map.run(" + map.getMapVarName() + ",[[\"z\",5],[\"i\"]]);");
+        assertThat(new MapBootstrapHeaderItem(map).getJavaScript()).doesNotContain("WicketLeaflet.Map.run(");
+    }
+
+    @Test
+    public void testOmitsEmptyFeatureOptions() {
+        final Map map = new Map("map");
+        map.getCommands().addFeature("bus", LatLng.of(48.0, 17.0)).removeFeatures().clearFeatures();
+
+        assertThat(map.getCommands().flush("map"))
+                .isEqualTo("WicketLeaflet.Map.run(map,[[\"a\",\"bus\",[48,17]],[\"c\"]]);");
+        assertThat(map.getCommands().flush("map")).isNull();
+    }
+
+    /**
+     * Behavior, that issues commands of map in AJAX request.
+     */
+    private abstract static class CommandBehavior extends AbstractDefaultAjaxBehavior {
+
+        private final boolean rerender;
+
+        CommandBehavior(boolean rerender) {
+            this.rerender = rerender;
+        }
+
+        @Override
+        protected void respond(AjaxRequestTarget target) {
+            final Map map = (Map) Args.notNull(this.getComponent(), "component");
+            issue(map.getCommands());
+            if (rerender) {
+                target.add(map);
+            }
+        }
+
+        abstract void issue(MapCommands commands);
+    }
+}
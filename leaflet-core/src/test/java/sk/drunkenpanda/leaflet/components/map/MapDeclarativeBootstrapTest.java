@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.apache.wicket.util.tester.TagTester;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.DefaultLeafletSettings;
+import sk.drunkenpanda.leaflet.LeafletSettings;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.TileLayer;
+import sk.drunkenpanda.leaflet.models.TileLayerOptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapDeclarativeBootstrapTest extends AbstractLeafletTest {
+
+    private static final TileLayer STREETS = TileLayer.of("streets.com/{x}", TileLayerOptions.builder().build());
+
+    @Override
+    protected LeafletSettings getSettings() {
+        return new DefaultLeafletSettings.Builder()
+                .setMapBootstrap(MapBootstrap.DECLARATIVE)
+                .build();
+    }
+
+    @Test
+    public void testWritesOptionsToDataAttribute() {
+        final Map map = new Map("map", MapOptions.builder().zoom(13).addLayers(STREETS).build());
+        map.setDefaultModelObject(LatLng.of(48.0, 17.0));
+
+        getTester().startComponentInPage(map);
+
+        final String data = getData();
+        assertThat(data).startsWith("{\"name\":\"" + map.getMapVarName() + "\",\"options\":{")
+                .contains("\"zoom\":13")
+                .contains("{\"leafletCall\":\"L.tileLayer\",\"args\":[\"streets.com/{x}\"")
+                .endsWith("\"center\":[48,17]}");
+        assertThat(getTester().getLastResponseAsString()).doesNotContain("L.map(");
+    }
+
+    @Test
+    public void testWritesLayersAndCommandsToDataAttribute() {
+        final Map map = new Map("map");
+        map.getLayers().add("streets", STREETS);
+        map.getCommands().setZoom(5);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(getData())
+                .contains("\"layers\":{\"streets\":{\"leafletCall\":\"L.tileLayer\",\"args\":[\"streets.com/{x}\"")
+                .endsWith("\"commands\":[[\"z\",5]]}");
+    }
+
+    @Test
+    public void testWritesLazyInitializationToDataAttribute() {
+        final Map map = new Map("map").setLazyInitialization(true);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(getData()).contains("\"lazy\":true");
+    }
+
+    @Test
+    public void testDoesntRenderBootstrapScript() {
+        final Map map = new Map("map");
+
+        getTester().startComponentInPage(map);
+
+        assertThat(getTester().getLastResponse().getDocument()).doesNotContain("L.map(")
+                .contains("sk.drunkenpanda.leaflet.components.map.MapBehavior/MapBehavior");
+    }
+
+    private String getData() {
+        final TagTester tag = getTester().getTagByWicketId("map");
+        assertThat(tag).isNotNull();
+        return tag.getAttribute(MapBootstrap.DATA_ATTRIBUTE);
+    }
+}
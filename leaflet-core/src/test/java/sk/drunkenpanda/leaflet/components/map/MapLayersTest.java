@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.util.lang.Args;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.TileLayer;
+import sk.drunkenpanda.leaflet.models.TileLayerOptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapLayersTest extends AbstractLeafletTest {
+
+    private static final TileLayer STREETS = TileLayer.of("streets.com/{x}", TileLayerOptions.builder().build());
+
+    private static final TileLayer TRAFFIC = TileLayer.of("traffic.com/{x}", TileLayerOptions.builder().build());
+
+    private static final TileLayer WEATHER = TileLayer.of("weather.com/{x}", TileLayerOptions.builder().build());
+
+    private final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+    @Test
+    public void testRendersLayersWithMap() {
+        final Map map = new Map("map");
+        map.getLayers().add("streets", STREETS);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(new MapBootstrapHeaderItem(map).getJavaScript()).contains("WicketLeaflet.Map.patch("
+                + map.getMapVarName() + ",[[\"a\",\"streets\"," + renderer.toJson(STREETS) + "]]);");
+    }
+
+    @Test
+    public void testEscapesClosingTagsOfLayersRenderedWithMap() {
+        final Map map = new Map("map");
+        map.getLayers().add("streets", TileLayer.of("streets.com/{x}",
+                TileLayerOptions.builder().attribution("</script><b>pwn</b>").build()));
+
+        assertThat(new MapBootstrapHeaderItem(map).getJavaScript().toString())
+                .contains("<\\/script><b>pwn<\\/b>")
+                .doesNotContain("</");
+    }
+
+    @Test
+    public void testSendsChangesOfRequestAsSinglePatch() {
+        final Map map = new Map("map");
+        map.getLayers().add("streets", STREETS);
+        map.getLayers().add("weather", WEATHER);
+        final LayerBehavior behavior = new LayerBehavior(false) {
+
+            @Override
+            void change(MapLayers layers) {
+                layers.add("traffic", STREETS);
+                layers.remove("weather");
+                layers.update("traffic", TRAFFIC);
+                layers.update("streets", STREETS);
+            }
+        };
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+        getTester().executeBehavior(behavior);
+
+        final String response = getTester().getLastResponseAsString();
+        assertThat(response).containsOnlyOnce("WicketLeaflet.Map.patch(")
+                .contains("WicketLeaflet.Map.patch(" + map.getMapVarName() + ",[[\"r\",\"weather\"],"
+                        + "[\"a\",\"traffic\"," + renderer.toJson(TRAFFIC) + "]]);");
+        assertThat(map.getLayers().asMap()).containsOnlyKeys("streets", "traffic");
+    }
+
+    @Test
+    public void testDoesntPatchMapRenderedInTheSameRequest() {
+        final Map map = new Map("map");
+        final LayerBehavior behavior = new LayerBehavior(true) {
+
+            @Override
+            void change(MapLayers layers) {
+                layers.add("traffic", TRAFFIC);
+            }
+        };
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+        getTester().executeBehavior(behavior);
+
+        assertThat(getTester().getLastResponseAsString()).containsOnlyOnce("WicketLeaflet.Map.patch(")
+                .contains("window." + map.getMapVarName() + " = L.map(");
+    }
+
+    @Test
+    public void testSendsChangesAfterFailedRequest() {
+        final Map map = new Map("map");
+        final LayerBehavior behavior = new LayerBehavior(false) {
+
+            private boolean failed;
+
+            @Override
+            void change(MapLayers layers) {
+                if (!failed) {
+                    failed = true;
+                    layers.add("weather", WEATHER);
+                    throw new IllegalStateException("Request failed.");
+                }
+                layers.add("traffic", TRAFFIC);
+            }
+        };
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+        try {
+            getTester().executeBehavior(behavior);
+        } catch (WicketRuntimeException ex) {
+            // changes of failed request are dropped with request
+        }
+        getTester().executeBehavior(behavior);
+
+        assertThat(getTester().getLastResponseAsString()).contains("WicketLeaflet.Map.patch(" + map.getMapVarName()
+                + ",[[\"a\",\"traffic\"," + renderer.toJson(TRAFFIC) + "]]);");
+    }
+
+    @Test
+    public void testGeneratesUniqueIds() {
+        final MapLayers layers = new Map("map").getLayers();
+        layers.add("layer1", STREETS);
+
+        assertThat(layers.add(TRAFFIC)).isEqualTo("layer2");
+        assertThat(layers.add(WEATHER)).isEqualTo("layer3");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRejectsDuplicateId() {
+        final MapLayers layers = new Map("map").getLayers();
+        layers.add("streets", STREETS);
+        layers.add("streets", TRAFFIC);
+    }
+
+    /**
+     * Behavior, that changes layers of map in AJAX request.
+     */
+    private abstract static class LayerBehavior extends AbstractDefaultAjaxBehavior {
+
+        private final boolean rerender;
+
+        LayerBehavior(boolean rerender) {
+            this.rerender = rerender;
+        }
+
+        @Override
+        protected void respond(AjaxRequestTarget target) {
+            final Map map = (Map) Args.notNull(this.getComponent(), "component");
+            change(map.getLayers());
+            if (rerender) {
+                target.add(map);
+            }
+        }
+
+        abstract void change(MapLayers layers);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.DefaultLeafletSettings;
+import sk.drunkenpanda.leaflet.LeafletSettings;
+import sk.drunkenpanda.leaflet.behaviors.MouseEventBehavior;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapLazyInitializationTest extends AbstractLeafletTest {
+
+    @Override
+    protected LeafletSettings getSettings() {
+        return new DefaultLeafletSettings.Builder()
+                .setLazyMapInitialization(true)
+                .build();
+    }
+
+    @Test
+    public void testCreatesMapWhenItScrollsIntoView() {
+        final Map map = new Map("map");
+        map.getCommands().setZoom(5);
+
+        getTester().startComponentInPage(map);
+
+        final String script = new MapBootstrapHeaderItem(map).getJavaScript().toString();
+        assertThat(script).startsWith("WicketLeaflet.Map.lazy(document.getElementById('" + map.getMarkupId()
+                + "'), '" + map.getMapVarName() + "', function() {\n")
+                .contains("window." + map.getMapVarName() + " = L.map(")
+                .endsWith("\n});");
+    }
+
+    @Test
+    public void testRegistersEventHandlersWhenMapIsCreated() {
+        final Map map = new Map("map");
+        map.add(new TestMouseEventBehavior());
+
+        getTester().startComponentInPage(map);
+
+        assertThat(getTester().getLastResponse().getDocument())
+                .contains("WicketLeaflet.Map.ready(\"" + map.getMapVarName() + "\",function(){WicketLeaflet.Map.on(");
+    }
+
+    @Test
+    public void testMapCanOverrideSettings() {
+        final Map map = new Map("map").setLazyInitialization(false);
+        map.add(new TestMouseEventBehavior());
+
+        getTester().startComponentInPage(map);
+
+        assertThat(map.isLazyInitialization()).isFalse();
+        assertThat(getTester().getLastResponse().getDocument()).doesNotContain("WicketLeaflet.Map.lazy(")
+                .doesNotContain("WicketLeaflet.Map.ready(")
+                .contains("WicketLeaflet.Map.on(" + map.getMapVarName());
+    }
+
+    @Test
+    public void testWaitsForMapInAjaxResponse() {
+        final Map map = new Map("map");
+
+        getTester().startComponentInPage(map);
+
+        assertThat(map.whenCreated("WicketLeaflet.Map.run(map1Map,[[\"i\"]]);"))
+                .isEqualTo("WicketLeaflet.Map.ready(\"" + map.getMapVarName()
+                        + "\",function(){WicketLeaflet.Map.run(map1Map,[[\"i\"]]);});");
+    }
+
+    /**
+     * Mouse event behavior, that ignores events.
+     */
+    private static final class TestMouseEventBehavior extends MouseEventBehavior {
+
+        private static final long serialVersionUID = 20171018220000L;
+
+        TestMouseEventBehavior() {
+            super(MapEventType.CLICK);
+        }
+
+        @Override
+        protected void onEvent(MouseEvent event, AjaxRequestTarget target) {
+        }
+    }
+}
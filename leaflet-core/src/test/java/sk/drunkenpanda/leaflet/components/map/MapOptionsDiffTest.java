@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.components.map;
+
+import java.util.Arrays;
+
+import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.json.JsonRenderer;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.TileLayer;
+import sk.drunkenpanda.leaflet.models.TileLayerOptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Jan Ferko
+ */
+public final class MapOptionsDiffTest extends AbstractLeafletTest {
+
+    private final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+    @Test
+    public void testWritesOnlyChangedOptions() {
+        final MapOptions previous = MapOptions.builder().zoom(10).isDragging(true).build();
+        final LatLngBounds bounds = LatLngBounds.of(LatLng.of(49, 18), LatLng.of(48, 17));
+        final MapOptions current = MapOptions.builder().zoom(12).isDragging(false).maxBounds(bounds).build();
+
+        assertThat(MapOptionsDiff.toJavaScript("mapVar", previous, current, renderer))
+                .isEqualTo("WicketLeaflet.Map.update(mapVar,{\"zoom\":12,\"maxBounds\":[[49,18],[48,17]],"
+                        + "\"dragging\":false});");
+        assertThat(MapOptionsDiff.toJavaScript("mapVar", current, MapOptions.copyOf(current), renderer)).isNull();
+    }
+
+    @Test
+    public void testWritesRemovedOptionAsNull() {
+        final MapOptions previous = MapOptions.builder().minZoom(3).build();
+
+        assertThat(MapOptionsDiff.toJavaScript("mapVar", previous, MapOptions.builder().build(), renderer))
+                .isEqualTo("WicketLeaflet.Map.update(mapVar,{\"minZoom\":null});");
+    }
+
+    @Test
+    public void testWritesToggledControls() {
+        final MapOptions previous = MapOptions.builder().build();
+        final MapOptions current = MapOptions.builder().isZoomControl(false).isAttributionControl(false).build();
+
+        assertThat(MapOptionsDiff.toJavaScript("mapVar", previous, current, renderer))
+                .isEqualTo("WicketLeaflet.Map.update(mapVar,{\"zoomControl\":false,\"attributionControl\":false});");
+    }
+
+    @Test
+    public void testKeepsUnchangedLayers() {
+        final TileLayerOptions opts = TileLayerOptions.builder().build();
+        final TileLayer streets = TileLayer.of("streets.com/{x}", opts);
+        final TileLayer satellite = TileLayer.of("satellite.com/{x}", opts);
+        final TileLayer terrain = TileLayer.of("terrain.com/{x}", opts);
+        final MapOptions previous = MapOptions.builder().addLayers(streets, satellite).build();
+        final MapOptions current = MapOptions.builder().addLayers(terrain, satellite).build();
+
+        assertThat(MapOptionsDiff.diffLayers(previous.getLayers(), current.getLayers()))
+                .containsExactly(terrain, 1);
+        assertThat(MapOptionsDiff.toJavaScript("mapVar", previous, current, renderer))
+                .isEqualTo("WicketLeaflet.Map.update(mapVar,{\"layers\":"
+                        + renderer.toJson(Arrays.<Object>asList(terrain, 1)) + "});");
+    }
+
+    @Test
+    public void testUpdatesMapWithoutRecreatingIt() {
+        final MapOptions options = MapOptions.builder().zoom(5).build();
+        final Map map = new Map("map", options);
+        getTester().startComponentInPage(map);
+
+        final IPartialPageRequestHandler target = mock(IPartialPageRequestHandler.class);
+        map.updateOptions(MapOptions.copyOf(options), target);
+        verify(target, never()).add(map);
+        verify(target, never()).appendJavaScript(anyString());
+
+        final MapOptions zoomed = MapOptions.builder().zoom(7).build();
+        map.updateOptions(zoomed, target);
+        verify(target).appendJavaScript("WicketLeaflet.Map.update(" + map.getMapVarName() + ",{\"zoom\":7});");
+        assertThat(map.getOptions()).isSameAs(zoomed);
+    }
+}
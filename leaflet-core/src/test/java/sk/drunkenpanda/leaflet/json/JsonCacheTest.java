@@ -0,0 +1,80 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.components.map.MapOptions;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.TileLayerOptions;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Jan Ferko
+ */
+public final class JsonCacheTest {
+
+    @Test
+    public void testReusesJsonOfEqualObjects() {
+        final JsonCache cache = new JsonCache(10);
+        final JsonRenderer renderer = new JsonRenderer(JsonProfile.DEPLOYMENT, 7, cache);
+
+        final String first = renderer.toJson(MapOptions.builder().zoom(13).build());
+        final String second = renderer.toJson(MapOptions.builder().zoom(13).build());
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStreamsCachedJson() {
+        final JsonCache cache = new JsonCache(10);
+        final JsonRenderer renderer = new JsonRenderer(JsonProfile.DEPLOYMENT, 7, cache);
+        final MapOptions options = MapOptions.builder().zoom(5).build();
+        final StringWriter writer = new StringWriter();
+
+        renderer.writeJson(options, writer);
+
+        assertThat(writer.toString()).isEqualTo(renderer.toJson(options));
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedObject() {
+        final JsonCache cache = new JsonCache(2);
+        final JsonRenderer renderer = new JsonRenderer(JsonProfile.DEPLOYMENT, 7, cache);
+        final TileLayerOptions first = TileLayerOptions.builder().minZoom(1).build();
+        final TileLayerOptions second = TileLayerOptions.builder().minZoom(2).build();
+        final TileLayerOptions third = TileLayerOptions.builder().minZoom(3).build();
+
+        renderer.toJson(first);
+        renderer.toJson(second);
+        renderer.toJson(first);
+        renderer.toJson(third);
+        renderer.toJson(second);
+
+        assertThat(cache.getEvictionCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(4);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoesntCacheOtherTypes() {
+        final JsonCache cache = new JsonCache(10);
+        final JsonRenderer renderer = new JsonRenderer(JsonProfile.DEPLOYMENT, 7, cache);
+
+        renderer.toJson(LatLng.of(10.0, 20.0));
+
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getMissCount()).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyCache() {
+        new JsonCache(0);
+    }
+}
@@ -0,0 +1,96 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.Point;
+
+/**
+ * Compares streaming decoders of event payloads with data-binding.
+ * Run it with {@code main} method from test classpath, it's not executed as part of the build.
+ *
+ * @author Jan Ferko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDecoderBenchmark {
+
+    private JsonDecoder<MouseEvent> mouseDecoder;
+
+    private JsonDecoder<LocationEvent> locationDecoder;
+
+    private String mouseJson;
+
+    private String locationJson;
+
+    @Setup
+    public void setUp() {
+        final JsonRenderer renderer = new JsonRenderer();
+        mouseDecoder = renderer.getDecoder(MouseEvent.class);
+        locationDecoder = renderer.getDecoder(LocationEvent.class);
+
+        mouseJson = renderer.toJson(MouseEvent.builder()
+                .type(MapEventType.MOUSEMOVE)
+                .latLng(LatLng.of(51.505, -0.09))
+                .layerPoint(Point.of(412.0, 236.0))
+                .containerPoint(Point.of(400.0, 230.0))
+                .build());
+        locationJson = renderer.toJson(LocationEvent.builder()
+                .type(MapEventType.LOCATION_FOUND)
+                .latLng(LatLng.of(48.148, 17.107))
+                .latLngBounds(LatLngBounds.of(LatLng.of(48.149, 17.108), LatLng.of(48.147, 17.106)))
+                .accuracy(25.0)
+                .altitude(140.0)
+                .altitudeAccuracy(10.0)
+                .heading(90.0)
+                .speed(1.4)
+                .timestamp(1500000000000.0)
+                .build());
+    }
+
+    @Benchmark
+    public MouseEvent mouseEventStreaming() {
+        return mouseDecoder.decode(mouseJson);
+    }
+
+    @Benchmark
+    public MouseEvent mouseEventDatabind() {
+        return mouseDecoder.decodeWithDatabind(mouseJson);
+    }
+
+    @Benchmark
+    public LocationEvent locationEventStreaming() {
+        return locationDecoder.decode(locationJson);
+    }
+
+    @Benchmark
+    public LocationEvent locationEventDatabind() {
+        return locationDecoder.decodeWithDatabind(locationJson);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
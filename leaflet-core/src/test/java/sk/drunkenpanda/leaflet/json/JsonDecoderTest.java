@@ -0,0 +1,131 @@
+package sk.drunkenpanda.leaflet.json;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.DragEndEvent;
+import sk.drunkenpanda.leaflet.events.ErrorEvent;
+import sk.drunkenpanda.leaflet.events.LocationEvent;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+import sk.drunkenpanda.leaflet.events.ResizeEvent;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LatLngBounds;
+import sk.drunkenpanda.leaflet.models.Point;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Jan Ferko
+ */
+public final class JsonDecoderTest {
+
+    private final JsonRenderer renderer = JsonRendererFactory.getJsonRenderer();
+
+    @Test
+    public void testDecodesMouseEvent() {
+        final MouseEvent expected = MouseEvent.builder()
+                .type(MapEventType.CLICK)
+                .latLng(LatLng.of(51.5, -0.09))
+                .layerPoint(Point.of(10.0, 20.0))
+                .containerPoint(Point.of(30.0, 40.0))
+                .build();
+
+        assertDecodedLikeDatabind(MouseEvent.class, renderer.toJson(expected), expected);
+    }
+
+    @Test
+    public void testDecodesLocationEvent() {
+        final LocationEvent expected = LocationEvent.builder()
+                .type(MapEventType.LOCATION_FOUND)
+                .latLng(LatLng.of(48.1, 17.1))
+                .latLngBounds(LatLngBounds.of(LatLng.of(48.2, 17.2), LatLng.of(48.0, 17.0)))
+                .accuracy(12.5)
+                .altitude(140)
+                .altitudeAccuracy(3)
+                .heading(90)
+                .speed(1.5)
+                .timestamp(1500000000000.0)
+                .build();
+
+        assertDecodedLikeDatabind(LocationEvent.class, renderer.toJson(expected), expected);
+    }
+
+    @Test
+    public void testDecodesOtherEvents() {
+        final ResizeEvent resize = ResizeEvent.of(MapEventType.RESIZE, Point.of(100, 200), Point.of(300, 400));
+        assertDecodedLikeDatabind(ResizeEvent.class, renderer.toJson(resize), resize);
+
+        final DragEndEvent dragEnd = DragEndEvent.of(MapEventType.DRAG_END, 42);
+        assertDecodedLikeDatabind(DragEndEvent.class, renderer.toJson(dragEnd), dragEnd);
+
+        final ErrorEvent error = ErrorEvent.of(MapEventType.LOCATION_ERROR, "Denied", 1);
+        assertDecodedLikeDatabind(ErrorEvent.class, renderer.toJson(error), error);
+
+        final PlainEvent plain = PlainEvent.of(MapEventType.ZOOM_END);
+        assertDecodedLikeDatabind(PlainEvent.class, renderer.toJson(plain), plain);
+    }
+
+    @Test
+    public void testFallsBackToDatabindForUnexpectedInput() {
+        final String json = "{\"type\": \"click\", \"latLng\": [\"51.5\", \"-0.09\"]}";
+
+        final MouseEvent decoded = renderer.getDecoder(MouseEvent.class).decode(json);
+
+        assertThat(decoded.getLatLng()).isEqualTo(LatLng.of(51.5, -0.09));
+    }
+
+    @Test
+    public void testDecodesListOfEvents() {
+        final PlainEvent zoom = PlainEvent.of(MapEventType.ZOOM_END);
+        final PlainEvent move = PlainEvent.of(MapEventType.MOVE_END);
+        final String json = "[" + renderer.toJson(zoom) + "," + renderer.toJson(move) + "]";
+
+        assertThat(renderer.getDecoder(PlainEvent.class).decodeList(json)).containsExactly(zoom, move);
+        assertThat(renderer.getDecoder(PlainEvent.class).decodeList("[]")).isEmpty();
+    }
+
+    @Test
+    public void testDecodesListWithDatabindForUnexpectedInput() {
+        final String json = "[{\"type\": \"click\", \"latLng\": [\"51.5\", \"-0.09\"]}]";
+
+        final List<MouseEvent> decoded = renderer.getDecoder(MouseEvent.class).decodeList(json);
+
+        assertThat(decoded).hasSize(1);
+        assertThat(decoded.get(0).getLatLng()).isEqualTo(LatLng.of(51.5, -0.09));
+    }
+
+    @Test(expected = JsonException.class)
+    public void testMalformedListThrowsException() {
+        renderer.getDecoder(PlainEvent.class).decodeList("[{\"type\": \"zoomend\"}");
+    }
+
+    @Test(expected = JsonException.class)
+    public void testMalformedInputThrowsException() {
+        renderer.getDecoder(MouseEvent.class).decode("{\"type\": \"click\", \"latLng\": [51.5");
+    }
+
+    @Test
+    public void testRegisteredStreamingDecoderIsUsed() {
+        final JsonRenderer customRenderer = new JsonRenderer();
+        final PlainEvent expected = PlainEvent.of(MapEventType.CLICK);
+        customRenderer.registerStreamingDecoder(PlainEvent.class, new StreamingDecoder<PlainEvent>() {
+            @Override
+            public PlainEvent decode(JsonParser parser) {
+                return expected;
+            }
+        });
+
+        assertThat(customRenderer.fromJson("{\"type\": \"zoomend\"}", PlainEvent.class)).isSameAs(expected);
+    }
+
+    private <T> void assertDecodedLikeDatabind(Class<T> clazz, String json, T expected) {
+        final JsonDecoder<T> decoder = renderer.getDecoder(clazz);
+
+        assertThat(decoder.decode(json)).isEqualTo(expected);
+        assertThat(decoder.decode(json)).isEqualTo(decoder.decodeWithDatabind(json));
+    }
+}
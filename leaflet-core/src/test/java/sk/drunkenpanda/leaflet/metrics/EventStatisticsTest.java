@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.DefaultLeafletSettings;
+import sk.drunkenpanda.leaflet.LeafletSettings;
+import sk.drunkenpanda.leaflet.behaviors.PlainEventBehavior;
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.PlainEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventStatisticsTest extends AbstractLeafletTest {
+
+    private final EventStatistics statistics = new EventStatistics();
+
+    @Override
+    protected LeafletSettings getSettings() {
+        return new DefaultLeafletSettings.Builder().setEventMetrics(statistics).build();
+    }
+
+    @Test
+    public void testAccumulatesStatisticsPerEventType() {
+        final EventStatistics stats = new EventStatistics();
+        for (int i = 1; i <= 100; i++) {
+            stats.onEvent("Page:map", MapEventType.CLICK, 40 + i, TimeUnit.MICROSECONDS.toNanos(i), 0L, 0L);
+        }
+        stats.onEvent("Page:other", MapEventType.MOVE, 10, 0L, TimeUnit.MILLISECONDS.toNanos(5), 0L);
+
+        final EventTypeStatistics click = stats.getEventTypes().get("click");
+        assertThat(stats.getEventCount()).isEqualTo(101L);
+        assertThat(click.getEventCount()).isEqualTo(100L);
+        assertThat(click.getMaxPayloadLength()).isEqualTo(140L);
+        assertThat(click.getTotalPayloadLength()).isEqualTo(9050L);
+        assertThat(click.getDecode().getMean()).isEqualTo(50L);
+        assertThat(click.getDecode().getMax()).isEqualTo(100L);
+        assertThat(click.getDecode().getP50()).isBetween(50L, 63L);
+        assertThat(click.getDecode().getP99()).isEqualTo(100L);
+        assertThat(stats.getMaps().get("Page:other").getTotalMicros()).isEqualTo(5000L);
+
+        stats.reset();
+        assertThat(stats.getEventCount()).isZero();
+        assertThat(stats.getMaps()).isEmpty();
+    }
+
+    @Test
+    public void testMeasuresHandledEvents() throws Exception {
+        final WicketTester tester = this.getTester();
+        final PlainEventBehavior behavior = new PlainEventBehavior(MapEventType.FOCUS) {
+            @Override
+            protected void onEvent(PlainEvent event, AjaxRequestTarget target) {
+            }
+        };
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        tester.startComponentInPage(map);
+        tester.processRequest(this.prepareRequest(tester, behavior, MapEventType.FOCUS,
+                PlainEvent.of(MapEventType.FOCUS)));
+
+        final EventTypeStatistics focus = statistics.getEventTypes().get("focus");
+        assertThat(focus.getEventCount()).isEqualTo(1L);
+        assertThat(focus.getRender().getCount()).isEqualTo(1L);
+        assertThat(statistics.getMaps()).hasSize(1);
+        assertThat(statistics.getMaps().keySet().iterator().next()).endsWith(":map");
+
+        final ObjectName name = EventStatistics.getObjectName(getApplication());
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EventCount")).isEqualTo(1L);
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EventTypes"))
+                .isInstanceOf(TabularData.class);
+
+        tester.destroy();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+}
@@ -2,6 +2,7 @@ package sk.drunkenpanda.leaflet.models;
 
 import org.junit.Test;
 
+import sk.drunkenpanda.leaflet.json.JsonProfile;
 import sk.drunkenpanda.leaflet.json.JsonRenderer;
 import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
 
@@ -36,4 +37,14 @@ public final class LatLngTest {
         final LatLng decoded = renderer.fromJson(fixture("fixtures/latLng.json"), LatLng.class);
         assertThat(decoded).isEqualTo(expected);
     }
+
+    @Test
+    public void testSerializeWithCappedPrecision() {
+        final JsonRenderer compactRenderer = JsonRendererFactory.getJsonRenderer(JsonProfile.DEPLOYMENT, 6);
+
+        assertThat(compactRenderer.toJson(LatLng.of(51.50512345678, -0.0912345))).isEqualTo("[51.505123,-0.091235]");
+        assertThat(compactRenderer.toJson(LatLng.of(10.0, -20.5))).isEqualTo("[10,-20.5]");
+        assertThat(compactRenderer.toJson(LatLng.of(0.000001, -0.0000004))).isEqualTo("[0.000001,0]");
+        assertThat(compactRenderer.toJson(Point.of(12.25, 1e20))).isEqualTo("{\"x\":12.25,\"y\":1.0E20}");
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.models;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class LiveLayerTest {
+
+    @Test
+    public void testCoalescesChangesPerFeature() {
+        final LiveLayer layer = new LiveLayer();
+        layer.put("bus-1", LatLng.of(48.0, 17.0));
+        layer.put("bus-2", LatLng.of(49.0, 18.0));
+        final long seen = layer.getVersion();
+
+        layer.move("bus-1", LatLng.of(48.1, 17.1));
+        layer.move("bus-1", LatLng.of(48.2, 17.2));
+        layer.put("bus-2", LatLng.of(49.0, 18.0), Collections.singletonMap("title", "2"));
+        layer.move("bus-2", LatLng.of(49.1, 18.1));
+        layer.put("bus-3", LatLng.of(50.0, 19.0));
+        layer.remove("bus-3");
+
+        final LiveLayer.Delta delta = layer.changesSince(seen);
+
+        assertThat(delta.getVersion()).isEqualTo(layer.getVersion());
+        assertThat(delta.isReset()).isFalse();
+        assertThat(delta.getMoved()).hasSize(1);
+        assertThat(delta.getMoved().get(0).getId()).isEqualTo("bus-1");
+        assertThat(delta.getMoved().get(0).getLatLng()).isEqualTo(LatLng.of(48.2, 17.2));
+        assertThat(delta.getAdded()).hasSize(1);
+        assertThat(delta.getAdded().get(0).getLatLng()).isEqualTo(LatLng.of(49.1, 18.1));
+        assertThat(delta.getAdded().get(0).getOptions()).containsEntry("title", "2");
+        assertThat(delta.getRemoved()).containsExactly("bus-3");
+    }
+
+    @Test
+    public void testReturnsSnapshotWhenChangesAreTrimmedFromLog() {
+        final LiveLayer layer = new LiveLayer(2);
+        layer.put("bus-1", LatLng.of(48.0, 17.0));
+        layer.put("bus-2", LatLng.of(49.0, 18.0));
+        layer.put("bus-3", LatLng.of(50.0, 19.0));
+        layer.remove("bus-2");
+
+        final LiveLayer.Delta delta = layer.changesSince(1L);
+
+        assertThat(delta.isReset()).isTrue();
+        assertThat(delta.getAdded()).hasSize(2);
+        assertThat(layer.changesSince(2L).isReset()).isFalse();
+        assertThat(layer.changesSince(2L).getRemoved()).containsExactly("bus-2");
+    }
+
+    @Test
+    public void testSharesDeltaOfTheSameVersion() {
+        final LiveLayer layer = new LiveLayer();
+        layer.put("bus-1", LatLng.of(48.0, 17.0));
+
+        assertThat(layer.changesSince(0L)).isSameAs(layer.changesSince(0L));
+        assertThat(layer.changesSince(layer.getVersion()).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testDoesntChangeSnapshot() {
+        final LiveLayer layer = new LiveLayer();
+        layer.put("bus-1", LatLng.of(48.0, 17.0));
+        final Map<String, LiveLayer.Feature> snapshot = layer.getFeatures();
+
+        layer.remove("bus-1");
+
+        assertThat(snapshot).containsKey("bus-1");
+        assertThat(layer.getFeatures()).isEmpty();
+    }
+
+    @Test
+    public void testIgnoresChangesOfMissingFeature() {
+        final LiveLayer layer = new LiveLayer();
+        final int[] changes = new int[1];
+        layer.addListener(new LiveLayer.Listener() {
+            @Override
+            public void onChange(LiveLayer changed) {
+                changes[0]++;
+            }
+        });
+
+        layer.move("bus-1", LatLng.of(48.0, 17.0));
+        layer.remove("bus-1");
+        layer.put("bus-1", LatLng.of(48.0, 17.0));
+
+        assertThat(layer.getVersion()).isEqualTo(1L);
+        assertThat(changes[0]).isEqualTo(1);
+    }
+}
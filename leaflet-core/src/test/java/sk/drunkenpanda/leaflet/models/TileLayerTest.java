@@ -2,10 +2,15 @@ package sk.drunkenpanda.leaflet.models;
 
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 
+import sk.drunkenpanda.leaflet.components.map.MapOptions;
+import sk.drunkenpanda.leaflet.json.JsonProfile;
 import sk.drunkenpanda.leaflet.json.JsonRenderer;
 import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.json.LeafletJacksonModule;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,4 +51,50 @@ public final class TileLayerTest {
 
         assertThat(this.renderer.toJson(layer)).isEqualTo(expected);
     }
+
+    @Test
+    public void testEscapesUrlTemplate() {
+        final TileLayer layer = TileLayer.of("tiles.com/\"{x}\"\u2028", TileLayerOptions.builder().build());
+
+        assertThat(this.renderer.toJson(layer)).startsWith("L.tileLayer(\"tiles.com/\\\"{x}\\\"\\u2028\", {");
+    }
+
+    @Test
+    public void testSerializeLayersOfMap() {
+        final TileLayerOptions opts = TileLayerOptions.builder().build();
+        final MapOptions mapOptions = MapOptions.builder()
+                .addLayers(TileLayer.of("a.com/{x}", opts), TileLayer.of("b.com/{x}", opts))
+                .build();
+        final JsonRenderer compactRenderer = JsonRendererFactory.getJsonRenderer(JsonProfile.DEPLOYMENT);
+        final String optsJson = compactRenderer.toJson(opts);
+
+        assertThat(compactRenderer.toJson(mapOptions)).contains("\"layers\":[L.tileLayer(\"a.com/{x}\", " + optsJson
+                + "),L.tileLayer(\"b.com/{x}\", " + optsJson + ")]");
+    }
+
+    @Test
+    public void testSerializeLayersOfIndentedMap() {
+        final TileLayerOptions opts = TileLayerOptions.builder().build();
+        final MapOptions mapOptions = MapOptions.builder()
+                .addLayers(TileLayer.of("a.com/{x}", opts), TileLayer.of("b.com/{x}", opts))
+                .zoom(3)
+                .build();
+
+        final String json = this.renderer.toJson(mapOptions);
+
+        assertThat(json).contains("\"layers\" : [ L.tileLayer(\"a.com/{x}\", {\n    \"")
+                .contains("\n  }), L.tileLayer(\"b.com/{x}\", {")
+                .contains("\n  }) ],\n");
+    }
+
+    @Test
+    public void testConvertLayerToTreeAsCallDescription() {
+        final ObjectMapper mapper = new ObjectMapper().registerModule(new LeafletJacksonModule());
+
+        final JsonNode tree = mapper.valueToTree(TileLayer.of("a.com/{x}", TileLayerOptions.builder().build()));
+
+        assertThat(tree.get("leafletCall").asText()).isEqualTo("L.tileLayer");
+        assertThat(tree.get("args").get(0).asText()).isEqualTo("a.com/{x}");
+        assertThat(tree.get("args").get(1).get("tileSize").asInt()).isEqualTo(256);
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package sk.drunkenpanda.leaflet.push;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractScriptTest;
+import sk.drunkenpanda.leaflet.components.map.MapBehavior;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class LayerPushScriptTest extends AbstractScriptTest {
+
+    private static final String MESSAGE = "Wicket.Event.publish('/websocket/message',"
+            + " JSON.stringify({leafletPush: 'vehicles', ops: [['a', 'bus', [48, 17]]]}));";
+
+    @Before
+    public void loadScripts() {
+        load(MapBehavior.class, "MapBehavior.js");
+        load(LayerPushBehavior.class, "LayerPush.js");
+    }
+
+    @Test
+    public void testReplacesSubscriptionOfMapRenderedAgain() {
+        eval("var firstMap = L.map('map1'); var secondMap = L.map('map1');");
+        eval("var first = WicketLeaflet.LayerPush.bind(firstMap, 'vehicles', 'map1Map');");
+        eval("var second = WicketLeaflet.LayerPush.bind(secondMap, 'vehicles', 'map1Map');");
+        eval(MESSAGE);
+
+        assertThat(evalInt("stubs.subscribers['/websocket/message'].length")).isEqualTo(1);
+        assertThat(evalInt("firstMap.layers.length")).isEqualTo(0);
+        assertThat(evalInt("secondMap.layers.length")).isEqualTo(1);
+        assertThat(evalInt("second.layers.length")).isEqualTo(1);
+    }
+
+    @Test
+    public void testKeepsFeaturesOfMapRenderedAgain() {
+        eval("var first = WicketLeaflet.LayerPush.bind(L.map('map1'), 'vehicles', 'map1Map');");
+        eval(MESSAGE);
+        eval("var secondMap = L.map('map1');");
+        eval("var second = WicketLeaflet.LayerPush.bind(secondMap, 'vehicles', 'map1Map');");
+        eval("Wicket.Event.publish('/websocket/message',"
+                + " JSON.stringify({leafletPush: 'vehicles', ops: [['m', 'bus', [49, 18]]]}));");
+
+        assertThat(evalInt("secondMap.layers.length")).isEqualTo(1);
+        assertThat(evalInt("second.layers.length")).isEqualTo(1);
+        assertThat(evalInt("second.layers[0].latLng[0]")).isEqualTo(49);
+    }
+
+    @Test
+    public void testKeepsSubscriptionsOfOtherMaps() {
+        eval("var first = WicketLeaflet.LayerPush.bind(L.map('map1'), 'vehicles', 'map1Map');");
+        eval("var second = WicketLeaflet.LayerPush.bind(L.map('map2'), 'vehicles', 'map2Map');");
+        eval(MESSAGE);
+
+        assertThat(evalInt("stubs.subscribers['/websocket/message'].length")).isEqualTo(2);
+        assertThat(evalInt("first.layers.length")).isEqualTo(1);
+        assertThat(evalInt("second.layers.length")).isEqualTo(1);
+    }
+}
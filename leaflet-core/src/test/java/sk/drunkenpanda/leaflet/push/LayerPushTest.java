@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.push;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.protocol.ws.util.tester.WebSocketTester;
+import org.junit.Before;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.components.map.Map;
+import sk.drunkenpanda.leaflet.models.LatLng;
+import sk.drunkenpanda.leaflet.models.LiveLayer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class LayerPushTest extends AbstractLeafletTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Before
+    public void sendOnCallingThread() {
+        LayerPush.get(getTester().getApplication()).setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    @Test
+    public void testPublishesMutationsToConnectedMap() {
+        final Map map = new Map("map");
+        map.add(new LayerPushBehavior("vehicles"));
+        getTester().startComponentInPage(map);
+
+        final List<String> messages = new ArrayList<>();
+        final WebSocketTester webSocket = new WebSocketTester(getTester(), getTester().getLastRenderedPage()) {
+            @Override
+            protected void onOutMessage(String message) {
+                messages.add(message);
+            }
+        };
+        final LayerPush push = LayerPush.get(getTester().getApplication());
+        assertThat(push.getSubscriberCount("vehicles")).isEqualTo(1);
+
+        final int delivered = push.publish("vehicles",
+                LayerMutation.add("bus-12", LatLng.of(48.0, 17.0), Collections.singletonMap("title", "12")),
+                LayerMutation.move("bus-12", LatLng.of(48.5, 17.5)),
+                LayerMutation.remove("bus-7"));
+
+        assertThat(delivered).isEqualTo(1);
+        assertThat(messages).containsExactly("{\"leafletPush\":\"vehicles\",\"ops\":["
+                + "[\"a\",\"bus-12\",[48,17],{\"title\":\"12\"}],"
+                + "[\"m\",\"bus-12\",[48.5,17.5]],"
+                + "[\"r\",\"bus-7\"]]}");
+
+        webSocket.destroy();
+        assertThat(push.getSubscriberCount("vehicles")).isZero();
+        assertThat(push.publish("vehicles", LayerMutation.remove("bus-12"))).isZero();
+    }
+
+    @Test
+    public void testSendsChangesOfSharedLayer() {
+        final LiveLayer layer = new LiveLayer();
+        layer.put("bus-12", LatLng.of(48.0, 17.0));
+        LayerPush.get(getTester().getApplication()).share("vehicles", layer);
+
+        final Map map = new Map("map");
+        map.add(new LayerPushBehavior("vehicles"));
+        getTester().startComponentInPage(map);
+
+        final List<String> messages = new ArrayList<>();
+        new WebSocketTester(getTester(), getTester().getLastRenderedPage()) {
+            @Override
+            protected void onOutMessage(String message) {
+                messages.add(message);
+            }
+        };
+        layer.move("bus-12", LatLng.of(48.5, 17.5));
+
+        assertThat(messages).containsExactly(
+                "{\"leafletPush\":\"vehicles\",\"ops\":[[\"a\",\"bus-12\",[48,17]]]}",
+                "{\"leafletPush\":\"vehicles\",\"ops\":[[\"m\",\"bus-12\",[48.5,17.5]]]}");
+    }
+
+    @Test
+    public void testStopsSendingChangesOfUnsharedLayer() {
+        final LiveLayer layer = new LiveLayer();
+        final LayerPush push = LayerPush.get(getTester().getApplication());
+        push.share("vehicles", layer);
+
+        final Map map = new Map("map");
+        map.add(new LayerPushBehavior("vehicles"));
+        getTester().startComponentInPage(map);
+
+        final List<String> messages = new ArrayList<>();
+        new WebSocketTester(getTester(), getTester().getLastRenderedPage()) {
+            @Override
+            protected void onOutMessage(String message) {
+                messages.add(message);
+            }
+        };
+
+        assertThat(push.unshare("vehicles")).isSameAs(layer);
+        assertThat(push.unshare("vehicles")).isNull();
+        layer.put("bus-12", LatLng.of(48.0, 17.0));
+
+        assertThat(messages).isEmpty();
+    }
+
+    @Test
+    public void testCoalescesChangesOfSharedLayerWhileViewIsBusy() {
+        final LiveLayer layer = new LiveLayer();
+        final LayerPush push = LayerPush.get(getTester().getApplication());
+        push.share("vehicles", layer);
+
+        final Map map = new Map("map");
+        map.add(new LayerPushBehavior("vehicles"));
+        getTester().startComponentInPage(map);
+
+        final List<String> messages = new ArrayList<>();
+        new WebSocketTester(getTester(), getTester().getLastRenderedPage()) {
+            @Override
+            protected void onOutMessage(String message) {
+                messages.add(message);
+            }
+        };
+        push.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        layer.put("bus-12", LatLng.of(48.0, 17.0));
+        layer.move("bus-12", LatLng.of(48.5, 17.5));
+        layer.put("bus-7", LatLng.of(48.1, 17.1));
+
+        assertThat(messages).isEmpty();
+        assertThat(tasks).hasSize(1);
+
+        tasks.get(0).run();
+
+        assertThat(messages).containsExactly("{\"leafletPush\":\"vehicles\",\"ops\":["
+                + "[\"a\",\"bus-12\",[48.5,17.5]],[\"a\",\"bus-7\",[48.1,17.1]]]}");
+    }
+
+    @Test
+    public void testConvertsDeltaToMutations() {
+        final LiveLayer layer = new LiveLayer(1);
+        layer.put("bus-12", LatLng.of(48.0, 17.0));
+        layer.put("bus-7", LatLng.of(48.5, 17.5));
+
+        assertThat(LayerPush.toMutations(layer.changesSince(0L)).toString())
+                .isEqualTo("[LayerMutation[c], LayerMutation[a, bus-12, LatLng{latitude=48.0, longitude=17.0}], "
+                        + "LayerMutation[a, bus-7, LatLng{latitude=48.5, longitude=17.5}]]");
+    }
+
+    @Test
+    public void testDoesntPublishToOtherTopic() {
+        final Map map = new Map("map");
+        map.add(new LayerPushBehavior("vehicles"));
+        getTester().startComponentInPage(map);
+
+        final List<String> messages = new ArrayList<>();
+        new WebSocketTester(getTester(), getTester().getLastRenderedPage()) {
+            @Override
+            protected void onOutMessage(String message) {
+                messages.add(message);
+            }
+        };
+
+        assertThat(LayerPush.get(getTester().getApplication()).publish("stops", LayerMutation.remove("s-1")))
+                .isZero();
+        assertThat(messages).isEmpty();
+    }
+
+    @Test
+    public void testRendersLayerOfTopic() {
+        final LayerPushBehavior behavior = new LayerPushBehavior("vehicles");
+        final Map map = new Map("map");
+        map.add(behavior);
+
+        getTester().startComponentInPage(map);
+
+        assertThat(behavior.getInitializationScript(map))
+                .isEqualTo("WicketLeaflet.LayerPush.bind(" + map.getMapVarName() + ", \"vehicles\", \""
+                        + map.getMapVarName() + "\");");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcceptsOnlyMap() {
+        new WebMarkupContainer("container").add(new LayerPushBehavior("vehicles"));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Jan Ferko.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package sk.drunkenpanda.leaflet.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.Test;
+
+import sk.drunkenpanda.leaflet.AbstractLeafletTest;
+import sk.drunkenpanda.leaflet.behaviors.EventSinkHandler;
+import sk.drunkenpanda.leaflet.components.map.MapEventType;
+import sk.drunkenpanda.leaflet.events.MouseEvent;
+import sk.drunkenpanda.leaflet.json.JsonRendererFactory;
+import sk.drunkenpanda.leaflet.models.LatLng;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Jan Ferko
+ */
+public final class EventSinkResourceTest extends AbstractLeafletTest {
+
+    @Test
+    public void testDeliversEventToHandler() {
+        final WicketTester tester = getTester();
+        final RecordingHandler handler = new RecordingHandler();
+        EventSinkResource.get(getApplication()).register("clicks", MouseEvent.class, handler, MapEventType.CLICK);
+
+        final MouseEvent click = MouseEvent.builder().type(MapEventType.CLICK).latLng(LatLng.of(1.5, 2.5)).build();
+        tester.getRequest().setParameter(EventSinkResource.HANDLER_PARAMETER, "clicks");
+        tester.getRequest().setParameter("leafletEvent", "click");
+        tester.getRequest().setParameter("click", JsonRendererFactory.getJsonRenderer().toJson(click));
+        tester.executeUrl(EventSinkResource.MOUNT_PATH);
+
+        assertThat(tester.getLastResponse().getStatus()).isEqualTo(HttpServletResponse.SC_NO_CONTENT);
+        assertThat(handler.events).containsExactly(click);
+    }
+
+    @Test
+    public void testRejectsUnknownHandler() {
+        final WicketTester tester = getTester();
+
+        tester.getRequest().setParameter(EventSinkResource.HANDLER_PARAMETER, "unknown");
+        tester.getRequest().setParameter("leafletEvent", "click");
+        tester.getRequest().setParameter("click", "{\"type\":\"click\"}");
+        tester.executeUrl(EventSinkResource.MOUNT_PATH);
+
+        assertThat(tester.getLastResponse().getStatus()).isEqualTo(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    public void testRejectsEventTypeThatHandlerIsntRegisteredWith() {
+        final WicketTester tester = getTester();
+        final RecordingHandler handler = new RecordingHandler();
+        EventSinkResource.get(getApplication()).register("clicks", MouseEvent.class, handler, MapEventType.CLICK);
+
+        final MouseEvent move = MouseEvent.builder().type(MapEventType.MOUSEMOVE).latLng(LatLng.of(1.5, 2.5)).build();
+        tester.getRequest().setParameter(EventSinkResource.HANDLER_PARAMETER, "clicks");
+        tester.getRequest().setParameter("leafletEvent", "mousemove");
+        tester.getRequest().setParameter("mousemove", JsonRendererFactory.getJsonRenderer().toJson(move));
+        tester.executeUrl(EventSinkResource.MOUNT_PATH);
+
+        assertThat(tester.getLastResponse().getStatus()).isEqualTo(HttpServletResponse.SC_BAD_REQUEST);
+        assertThat(handler.events).isEmpty();
+    }
+
+    @Test
+    public void testRejectsMalformedEvent() {
+        final WicketTester tester = getTester();
+        final RecordingHandler handler = new RecordingHandler();
+        EventSinkResource.get(getApplication()).register("clicks", MouseEvent.class, handler, MapEventType.CLICK);
+
+        tester.getRequest().setParameter(EventSinkResource.HANDLER_PARAMETER, "clicks");
+        tester.getRequest().setParameter("leafletEvent", "click");
+        tester.getRequest().setParameter("click", "{\"type\":");
+        tester.executeUrl(EventSinkResource.MOUNT_PATH);
+
+        assertThat(tester.getLastResponse().getStatus()).isEqualTo(HttpServletResponse.SC_BAD_REQUEST);
+        assertThat(handler.events).isEmpty();
+    }
+
+    private static final class RecordingHandler implements EventSinkHandler<MouseEvent> {
+
+        final List<MouseEvent> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(MouseEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Minimal stubs of browser, Leaflet and Wicket used by script tests.
+ */
+var window = this;
+var document = {};
+var stubs = {subscribers: {}, observers: [], maps: [], requests: [], timers: []};
+
+var Wicket = {
+    Ajax: {
+        ajax: function(attrs) {
+            stubs.requests.push(attrs);
+        }
+    },
+    merge: function(first, second) {
+        var merged = {};
+        for (var key in first) {
+            merged[key] = first[key];
+        }
+        for (key in second) {
+            merged[key] = second[key];
+        }
+        return merged;
+    },
+    Event: {
+        add: function() {
+        },
+        subscribe: function(topic, subscriber) {
+            (stubs.subscribers[topic] = stubs.subscribers[topic] || []).push(subscriber);
+        },
+        unsubscribe: function(topic, subscriber) {
+            var subscribers = stubs.subscribers[topic] || [];
+            var index = subscribers.indexOf(subscriber);
+            if (index >= 0) {
+                subscribers.splice(index, 1);
+            }
+        },
+        publish: function(topic, message) {
+            var subscribers = (stubs.subscribers[topic] || []).slice();
+            for (var i = 0; i < subscribers.length; i++) {
+                subscribers[i]({}, message);
+            }
+        }
+    }
+};
+
+function StubLayer() {
+    this.layers = [];
+    this.handlers = {};
+}
+StubLayer.prototype.addTo = function(target) {
+    target.addLayer(this);
+    return this;
+};
+StubLayer.prototype.addLayer = function(layer) {
+    this.layers.push(layer);
+    return this;
+};
+StubLayer.prototype.removeLayer = function(layer) {
+    var index = this.layers.indexOf(layer);
+    if (index >= 0) {
+        this.layers.splice(index, 1);
+    }
+    return this;
+};
+StubLayer.prototype.clearLayers = function() {
+    this.layers = [];
+    return this;
+};
+StubLayer.prototype.on = function(type, handler) {
+    (this.handlers[type] = this.handlers[type] || []).push(handler);
+    return this;
+};
+StubLayer.prototype.fire = function(type, event) {
+    var handlers = this.handlers[type] || [];
+    for (var i = 0; i < handlers.length; i++) {
+        handlers[i](event);
+    }
+    return this;
+};
+StubLayer.prototype.getZoom = function() {
+    return 10;
+};
+StubLayer.prototype.getCenter = function() {
+    return {lat: 0, lng: 0};
+};
+StubLayer.prototype.addControl = function(control) {
+    return this.addLayer(control);
+};
+StubLayer.prototype.removeControl = function(control) {
+    return this.removeLayer(control);
+};
+StubLayer.prototype.setLatLng = function(latLng) {
+    this.latLng = latLng;
+    return this;
+};
+StubLayer.prototype.project = function(latLng) {
+    return {x: latLng.lng * 10, y: latLng.lat * 10};
+};
+
+var L = {
+    map: function(element, options) {
+        var map = new StubLayer();
+        map.element = element;
+        map.options = options;
+        stubs.maps.push(map);
+        return map;
+    },
+    layerGroup: function() {
+        return new StubLayer();
+    },
+    control: {
+        zoom: function() {
+            return new StubLayer();
+        },
+        attribution: function() {
+            return new StubLayer();
+        }
+    },
+    marker: function(latLng, options) {
+        var marker = new StubLayer();
+        marker.latLng = latLng;
+        marker.options = options;
+        return marker;
+    }
+};
+
+function IntersectionObserver(callback) {
+    this.callback = callback;
+    this.disconnected = false;
+    stubs.observers.push(this);
+}
+IntersectionObserver.prototype.observe = function(element) {
+    this.element = element;
+};
+IntersectionObserver.prototype.disconnect = function() {
+    this.disconnected = true;
+};
+
+function setTimeout(callback) {
+    stubs.lastTimer = (stubs.lastTimer || 0) + 1;
+    stubs.timers.push({id: stubs.lastTimer, callback: callback});
+    return stubs.lastTimer;
+}
+function clearTimeout(timer) {
+    for (var i = 0; i < stubs.timers.length; i++) {
+        if (stubs.timers[i].id === timer) {
+            stubs.timers.splice(i, 1);
+            return;
+        }
+    }
+}
+
+stubs.runTimers = function() {
+    var timers = stubs.timers;
+    stubs.timers = [];
+    for (var i = 0; i < timers.length; i++) {
+        timers[i].callback();
+    }
+};
+
+stubs.scrollIntoView = function(element) {
+    var observers = stubs.observers.slice();
+    for (var i = 0; i < observers.length; i++) {
+        if (!observers[i].disconnected && observers[i].element === element) {
+            observers[i].callback([{isIntersecting: true, target: element}]);
+        }
+    }
+};
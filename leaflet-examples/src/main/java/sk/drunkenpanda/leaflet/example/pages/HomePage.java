@@ -52,7 +52,11 @@ public class HomePage extends AbstractLeafletExamplePage {
             @Override
             protected void onEvent(MouseEvent event, AjaxRequestTarget target) {
                 System.out.println(event.toString());
-                target.appendJavaScript("alert(\"You clicked on map!\");");
+                if (event.getLatLng() != null) {
+                    map.getCommands()
+                            .panTo(event.getLatLng())
+                            .addFeature("clicked", event.getLatLng());
+                }
             }
         });
         add(map);